@@ -23,6 +23,7 @@ import java.util.List;
 
 import com.google.common.collect.Lists;
 
+import biz.ganttproject.core.calendar.walker.WorkingUnitCounter;
 import biz.ganttproject.core.time.DateFrameable;
 import biz.ganttproject.core.time.TimeDuration;
 import biz.ganttproject.core.time.TimeUnit;
@@ -76,6 +77,11 @@ abstract class GPCalendarBase implements GPCalendarCalc {
     return result;
   }
 
+  @Override
+  public TimeDuration countWorkingUnits(Date startDate, Date endDate, TimeUnit timeUnit) {
+    return new WorkingUnitCounter(this, timeUnit).run(startDate, endDate);
+  }
+
   public List<GPCalendarActivity> getActivities(Date startDate, TimeUnit timeUnit, long unitCount) {
     return unitCount > 0 ? getActivitiesForward(startDate, timeUnit, unitCount) : getActivitiesBackward(startDate,
         timeUnit, -unitCount);
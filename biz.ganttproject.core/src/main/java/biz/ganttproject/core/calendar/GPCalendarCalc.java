@@ -39,6 +39,14 @@ public interface GPCalendarCalc extends GPCalendar {
    */
   Date shiftDate(Date input, TimeDuration shift);
 
+  /**
+   * Counts the working units of the given time unit between the start and end dates, the same way
+   * {@link biz.ganttproject.core.calendar.walker.WorkingUnitCounter} does it: the unit which contains
+   * the start date is always counted if it is working, and the following working units are counted if they
+   * start before the end date.
+   */
+  TimeDuration countWorkingUnits(Date startDate, Date endDate, TimeUnit timeUnit);
+
   Date findClosest(Date time, TimeUnit timeUnit, MoveDirection direction, DayType dayType);
 
   Date findClosest(Date time, TimeUnit timeUnit, MoveDirection direction, DayType dayType, Date limit);
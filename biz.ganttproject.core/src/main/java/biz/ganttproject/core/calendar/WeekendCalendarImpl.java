@@ -22,21 +22,26 @@ import biz.ganttproject.core.calendar.CalendarEvent.Type;
 import biz.ganttproject.core.calendar.walker.ForwardTimeWalker;
 import biz.ganttproject.core.time.CalendarFactory;
 import biz.ganttproject.core.time.TimeDuration;
+import biz.ganttproject.core.time.TimeDurationImpl;
 import biz.ganttproject.core.time.TimeUnit;
 import biz.ganttproject.core.time.impl.FramerImpl;
+import biz.ganttproject.core.time.impl.GPTimeUnitStack;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implements a calendar which is aware of weekend days and recurring/one-off holidays and working days.
@@ -57,7 +62,8 @@ import java.util.Map;
 public class WeekendCalendarImpl extends GPCalendarBase implements GPCalendarCalc {
 
   private static final int DUMMY_YEAR_FOR_RECURRING_EVENTS = 2000;
-  private final Calendar myCalendar = CalendarFactory.newCalendar();
+  // Calendar instances are mutable, so each thread querying this calendar gets its own one.
+  private final ThreadLocal<Calendar> myCalendar = ThreadLocal.withInitial(CalendarFactory::newCalendar);
 
   private final FramerImpl myFramer = new FramerImpl(Calendar.DAY_OF_WEEK);
 
@@ -74,15 +80,41 @@ public class WeekendCalendarImpl extends GPCalendarBase implements GPCalendarCal
 
   private String myBaseCalendarID;
 
+  // Working and non-working time runs of the whole months, keyed by the month start time.
+  // The cache is cleared on any calendar change, and the version protects it from the runs
+  // computed concurrently with the change.
+  private final Map<Long, MonthActivities> myMonthActivities = new ConcurrentHashMap<>();
+  private volatile int myVersion;
+
+  private final WorkingDayIndex myWorkingDays = new WorkingDayIndex(this::computeDayMask);
+
+  private static class MonthActivities {
+    final int version;
+    final List<GPCalendarActivity> activities;
+
+    MonthActivities(int version, List<GPCalendarActivity> activities) {
+      this.version = version;
+      this.activities = activities;
+    }
+  }
+
   public WeekendCalendarImpl() {
     this(null);
   }
 
   public WeekendCalendarImpl(String baseCalendarID) {
     myBaseCalendarID = baseCalendarID;
+    // This listener must be the first one, so that other listeners see the fresh activities.
+    addListener(this::invalidateActivities);
     reset();
   }
 
+  private void invalidateActivities() {
+    myVersion++;
+    myMonthActivities.clear();
+    myWorkingDays.invalidate();
+  }
+
   public void reset() {
     myRecurringEvents.clear();
     myOneOffEvents.clear();
@@ -99,6 +131,67 @@ public class WeekendCalendarImpl extends GPCalendarBase implements GPCalendarCal
     if (getWeekendDaysCount() == 0 && myOneOffEvents.isEmpty() && myRecurringEvents.isEmpty()) {
       return myRestlessCalendar.getActivities(startDate, endDate);
     }
+    List<GPCalendarActivity> result = new ArrayList<GPCalendarActivity>();
+    Date curDayStart = myFramer.adjustLeft(startDate);
+    Date monthStart = getMonthStart(curDayStart);
+    while (monthStart.before(endDate) && curDayStart.before(endDate)) {
+      Date nextMonthStart = getNextMonthStart(monthStart);
+      for (GPCalendarActivity run : getMonthActivities(monthStart, nextMonthStart)) {
+        if (!run.getEnd().after(curDayStart)) {
+          continue;
+        }
+        if (!run.getStart().before(endDate)) {
+          break;
+        }
+        Date runStart = run.getStart().before(curDayStart) ? curDayStart : run.getStart();
+        Date runEnd = run.getEnd().after(endDate) ? endDate : run.getEnd();
+        GPCalendarActivity last = result.isEmpty() ? null : result.get(result.size() - 1);
+        if (last != null && last.isWorkingTime() == run.isWorkingTime() && last.getEnd().equals(runStart)) {
+          // Runs are split on the month boundaries, so we glue them back
+          result.set(result.size() - 1, new CalendarActivityImpl(last.getStart(), runEnd, run.isWorkingTime()));
+        } else if (runStart == run.getStart() && runEnd == run.getEnd()) {
+          result.add(run);
+        } else {
+          result.add(new CalendarActivityImpl(runStart, runEnd, run.isWorkingTime()));
+        }
+      }
+      monthStart = nextMonthStart;
+    }
+    return result;
+  }
+
+  private List<GPCalendarActivity> getMonthActivities(Date monthStart, Date nextMonthStart) {
+    int version = myVersion;
+    MonthActivities cached = myMonthActivities.get(monthStart.getTime());
+    if (cached != null && cached.version == version) {
+      return cached.activities;
+    }
+    List<GPCalendarActivity> activities = computeActivities(monthStart, nextMonthStart);
+    if (version == myVersion) {
+      myMonthActivities.put(monthStart.getTime(), new MonthActivities(version, activities));
+    }
+    return activities;
+  }
+
+  private Date getMonthStart(Date date) {
+    Calendar calendar = myCalendar.get();
+    calendar.setTime(date);
+    calendar.set(Calendar.DAY_OF_MONTH, 1);
+    calendar.set(Calendar.HOUR_OF_DAY, 0);
+    calendar.set(Calendar.MINUTE, 0);
+    calendar.set(Calendar.SECOND, 0);
+    calendar.set(Calendar.MILLISECOND, 0);
+    return calendar.getTime();
+  }
+
+  private Date getNextMonthStart(Date monthStart) {
+    Calendar calendar = myCalendar.get();
+    calendar.setTime(monthStart);
+    calendar.add(Calendar.MONTH, 1);
+    return calendar.getTime();
+  }
+
+  private List<GPCalendarActivity> computeActivities(Date startDate, final Date endDate) {
     List<GPCalendarActivity> result = new ArrayList<GPCalendarActivity>();
     Date curDayStart = myFramer.adjustLeft(startDate);
     boolean isWeekendState = (getDayMask(curDayStart) & DayMask.WORKING) == 0;
@@ -107,6 +200,10 @@ public class WeekendCalendarImpl extends GPCalendarBase implements GPCalendarCal
           isWeekendState ? DayType.WORKING : DayType.NON_WORKING, endDate);
       if (changeStateDayStart == null) {
         changeStateDayStart = endDate;
+      } else {
+        // Day starts found by walking from the month start may drift off midnight when the walk
+        // crosses a DST change at midnight, so we align them to have the same boundaries wherever the walk begins.
+        changeStateDayStart = myFramer.adjustLeft(changeStateDayStart);
       }
       if (changeStateDayStart.before(endDate) == false) {
         result.add(new CalendarActivityImpl(curDayStart, endDate, !isWeekendState));
@@ -116,7 +213,7 @@ public class WeekendCalendarImpl extends GPCalendarBase implements GPCalendarCal
       curDayStart = changeStateDayStart;
       isWeekendState = !isWeekendState;
     }
-    return result;
+    return Collections.unmodifiableList(result);
   }
 
   public boolean isWeekend(Date curDayStart) {
@@ -124,8 +221,9 @@ public class WeekendCalendarImpl extends GPCalendarBase implements GPCalendarCal
       return false;
     }
 
-    myCalendar.setTime(curDayStart);
-    int dayOfWeek = myCalendar.get(Calendar.DAY_OF_WEEK);
+    Calendar calendar = myCalendar.get();
+    calendar.setTime(curDayStart);
+    int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
     return myTypes[dayOfWeek - 1] == GPCalendar.DayType.WEEKEND;
   }
 
@@ -214,7 +312,47 @@ public class WeekendCalendarImpl extends GPCalendarBase implements GPCalendarCal
     if ((dayMask & DayMask.WORKING) == DayMask.WORKING) {
       return time;
     }
-    return doFindClosest(time, myFramer, MoveDirection.FORWARD, DayType.WORKING, null);
+    LocalDate workingDay = myWorkingDays.findWorkingDayForward(myWorkingDays.toDay(time).plusDays(1), 1);
+    return workingDay == null
+        ? doFindClosest(time, myFramer, MoveDirection.FORWARD, DayType.WORKING, null)
+        : myWorkingDays.toDate(workingDay);
+  }
+
+  @Override
+  public Date shiftDate(Date input, TimeDuration shift) {
+    if (shift.getTimeUnit() != GPTimeUnitStack.DAY || shift.getLength() == 0) {
+      return super.shiftDate(input, shift);
+    }
+    LocalDate day = myWorkingDays.toDay(input);
+    if (shift.getLength() > 0) {
+      LocalDate lastWorkingDay = myWorkingDays.findWorkingDayForward(day, shift.getLength());
+      if (lastWorkingDay != null) {
+        return myWorkingDays.toDate(lastWorkingDay.plusDays(1));
+      }
+    } else {
+      LocalDate firstWorkingDay = myWorkingDays.findWorkingDayBackward(day, -shift.getLength());
+      if (firstWorkingDay != null) {
+        return myWorkingDays.toDate(firstWorkingDay);
+      }
+    }
+    return super.shiftDate(input, shift);
+  }
+
+  @Override
+  public TimeDuration countWorkingUnits(Date startDate, Date endDate, TimeUnit timeUnit) {
+    if (timeUnit != GPTimeUnitStack.DAY || startDate.equals(endDate)) {
+      return super.countWorkingUnits(startDate, endDate, timeUnit);
+    }
+    LocalDate firstDay = myWorkingDays.toDay(startDate);
+    if (!myWorkingDays.toDate(firstDay).before(endDate)) {
+      // We always count the first day, even if the end date is before its start.
+      return new TimeDurationImpl(timeUnit, myWorkingDays.isWorking(firstDay) ? 1 : 0);
+    }
+    LocalDate endDay = myWorkingDays.toDay(endDate);
+    if (!myWorkingDays.toDate(endDay).equals(endDate)) {
+      endDay = endDay.plusDays(1);
+    }
+    return new TimeDurationImpl(timeUnit, myWorkingDays.countWorkingDays(firstDay, endDay));
   }
 
   private boolean isPublicHoliDay(Date curDayStart) {
@@ -254,15 +392,22 @@ public class WeekendCalendarImpl extends GPCalendarBase implements GPCalendarCal
   }
 
   private Date getRecurringDate(Date date) {
-    myCalendar.setTime(date);
-    myCalendar.set(Calendar.YEAR, DUMMY_YEAR_FOR_RECURRING_EVENTS);
-    return myCalendar.getTime();
+    Calendar calendar = myCalendar.get();
+    calendar.setTime(date);
+    calendar.set(Calendar.YEAR, DUMMY_YEAR_FOR_RECURRING_EVENTS);
+    return calendar.getTime();
   }
   @Override
   public int getDayMask(Date date) {
+    LocalDate day = myWorkingDays.toDayStart(date);
+    return day == null ? computeDayMask(date) : myWorkingDays.getDayMask(day);
+  }
+
+  private int computeDayMask(Date date) {
     int result = 0;
-    myCalendar.setTime(date);
-    int dayOfWeek = myCalendar.get(Calendar.DAY_OF_WEEK);
+    Calendar calendar = myCalendar.get();
+    calendar.setTime(date);
+    int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
     boolean isHoliday = isPublicHoliDay(date);
     boolean isWeekend = myTypes[dayOfWeek - 1] == DayType.WEEKEND;
     if (isWeekend) {
@@ -293,9 +438,7 @@ public class WeekendCalendarImpl extends GPCalendarBase implements GPCalendarCal
     myOneOffEvents.clear();
     for (CalendarEvent h : holidays) {
       if (h.isRecurring) {
-        myCalendar.setTime(h.myDate);
-        myCalendar.set(Calendar.YEAR, DUMMY_YEAR_FOR_RECURRING_EVENTS);
-        myRecurringEvents.put(myCalendar.getTime(), h);
+        myRecurringEvents.put(getRecurringDate(h.myDate), h);
       } else {
         myOneOffEvents.put(h.myDate, h);
       }
@@ -0,0 +1,190 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an opensource project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package biz.ganttproject.core.calendar;
+
+import biz.ganttproject.core.calendar.GPCalendar.DayMask;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Compiled representation of the calendar days. Day masks are computed once per year and stored
+ * together with the prefix sums of the working days, so that counting working days between two dates
+ * and finding N-th working day take O(log n) time per year instead of walking day by day.
+ *
+ * Years are compiled on demand. The index must be invalidated when the calendar changes.
+ */
+class WorkingDayIndex {
+  // We give up searching for working days after this number of years. Calendar without working
+  // days is not something users create on purpose, and callers fall back to the slow path then.
+  private static final int MAX_SEARCH_YEARS = 100;
+
+  private static class Year {
+    final int version;
+    final LocalDate firstDay;
+    final byte[] masks;
+    // workingPrefix[i] is the number of working days among the first i days of the year
+    final int[] workingPrefix;
+
+    Year(int version, LocalDate firstDay, byte[] masks) {
+      this.version = version;
+      this.firstDay = firstDay;
+      this.masks = masks;
+      this.workingPrefix = new int[masks.length + 1];
+      for (int i = 0; i < masks.length; i++) {
+        workingPrefix[i + 1] = workingPrefix[i] + ((masks[i] & DayMask.WORKING) == 0 ? 0 : 1);
+      }
+    }
+
+    int workingDays() {
+      return workingPrefix[masks.length];
+    }
+
+    /**
+     * @return index of the day in this year such that there are exactly {@code count} working days
+     * among the days [0, index], and the day at index is working
+     */
+    int findWorkingDay(int count) {
+      int low = 0;
+      int high = masks.length - 1;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (workingPrefix[mid + 1] >= count) {
+          high = mid;
+        } else {
+          low = mid + 1;
+        }
+      }
+      return low;
+    }
+  }
+
+  private final Function<Date, Integer> myDayMaskFxn;
+  private final Map<Integer, Year> myYears = new ConcurrentHashMap<>();
+  private volatile int myVersion;
+
+  WorkingDayIndex(Function<Date, Integer> dayMaskFxn) {
+    myDayMaskFxn = dayMaskFxn;
+  }
+
+  void invalidate() {
+    myVersion++;
+    myYears.clear();
+  }
+
+  LocalDate toDay(Date date) {
+    return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+  }
+
+  Date toDate(LocalDate day) {
+    return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+  }
+
+  /**
+   * @return day which starts at the given date or null if the date is not a day start
+   */
+  LocalDate toDayStart(Date date) {
+    LocalDate day = toDay(date);
+    return toDate(day).equals(date) ? day : null;
+  }
+
+  int getDayMask(LocalDate day) {
+    Year year = getYear(day.getYear());
+    return year.masks[day.getDayOfYear() - 1];
+  }
+
+  boolean isWorking(LocalDate day) {
+    return (getDayMask(day) & DayMask.WORKING) != 0;
+  }
+
+  /**
+   * @return the number of working days in the interval [from, to)
+   */
+  long countWorkingDays(LocalDate from, LocalDate to) {
+    if (!from.isBefore(to)) {
+      return 0;
+    }
+    Year fromYear = getYear(from.getYear());
+    if (from.getYear() == to.getYear()) {
+      return fromYear.workingPrefix[to.getDayOfYear() - 1] - fromYear.workingPrefix[from.getDayOfYear() - 1];
+    }
+    long result = fromYear.workingDays() - fromYear.workingPrefix[from.getDayOfYear() - 1];
+    for (int y = from.getYear() + 1; y < to.getYear(); y++) {
+      result += getYear(y).workingDays();
+    }
+    return result + getYear(to.getYear()).workingPrefix[to.getDayOfYear() - 1];
+  }
+
+  /**
+   * @return N-th working day which is equal to or after the given day, or null if it can't be found
+   */
+  LocalDate findWorkingDayForward(LocalDate from, long n) {
+    assert n > 0;
+    Year year = getYear(from.getYear());
+    long count = n + year.workingPrefix[from.getDayOfYear() - 1];
+    for (int i = 0; i < MAX_SEARCH_YEARS; i++) {
+      if (count <= year.workingDays()) {
+        return year.firstDay.plusDays(year.findWorkingDay((int) count));
+      }
+      count -= year.workingDays();
+      year = getYear(year.firstDay.getYear() + 1);
+    }
+    return null;
+  }
+
+  /**
+   * @return N-th working day which is strictly before the given day, or null if it can't be found
+   */
+  LocalDate findWorkingDayBackward(LocalDate before, long n) {
+    assert n > 0;
+    Year year = getYear(before.getYear());
+    // The number of the working day we're looking for, counting from the year start
+    long count = year.workingPrefix[before.getDayOfYear() - 1] - n + 1;
+    for (int i = 0; i < MAX_SEARCH_YEARS; i++) {
+      if (count > 0) {
+        return year.firstDay.plusDays(year.findWorkingDay((int) count));
+      }
+      year = getYear(year.firstDay.getYear() - 1);
+      count += year.workingDays();
+    }
+    return null;
+  }
+
+  private Year getYear(int yearNum) {
+    int version = myVersion;
+    Year year = myYears.get(yearNum);
+    if (year != null && year.version == version) {
+      return year;
+    }
+    LocalDate firstDay = LocalDate.of(yearNum, 1, 1);
+    byte[] masks = new byte[firstDay.lengthOfYear()];
+    for (int i = 0; i < masks.length; i++) {
+      masks[i] = myDayMaskFxn.apply(toDate(firstDay.plusDays(i))).byteValue();
+    }
+    year = new Year(version, firstDay, masks);
+    if (version == myVersion) {
+      myYears.put(yearNum, year);
+    }
+    return year;
+  }
+}
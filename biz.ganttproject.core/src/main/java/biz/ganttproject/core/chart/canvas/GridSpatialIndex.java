@@ -0,0 +1,172 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an opensource project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package biz.ganttproject.core.chart.canvas;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implements an index which buckets rectangles into the cells of a uniform grid. Point search
+ * checks only the rectangles which overlap the cells around the point, so it takes constant time
+ * when the rectangles are spread evenly, as chart primitives are.
+ *
+ * Rectangles which span too many cells are kept in a separate list which is always scanned.
+ *
+ * If several rectangles contain the search point, the one which was put first is returned,
+ * just like {@link DummySpatialIndex} does.
+ */
+public class GridSpatialIndex<T> implements SpatialIndex<T> {
+  static final int DEFAULT_CELL_WIDTH = 128;
+  static final int DEFAULT_CELL_HEIGHT = 32;
+  static final int MAX_CELLS_PER_RECT = 64;
+
+  private static class Rect<T> {
+    final T myObject;
+    final int myOrder;
+    final int myLeftX;
+    final int myRightX;
+    final int myTopY;
+    final int myBottomY;
+
+    Rect(T object, int order, int leftX, int bottomY, int width, int height) {
+      myObject = object;
+      myOrder = order;
+      myLeftX = leftX;
+      myRightX = leftX + width;
+      myBottomY = bottomY;
+      myTopY = bottomY - height;
+    }
+
+    boolean intersects(int leftX, int rightX, int topY, int bottomY) {
+      return myLeftX <= rightX && myRightX >= leftX && myBottomY >= topY && myTopY <= bottomY;
+    }
+
+    @Override
+    public String toString() {
+      return "x=" + myLeftX + " y=" + myBottomY + " width=" + (myRightX - myLeftX);
+    }
+  }
+
+  private final int myCellWidth;
+  private final int myCellHeight;
+  private final Map<Long, List<Rect<T>>> myCells = Maps.newHashMap();
+  private final List<Rect<T>> myOversizedRects = Lists.newArrayList();
+  private final List<T> myValues = Lists.newArrayList();
+
+  public GridSpatialIndex() {
+    this(DEFAULT_CELL_WIDTH, DEFAULT_CELL_HEIGHT);
+  }
+
+  public GridSpatialIndex(int cellWidth, int cellHeight) {
+    if (cellWidth <= 0 || cellHeight <= 0) {
+      throw new IllegalArgumentException("Cell size must be positive: " + cellWidth + "x" + cellHeight);
+    }
+    myCellWidth = cellWidth;
+    myCellHeight = cellHeight;
+  }
+
+  @Override
+  public void put(T data, int x, int y, int width, int height) {
+    Rect<T> rect = new Rect<>(data, myValues.size(), x, y, width, height);
+    myValues.add(data);
+
+    int minCellX = cellX(rect.myLeftX);
+    int maxCellX = cellX(rect.myRightX);
+    int minCellY = cellY(rect.myTopY);
+    int maxCellY = cellY(rect.myBottomY);
+    if ((long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) > MAX_CELLS_PER_RECT) {
+      myOversizedRects.add(rect);
+      return;
+    }
+    for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+      for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+        myCells.computeIfAbsent(cellKey(cellX, cellY), key -> Lists.newArrayListWithExpectedSize(4)).add(rect);
+      }
+    }
+  }
+
+  @Override
+  public T get(int x, int y) {
+    return get(x, 0, y, 0);
+  }
+
+  @Override
+  public T get(int x, int xpadding, int y, int ypadding) {
+    int leftX = x - xpadding;
+    int rightX = x + xpadding;
+    int topY = y - ypadding;
+    int bottomY = y + ypadding;
+
+    Rect<T> result = null;
+    int minCellX = cellX(leftX);
+    int maxCellX = cellX(rightX);
+    int minCellY = cellY(topY);
+    int maxCellY = cellY(bottomY);
+    for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+      for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+        List<Rect<T>> cell = myCells.get(cellKey(cellX, cellY));
+        if (cell != null) {
+          result = findFirst(cell, result, leftX, rightX, topY, bottomY);
+        }
+      }
+    }
+    result = findFirst(myOversizedRects, result, leftX, rightX, topY, bottomY);
+    return result == null ? null : result.myObject;
+  }
+
+  private static <T> Rect<T> findFirst(List<Rect<T>> rects, Rect<T> found, int leftX, int rightX, int topY, int bottomY) {
+    // Rectangles are appended in the order of insertion, so we can stop as soon as we pass the one already found.
+    for (int i = 0; i < rects.size(); i++) {
+      Rect<T> r = rects.get(i);
+      if (found != null && r.myOrder >= found.myOrder) {
+        break;
+      }
+      if (r.intersects(leftX, rightX, topY, bottomY)) {
+        return r;
+      }
+    }
+    return found;
+  }
+
+  private int cellX(int x) {
+    return Math.floorDiv(x, myCellWidth);
+  }
+
+  private int cellY(int y) {
+    return Math.floorDiv(y, myCellHeight);
+  }
+
+  private static long cellKey(int cellX, int cellY) {
+    return ((long) cellX << 32) | (cellY & 0xffffffffL);
+  }
+
+  public void clear() {
+    myCells.clear();
+    myOversizedRects.clear();
+    myValues.clear();
+  }
+
+  public Collection<T> values() {
+    return myValues;
+  }
+}
@@ -46,9 +46,9 @@ class CapacityHeatmapSceneBuilder(
     var ypos = 0
     resources.forEach { resource ->
       // Draw day off loads
-      buildLoads(calcLoadDistribution(resource.loads.filter { it.load == -1f }), ypos)
+      buildLoads(resource.daysOffTimeline?.borders ?: calcLoadDistribution(resource.loads.filter { it.load == -1f }), ypos)
       // Draw working time loads
-      buildLoads(calcLoadDistribution(resource.loads.filter { it.load != -1f }), ypos)
+      buildLoads(resource.loadTimeline?.borders ?: calcLoadDistribution(resource.loads.filter { it.load != -1f }), ypos)
       if (resource.isExpanded) {
         ypos = buildLoadDetails(resource.loads, ypos)
       }
@@ -142,7 +142,16 @@ class CapacityHeatmapSceneBuilder(
 
   private fun Long.toDate() = Date.from(Instant.ofEpochMilli(this))
 
-  class Resource(val loads: List<Load>, val isExpanded: Boolean = false)
+  /**
+   * Resource row. If load timelines are provided, they are used for drawing the resource row, and the list of loads
+   * is used only for drawing the details of the expanded resource.
+   */
+  class Resource(
+    val loads: List<Load>,
+    val isExpanded: Boolean = false,
+    val daysOffTimeline: LoadTimeline? = null,
+    val loadTimeline: LoadTimeline? = null
+  )
   class Load(val startTs: Long, val endTs: Long, val load: Float, val taskId: Int? = null)
 
   interface InputApi {
@@ -157,32 +166,73 @@ class CapacityHeatmapSceneBuilder(
 
 data class LoadBorder(val ts: Long, val load: Float)
 
-fun calcLoadDistribution(loads: List<CapacityHeatmapSceneBuilder.Load>): List<LoadBorder> {
-  // This is the list of moments where resource load grows or decreases.
-  return loads.filter { it.load != 0f }.flatMap {
-    listOf(
-            LoadBorder(it.startTs, it.load),
-            LoadBorder(it.endTs, -it.load)
-    )
+fun calcLoadDistribution(loads: List<CapacityHeatmapSceneBuilder.Load>): List<LoadBorder> =
+  LoadTimeline().also { timeline ->
+    loads.forEach { timeline.add(it.startTs, it.endTs, it.load) }
+  }.borders
+
+/**
+ * Sorted timeline of the moments where resource load grows or decreases. Loads can be added and removed one by one,
+ * and the accumulated load borders are recalculated lazily, in linear time, when they are requested after a change.
+ */
+class LoadTimeline {
+  // Load changes which happen at the same moment. For instance, when we have two tasks which are assigned
+  // to some resource and starting at the same day, we'll have two load changes at that moment.
+  private val changes = TreeMap<Long, MutableList<Float>>()
+  private var cachedBorders: List<LoadBorder>? = null
+
+  /**
+   * Ordered list of load borders, starting with zero load from the Jurassic period. Each border is the accumulated
+   * load from its timestamp until the timestamp of the next border. If we have e.g. load change +50 at ts=100,
+   * then load change +50 at ts=200, then load change -50 at ts=250 and finally the load change -50 at ts=300
+   * then we'll have: [(-inf, 0), (100, 50), (200, 100), (250, 50), (300, 0)]
+   */
+  val borders: List<LoadBorder> get() = cachedBorders ?: buildBorders().also { cachedBorders = it }
+
+  fun add(startTs: Long, endTs: Long, load: Float) {
+    // Zero loads are not counted
+    if (load == 0f) {
+      return
+    }
+    changes.getOrPut(startTs) { mutableListOf() }.add(load)
+    changes.getOrPut(endTs) { mutableListOf() }.add(-load)
+    cachedBorders = null
+  }
+
+  fun remove(startTs: Long, endTs: Long, load: Float) {
+    if (load == 0f) {
+      return
+    }
+    removeChange(startTs, load)
+    removeChange(endTs, -load)
+    cachedBorders = null
+  }
+
+  fun clear() {
+    changes.clear()
+    cachedBorders = null
+  }
+
+  private fun removeChange(ts: Long, change: Float) {
+    val tsChanges = changes[ts] ?: return
+    tsChanges.remove(change)
+    if (tsChanges.isEmpty()) {
+      changes.remove(ts)
+    }
+  }
+
+  private fun buildBorders(): List<LoadBorder> {
+    val result = ArrayList<LoadBorder>(changes.size + 1)
+    if (changes.isEmpty() || changes.firstKey() != Long.MIN_VALUE) {
+      result.add(LoadBorder(Long.MIN_VALUE, 0f))
+    }
+    var accumulatedLoad = 0f
+    changes.forEach { (ts, tsChanges) ->
+      accumulatedLoad += tsChanges.sum()
+      result.add(LoadBorder(ts, accumulatedLoad))
+    }
+    return result
   }
-          // Zero load starting from the Jurassic period
-          .plus(LoadBorder(Long.MIN_VALUE, 0f))
-          // Now we accumulate the load changes which happen at the same moment.
-          // For instance, when we have two tasks which are assigned to some resource
-          // and starting at the same day, their load change is summed.
-          .groupBy(LoadBorder::ts, LoadBorder::load)
-          .mapValues { it.value.sum() }
-          // Sort the result by the timestamp. Now we have the ordered list of load changes
-          // where all change moments are unique.
-          .toSortedMap()
-          .map { LoadBorder(it.key, it.value) }
-          // Now let's accumulate the load change values from the beginning to the end.
-          // If we have e.g. load change +50 at ts=100, then load change +50 at ts=200,
-          // then load change -50 at ts=250 and finally the load change -50 at ts=300
-          // then we'll have: [(100, 50), (200, 100), (250, 50), (300, 0)
-          .runningReduce { accumulatedLoad, nextLoad ->
-            LoadBorder(nextLoad.ts, accumulatedLoad.load + nextLoad.load)
-          }
 }
 
 private fun Float.getStyle() = when {
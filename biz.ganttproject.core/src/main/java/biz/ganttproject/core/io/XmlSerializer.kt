@@ -25,7 +25,12 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper
 import com.fasterxml.jackson.dataformat.xml.annotation.*
 import com.fasterxml.jackson.dataformat.xml.deser.FromXmlParser
 import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator
+import org.codehaus.stax2.XMLInputFactory2
+import java.io.InputStream
 import java.math.BigDecimal
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamException
+import javax.xml.stream.XMLStreamReader
 
 @JacksonXmlRootElement(localName = "project")
 @JsonPropertyOrder(
@@ -367,6 +372,28 @@ fun XmlProject.toXml(): String = xmlMapper.writeValueAsString(this)
 
 fun parseXmlProject(xml: String): XmlProject = xmlMapper.readValue(xml, XmlProject::class.java)
 
+/**
+ * Reads the project from the stream reader. The document is parsed just once, and the reader may observe
+ * the XML events while the project is being read.
+ */
+fun parseXmlProject(xmlReader: XMLStreamReader): XmlProject = xmlMapper.readValue(xmlReader, XmlProject::class.java)
+
+/**
+ * Creates a stream reader which can be passed to parseXmlProject. Unlike the reader which XmlMapper creates
+ * internally, it reports CDATA sections as separate events. Like that reader, it doesn't process DTDs and
+ * external entities, so that opening a project file can't read other files or URLs.
+ */
+@Throws(XMLStreamException::class)
+fun createXmlStreamReader(inputStream: InputStream): XMLStreamReader = xmlStreamInputFactory.createXMLStreamReader(inputStream)
+
+private val xmlStreamInputFactory = XMLInputFactory.newFactory().also {
+  it.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true)
+  it.setProperty(XMLInputFactory.IS_COALESCING, false)
+  it.setProperty(XMLInputFactory2.P_REPORT_CDATA, true)
+  it.setProperty(XMLInputFactory.SUPPORT_DTD, false)
+  it.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
+}
+
 fun XmlProject.collectTasksDepthFirst(): List<XmlTasks.XmlTask> {
   val result = mutableListOf<XmlTasks.XmlTask>()
   var queue = this.tasks.tasks?.toMutableList() ?: mutableListOf()
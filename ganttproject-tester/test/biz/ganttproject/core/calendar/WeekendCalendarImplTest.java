@@ -21,6 +21,8 @@ package biz.ganttproject.core.calendar;
 import biz.ganttproject.core.calendar.GPCalendar.DayMask;
 import biz.ganttproject.core.calendar.GPCalendar.DayType;
 import biz.ganttproject.core.time.CalendarFactory;
+import biz.ganttproject.core.time.TimeDurationImpl;
+import biz.ganttproject.core.time.impl.GPTimeUnitStack;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -28,6 +30,7 @@ import junit.framework.TestCase;
 
 import java.text.DateFormat;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.function.Function;
@@ -129,4 +132,62 @@ public class WeekendCalendarImplTest extends TestCase {
     assertEquals(0, calendar.getDayMask(CalendarFactory.createGanttCalendar(2014, 0, 11).getTime()) & DayMask.WORKING);
     assertEquals(DayMask.WEEKEND, calendar.getDayMask(CalendarFactory.createGanttCalendar(2014, 0, 11).getTime()) & DayMask.WEEKEND);
   }
+
+  // Activities are sliced from the cached month runs; they must not be split on the month boundaries
+  public void testActivitiesAcrossMonths() {
+    WeekendCalendarImpl calendar = new WeekendCalendarImpl();
+    calendar.setPublicHolidays(ImmutableList.of(
+        CalendarEvent.newEvent(CalendarFactory.createGanttCalendar(2014, 1, 3).getTime(), false, CalendarEvent.Type.HOLIDAY, "Feb 3, Monday", null)
+    ));
+    // From Wednesday, Jan 29 till Wednesday, Feb 5 noon
+    List<GPCalendarActivity> activities = calendar.getActivities(
+        CalendarFactory.createGanttCalendar(2014, 0, 29).getTime(),
+        new Date(CalendarFactory.createGanttCalendar(2014, 1, 5).getTime().getTime() + 12 * 3600 * 1000L));
+    assertEquals(3, activities.size());
+    assertTrue(activities.get(0).isWorkingTime());
+    assertEquals(CalendarFactory.createGanttCalendar(2014, 0, 29).getTime(), activities.get(0).getStart());
+    assertEquals(CalendarFactory.createGanttCalendar(2014, 1, 1).getTime(), activities.get(0).getEnd());
+    // Saturday, Sunday and Monday holiday
+    assertFalse(activities.get(1).isWorkingTime());
+    assertEquals(CalendarFactory.createGanttCalendar(2014, 1, 4).getTime(), activities.get(1).getEnd());
+    assertTrue(activities.get(2).isWorkingTime());
+    assertEquals(12, (activities.get(2).getEnd().getTime() - CalendarFactory.createGanttCalendar(2014, 1, 5).getTime().getTime()) / 3600000);
+  }
+
+  public void testActivitiesInvalidatedOnCalendarChange() {
+    WeekendCalendarImpl calendar = new WeekendCalendarImpl();
+    Date start = CalendarFactory.createGanttCalendar(2014, 0, 6).getTime();
+    Date end = CalendarFactory.createGanttCalendar(2014, 0, 11).getTime();
+    assertEquals(1, calendar.getActivities(start, end).size());
+
+    calendar.setPublicHolidays(ImmutableList.of(
+        CalendarEvent.newEvent(CalendarFactory.createGanttCalendar(2014, 0, 8).getTime(), false, CalendarEvent.Type.HOLIDAY, "Jan 8", null)
+    ));
+    assertEquals(3, calendar.getActivities(start, end).size());
+
+    calendar.setWeekDayType(Calendar.FRIDAY, DayType.WEEKEND);
+    List<GPCalendarActivity> activities = calendar.getActivities(start, end);
+    assertEquals(4, activities.size());
+    assertFalse(activities.get(3).isWorkingTime());
+  }
+
+  public void testShiftAndCountWorkingDays() {
+    WeekendCalendarImpl calendar = new WeekendCalendarImpl();
+    calendar.setPublicHolidays(ImmutableList.of(
+        CalendarEvent.newEvent(CalendarFactory.createGanttCalendar(2014, 0, 1).getTime(), true, CalendarEvent.Type.HOLIDAY, "Jan 1", null)
+    ));
+    // Monday, Dec 30, 2013 plus 5 working days skips the New Year and the weekend
+    Date monday = CalendarFactory.createGanttCalendar(2013, 11, 30).getTime();
+    Date end = calendar.shiftDate(monday, new TimeDurationImpl(GPTimeUnitStack.DAY, 5));
+    assertEquals(CalendarFactory.createGanttCalendar(2014, 0, 7).getTime(), end);
+    assertEquals(monday, calendar.shiftDate(end, new TimeDurationImpl(GPTimeUnitStack.DAY, -5)));
+    assertEquals(5, calendar.countWorkingUnits(monday, end, GPTimeUnitStack.DAY).getLength());
+    // Two years ahead, with the New Year holidays of 2014 and 2015 falling on weekdays
+    Date twoYearsLater = calendar.shiftDate(monday, new TimeDurationImpl(GPTimeUnitStack.DAY, 520));
+    assertEquals(CalendarFactory.createGanttCalendar(2015, 11, 30).getTime(), twoYearsLater);
+    assertEquals(520, calendar.countWorkingUnits(monday, twoYearsLater, GPTimeUnitStack.DAY).getLength());
+
+    assertEquals(CalendarFactory.createGanttCalendar(2014, 0, 2).getTime(),
+        calendar.findClosestWorkingTime(CalendarFactory.createGanttCalendar(2014, 0, 1).getTime()));
+  }
 }
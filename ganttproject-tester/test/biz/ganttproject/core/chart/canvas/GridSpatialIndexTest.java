@@ -0,0 +1,76 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an opensource project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package biz.ganttproject.core.chart.canvas;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Tests grid spatial index against the linear scan in {@link DummySpatialIndex}.
+ */
+public class GridSpatialIndexTest extends TestCase {
+  public void testPointSearch() {
+    GridSpatialIndex<String> index = new GridSpatialIndex<>(10, 10);
+    index.put("a", 0, 20, 30, 10);
+    index.put("b", -25, -5, 10, 10);
+    assertEquals("a", index.get(15, 15));
+    assertEquals("a", index.get(30, 20));
+    assertNull(index.get(31, 15));
+    assertNull(index.get(15, 21));
+    assertEquals("b", index.get(-20, -10));
+    assertNull(index.get(-26, -10));
+    assertEquals("b", index.get(-26, 1, -10, 0));
+  }
+
+  public void testFirstInsertedRectangleWins() {
+    GridSpatialIndex<String> index = new GridSpatialIndex<>(10, 10);
+    index.put("wide", -1000, 1000, 100000, 2000);
+    index.put("small", 5, 5, 2, 2);
+    assertEquals("wide", index.get(6, 4));
+
+    index.clear();
+    index.put("small", 5, 5, 2, 2);
+    index.put("wide", -1000, 1000, 100000, 2000);
+    assertEquals("small", index.get(6, 4));
+    assertEquals("wide", index.get(50, 50));
+    assertEquals(2, index.values().size());
+  }
+
+  public void testSameResultsAsLinearScan() {
+    Random random = new Random(42);
+    GridSpatialIndex<Integer> gridIndex = new GridSpatialIndex<>();
+    DummySpatialIndex<Integer> dummyIndex = new DummySpatialIndex<>();
+    for (int i = 0; i < 2000; i++) {
+      int x = random.nextInt(10000) - 500;
+      int y = random.nextInt(2000) - 100;
+      int width = random.nextInt(10) == 0 ? random.nextInt(5000) : random.nextInt(100);
+      int height = random.nextInt(30);
+      gridIndex.put(i, x, y, width, height);
+      dummyIndex.put(i, x, y, width, height);
+    }
+    for (int i = 0; i < 5000; i++) {
+      int x = random.nextInt(11000) - 1000;
+      int y = random.nextInt(2200) - 200;
+      int xpadding = random.nextInt(4);
+      int ypadding = random.nextInt(4);
+      assertEquals(dummyIndex.get(x, xpadding, y, ypadding), gridIndex.get(x, xpadding, y, ypadding));
+    }
+  }
+}
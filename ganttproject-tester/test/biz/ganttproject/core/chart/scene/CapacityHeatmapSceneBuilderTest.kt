@@ -83,5 +83,26 @@ class CapacityHeatmapSceneBuilderTest : TestCase() {
     assertIterableEquals(expected, calcLoadDistribution(loads))
   }
 
+  fun `test timeline updates`() {
+    val timeline = LoadTimeline()
+    timeline.add("2020-09-1".toTs(), "2020-09-10".toTs(), 1f)
+    timeline.add("2020-09-5".toTs(), "2020-09-10".toTs(), 2f)
+    timeline.add("2020-09-10".toTs(), "2020-09-20".toTs(), 3f)
+    assertIterableEquals(listOf(
+        initialBorder, LoadBorder("2020-09-1".toTs(), 1f), LoadBorder("2020-09-5".toTs(), 3f),
+        LoadBorder("2020-09-10".toTs(), 3f), LoadBorder("2020-09-20".toTs(), 0f)
+    ), timeline.borders)
+
+    timeline.remove("2020-09-5".toTs(), "2020-09-10".toTs(), 2f)
+    assertIterableEquals(listOf(
+        initialBorder, LoadBorder("2020-09-1".toTs(), 1f),
+        LoadBorder("2020-09-10".toTs(), 3f), LoadBorder("2020-09-20".toTs(), 0f)
+    ), timeline.borders)
+
+    timeline.remove("2020-09-10".toTs(), "2020-09-20".toTs(), 3f)
+    timeline.remove("2020-09-1".toTs(), "2020-09-10".toTs(), 1f)
+    assertIterableEquals(listOf(initialBorder), timeline.borders)
+  }
+
   private fun String.toTs() = dateFormat.parse(this).time
 }
@@ -0,0 +1,95 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an opensource project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package biz.ganttproject.customproperty
+
+import net.sourceforge.ganttproject.TestSetupHelper
+import net.sourceforge.ganttproject.storage.ProjectDatabase
+import net.sourceforge.ganttproject.storage.SQL_PROJECT_DATABASE_OPTIONS
+import net.sourceforge.ganttproject.storage.SqlProjectDatabaseImpl
+import net.sourceforge.ganttproject.task.TaskManager
+import org.h2.jdbcx.JdbcDataSource
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import javax.sql.DataSource
+
+class CalculatedPropertyUpdaterTest {
+  private lateinit var dataSource: DataSource
+  private lateinit var projectDatabase: ProjectDatabase
+  private lateinit var taskManager: TaskManager
+
+  @BeforeEach
+  fun init() {
+    dataSource = JdbcDataSource().also {
+      it.setURL("jdbc:h2:mem:calculated$SQL_PROJECT_DATABASE_OPTIONS")
+    }
+    projectDatabase = SqlProjectDatabaseImpl(dataSource).also { it.init() }
+    taskManager = TestSetupHelper.newTaskManagerBuilder().also {
+      it.setTaskUpdateBuilderFactory { task -> projectDatabase.createTaskUpdateBuilder(task) }
+    }.build()
+  }
+
+  @AfterEach
+  fun clear() {
+    dataSource.connection.use { conn ->
+      conn.createStatement().execute("shutdown")
+    }
+  }
+
+  @Test
+  fun `only tasks changed in the transaction are recalculated`() {
+    val tasks = (1..3).map { taskManager.newTaskBuilder().withUid("uid$it").withId(it).withName("Task$it").build() }
+    projectDatabase.bulkLoad(tasks, emptyList())
+    val def = taskManager.customPropertyManager.createDefinition(CustomPropertyClass.INTEGER, "doubled", null)
+    def.calculationMethod = SimpleSelect(def.id, "duration * 2", def.propertyClass.javaClass)
+    val updater = CalculatedPropertyUpdater(projectDatabase, taskManager.customPropertyManager) {
+      taskManager.getTask(it)?.customValues
+    }
+
+    updater.update()
+    tasks.forEach { assertEquals(2, it.customValues.getValue(def)) }
+
+    // Values of the tasks which are not changed are not touched, so we can see which tasks were recalculated.
+    tasks.forEach { it.customValues.setValue(def, -1) }
+    val txn = projectDatabase.startTransaction()
+    tasks[0].createMutator().also {
+      it.setDuration(taskManager.createLength(5))
+      it.commit()
+    }
+    txn.commit()
+    assertEquals(setOf("uid1"), txn.taskUids)
+
+    updater.update(txn)
+    assertEquals(10, tasks[0].customValues.getValue(def))
+    assertEquals(-1, tasks[1].customValues.getValue(def))
+    assertEquals(-1, tasks[2].customValues.getValue(def))
+
+    // When the expression changes, all tasks are recalculated.
+    def.calculationMethod = SimpleSelect(def.id, "duration * 3", def.propertyClass.javaClass)
+    updater.update(txn)
+    assertEquals(listOf(15, 3, 3), tasks.map { it.customValues.getValue(def) })
+
+    // After reset, e.g. when the database is reloaded, all tasks are recalculated.
+    tasks.forEach { it.customValues.setValue(def, -1) }
+    updater.reset()
+    updater.update(txn)
+    assertEquals(listOf(15, 3, 3), tasks.map { it.customValues.getValue(def) })
+  }
+}
@@ -223,6 +223,69 @@ public class TaskRendererImplTest extends TaskTestCase {
     assertEquals(2, part2.getDuration().getLength());
   }
 
+  // Tests that only rows in the viewport plus overscan get primitives, except for the dependency
+  // endpoints which are rendered invisible
+  public void testRowVirtualization() throws Exception {
+    List<Task> tasks = Lists.newArrayList();
+    for (int i = 0; i < 100; i++) {
+      tasks.add(createTask(TestSetupHelper.newMonday(), 1));
+    }
+    createDependency(tasks.get(50), tasks.get(0));
+    // Dependency which crosses the viewport
+    createDependency(tasks.get(90), tasks.get(10));
+    ChartModelImpl chartModel;
+    {
+      UIConfiguration projectConfig = new UIConfiguration(Color.BLACK, false);
+      projectConfig.setChartFontOption(new DefaultFontOption("foo", new FontSpec("Foo", FontSpec.Size.HUGE), Collections.<String>emptyList()));
+      projectConfig.setDpiOption(new DefaultIntegerOption("bar", 96));
+      chartModel = new ChartModelImpl(getTaskManager(), new GPTimeUnitStack(), projectConfig);
+      chartModel.setStartDate(TestSetupHelper.newMonday().getTime());
+      chartModel.setVisibleTasks(tasks);
+      chartModel.setBounds(new Dimension(200, 200));
+      chartModel.setTopTimeUnit(GPTimeUnitStack.WEEK);
+      chartModel.setBottomTimeUnit(GPTimeUnitStack.DAY);
+      chartModel.setBottomUnitWidth(20);
+      chartModel.setRowHeight(20);
+      chartModel.setVerticalOffset(1000);
+    }
+    TaskRendererImpl2 renderer = new TaskRendererImpl2(chartModel);
+    chartModel.addRenderer(renderer);
+    renderer.render();
+
+    // Viewport shows rows 50..60, overscan adds 5 rows on each side
+    assertNull(getTaskPrimitive(chartModel, tasks.get(44)));
+    assertTrue(getTaskPrimitive(chartModel, tasks.get(45)).isVisible());
+    assertTrue(getTaskPrimitive(chartModel, tasks.get(50)).isVisible());
+    assertTrue(getTaskPrimitive(chartModel, tasks.get(65)).isVisible());
+    assertNull(getTaskPrimitive(chartModel, tasks.get(66)));
+    // Dependee of the task in the viewport
+    assertFalse(getTaskPrimitive(chartModel, tasks.get(0)).isVisible());
+    // Endpoints of the dependency which crosses the viewport
+    assertFalse(getTaskPrimitive(chartModel, tasks.get(10)).isVisible());
+    assertFalse(getTaskPrimitive(chartModel, tasks.get(90)).isVisible());
+    assertNull(getTaskPrimitive(chartModel, tasks.get(20)));
+
+    // Row index is kept while the model has the same visible task list
+    createDependency(tasks.get(95), tasks.get(30));
+    chartModel.setVerticalOffset(1020);
+    renderer.render();
+    assertTrue(getTaskPrimitive(chartModel, tasks.get(46)).isVisible());
+    assertFalse(getTaskPrimitive(chartModel, tasks.get(90)).isVisible());
+    assertNull(getTaskPrimitive(chartModel, tasks.get(30)));
+
+    // and it is rebuilt when the model gets a new list
+    chartModel.setVisibleTasks(tasks);
+    renderer.render();
+    assertFalse(getTaskPrimitive(chartModel, tasks.get(30)).isVisible());
+    assertFalse(getTaskPrimitive(chartModel, tasks.get(95)).isVisible());
+  }
+
+  private Canvas.Shape getTaskPrimitive(ChartModelImpl chartModel, Task task) {
+    return chartModel.getGraphicPrimitive(new TaskActivityDataImpl<ITaskSceneTask>(
+      true, true, 1f, new TaskSceneTask(task), task.getStart().getTime(), task.getEnd().getTime(), task.getDuration()
+    ));
+  }
+
   private TaskActivitySplitter<ITaskSceneTask> getSplitter(Date start, Date end) {
     return new TaskActivitySplitter<ITaskSceneTask>(
       () -> start,
@@ -0,0 +1,98 @@
+/*
+Copyright 2023 BarD Software s.r.o
+
+This file is part of GanttProject, an open-source project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package net.sourceforge.ganttproject.io
+
+import biz.ganttproject.core.io.XmlProject
+import net.sourceforge.ganttproject.parser.AbstractTagHandler
+import net.sourceforge.ganttproject.parser.ParsingListener
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.xml.sax.Attributes
+import java.io.File
+import java.io.IOException
+
+class XmlParserTest {
+  @Test
+  fun `tag handlers and project processing share a single pass`() {
+    val events = mutableListOf<String>()
+    val handler = object : AbstractTagHandler("task", true) {
+      override fun onStartElement(attrs: Attributes): Boolean {
+        events.add("start ${attrs.getValue("id")}")
+        return true
+      }
+
+      override fun onEndElement() {
+        events.add("end ${getCdata()}")
+        clearCdata()
+      }
+
+      override fun process(xmlProject: XmlProject) {
+        events.add("process ${xmlProject.name} ${xmlProject.tasks.tasks?.map { "${it.name}:${it.notes}" }}")
+      }
+    }
+    val listener = object : ParsingListener {
+      override fun parsingStarted() {}
+      override fun parsingFinished() {
+        events.add("finished")
+      }
+    }
+    XmlParser(listOf(handler), listOf(listener)).parse(PROJECT_XML.byteInputStream())
+    assertEquals(listOf(
+      "start 1", "end notes 1", "start 2", "end ", "finished", "process Foo [Task1:notes 1, Task2:null]"
+    ), events)
+  }
+
+  @Test
+  fun `external entities are not resolved`() {
+    val secretFile = File.createTempFile("secret", ".txt").also {
+      it.deleteOnExit()
+      it.writeText("secret text")
+    }
+    val xml = """<?xml version="1.0" encoding="UTF-8"?>
+      <!DOCTYPE project [<!ENTITY secret SYSTEM "${secretFile.toURI()}">]>
+      <project name="Foo" version="3.0">
+        <tasks>
+          <task id="1" name="Task1" start="2023-01-02" duration="1"><notes>&secret;</notes></task>
+        </tasks>
+      </project>
+    """.trimIndent()
+    val notes = mutableListOf<String?>()
+    val handler = object : AbstractTagHandler("project") {
+      override fun process(xmlProject: XmlProject) {
+        xmlProject.tasks.tasks?.forEach { notes.add(it.notes) }
+      }
+    }
+    // The entity is not declared for the parser which ignores DTD.
+    assertThrows<IOException> { XmlParser(listOf(handler), emptyList()).parse(xml.byteInputStream()) }
+    assertTrue(notes.none { it?.contains("secret text") == true }) { notes.toString() }
+  }
+}
+
+private val PROJECT_XML = """<?xml version="1.0" encoding="UTF-8"?>
+<project name="Foo" version="3.0">
+  <tasks empty-milestones="true">
+    <task id="1" name="Task1" start="2023-01-02" duration="1">
+      <notes><![CDATA[notes 1]]></notes>
+    </task>
+    <task id="2" name="Task2" start="2023-01-02" duration="1"/>
+  </tasks>
+</project>
+"""
@@ -21,6 +21,8 @@ package net.sourceforge.ganttproject.resource;
 import junit.framework.TestCase;
 import net.sourceforge.ganttproject.task.CustomColumnsManager;
 
+import java.util.List;
+
 public class TestHumanResourceManager extends TestCase {
   public void testUpResource() {
     HumanResourceManager manager = new HumanResourceManager(null, new CustomColumnsManager());
@@ -76,4 +78,31 @@ public class TestHumanResourceManager extends TestCase {
     assertEquals(0, manager.getResources().size());
 
   }
+
+  public void testGetById() {
+    HumanResourceManager manager = new HumanResourceManager(null, new CustomColumnsManager());
+    var resource1 = manager.create("joe", 1);
+    var resource2 = manager.create("john", 5);
+    var resource3 = manager.newHumanResource();
+    manager.add(resource3);
+
+    assertEquals(6, resource3.getId());
+    assertSame(resource1, manager.getById(1));
+    assertSame(resource2, manager.getById(5));
+    assertSame(resource3, manager.getById(6));
+    assertNull(manager.getById(2));
+
+    var found = manager.getByIds(List.of(5, 1, 42));
+    assertEquals(2, found.size());
+    assertSame(resource1, found.get(1));
+    assertSame(resource2, found.get(5));
+
+    manager.remove(resource2);
+    assertNull(manager.getById(5));
+    assertSame(resource1, manager.getById(1));
+
+    manager.clear();
+    assertNull(manager.getById(1));
+    assertNull(manager.getById(6));
+  }
 }
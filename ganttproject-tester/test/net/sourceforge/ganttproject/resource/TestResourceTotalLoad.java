@@ -20,6 +20,7 @@ package net.sourceforge.ganttproject.resource;
 
 import net.sourceforge.ganttproject.TestSetupHelper;
 import net.sourceforge.ganttproject.TestSetupHelper.TaskManagerBuilder;
+import net.sourceforge.ganttproject.task.ResourceAssignment;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.test.task.TaskTestCase;
 
@@ -53,4 +54,37 @@ public class TestResourceTotalLoad extends TaskTestCase {
     assertEquals(5.0, joe.getTotalLoad());
   }
 
+  public void testLoadDistributionUpdates() {
+    TaskManagerBuilder builder = TestSetupHelper.newTaskManagerBuilder();
+    setTaskManager(builder.build());
+    HumanResource joe = new HumanResource("Joe", 1, builder.getResourceManager());
+    builder.getResourceManager().add(joe);
+
+    Task t1 = createTask();
+    t1.setDuration(t1.getManager().createLength(2));
+    t1.getAssignmentCollection().addAssignment(joe).setLoad(100f);
+    LoadDistribution distribution = joe.getLoadDistribution();
+    assertLoads(distribution, joe);
+
+    Task t2 = createTask();
+    t2.setDuration(t2.getManager().createLength(4));
+    ResourceAssignment assignment2 = t2.getAssignmentCollection().addAssignment(joe);
+    assignment2.setLoad(50f);
+    assertSame(distribution, joe.getLoadDistribution());
+    assertLoads(distribution, joe);
+
+    t2.setDuration(t2.getManager().createLength(6));
+    joe.updateLoads(t2);
+    assertLoads(distribution, joe);
+
+    assignment2.delete();
+    assertLoads(distribution, joe);
+    assertEquals(1, distribution.getTasksLoads().size());
+  }
+
+  private static void assertLoads(LoadDistribution distribution, HumanResource resource) {
+    LoadDistribution expected = new LoadDistribution(resource);
+    assertEquals(expected.getTasksLoads().toString(), distribution.getTasksLoads().toString());
+    assertEquals(expected.getLoadTimeline().getBorders(), distribution.getLoadTimeline().getBorders());
+  }
 }
@@ -25,6 +25,8 @@ import biz.ganttproject.core.time.CalendarFactory
 import biz.ganttproject.core.time.impl.GPTimeUnitStack
 import biz.ganttproject.customproperty.CustomColumnsValues
 import biz.ganttproject.customproperty.CustomPropertyClass
+import biz.ganttproject.storage.db.Tables.LOGRECORD
+import biz.ganttproject.storage.db.Tables.TASKCUSTOMCOLUMN
 import biz.ganttproject.storage.db.Tables.TASKDEPENDENCY
 import biz.ganttproject.storage.db.tables.Task.*
 import net.sourceforge.ganttproject.TestSetupHelper
@@ -729,6 +731,246 @@ class ProjectDatabaseTest {
       }
     }
   }
+
+  @Test fun `replay undo and redo in the task model`() {
+    projectDatabase.init()
+
+    val task1 = taskManager
+      .newTaskBuilder()
+      .withUid("someuid1")
+      .withId(1)
+      .withName("Name1")
+      .withStartDate(TestSetupHelper.newMonday().time)
+      .build()
+    projectDatabase.insertTask(task1)
+
+    val txn = projectDatabase.startTransaction()
+    task1.createMutator().also {
+      it.setName("Name2")
+      it.completionPercentage = 50
+      it.setStart(TestSetupHelper.newTuesday())
+      it.commit()
+    }
+    txn.commit()
+    assertTrue(txn.isReplayable)
+
+    projectDatabase.startTransaction().also {
+      txn.replayUndo(taskManager)
+      it.commit()
+    }
+    assertEquals("Name1", task1.name)
+    assertEquals(0, task1.completionPercentage)
+    assertEquals(TestSetupHelper.newMonday(), task1.start)
+    assertEquals("Name1", dsl.selectFrom(TASK).fetch()[0].name)
+
+    projectDatabase.startTransaction().also {
+      txn.replayRedo(taskManager)
+      it.commit()
+    }
+    assertEquals("Name2", task1.name)
+    assertEquals(50, task1.completionPercentage)
+    assertEquals(TestSetupHelper.newTuesday(), task1.start)
+    assertEquals("Name2", dsl.selectFrom(TASK).fetch()[0].name)
+  }
+
+  @Test fun `failed replay reverts the applied changes`() {
+    projectDatabase.init()
+
+    val task1 = taskManager.newTaskBuilder().withUid("someuid1").withId(1).withName("Name1").build()
+    val task2 = taskManager.newTaskBuilder().withUid("someuid2").withId(2).withName("Name2").build()
+    projectDatabase.bulkLoad(listOf(task1, task2), emptyList())
+
+    val txn = projectDatabase.startTransaction()
+    listOf(task1, task2).forEach { task ->
+      task.createMutator().also {
+        it.setName("${task.name} edited")
+        it.commit()
+      }
+    }
+    txn.commit()
+
+    // Undo replays the task2 change first, and then fails to find task1.
+    taskManager.deleteTask(task1)
+    val replayTxn = projectDatabase.startTransaction()
+    assertThrows<ProjectDatabaseException> { txn.replayUndo(taskManager) }
+    replayTxn.rollback()
+    assertEquals("Name2 edited", task2.name)
+    assertEquals(
+      listOf("Name1 edited", "Name2 edited"), dsl.selectFrom(TASK).orderBy(TASK.NUM).fetch().map { it.name }
+    )
+    // The rolled back transaction is not current anymore.
+    projectDatabase.startTransaction().commit()
+  }
+
+  @Test fun `bulk load inserts tasks, custom values and dependencies`() {
+    projectDatabase.init()
+
+    val tasks = (1..100).map { taskManager.newTaskBuilder().withUid("uid$it").withId(it).withName("Task$it").build() }
+    val def = taskManager.customPropertyManager.createDefinition(CustomPropertyClass.TEXT, "foo", null)
+    tasks[0].customValues.addCustomProperty(def, "foovalue")
+    val dependencies = (1 until tasks.size).map {
+      taskManager.dependencyCollection.createDependency(
+        tasks[it], tasks[it - 1], FinishStartConstraintImpl(), TaskDependency.Hardness.STRONG
+      )
+    }
+
+    val logSize = dsl.selectFrom(LOGRECORD).fetch().size
+    projectDatabase.bulkLoad(tasks, dependencies)
+
+    val taskRecords = dsl.selectFrom(TASK).orderBy(TASK.NUM).fetch()
+    assertEquals(100, taskRecords.size)
+    assertEquals("Task1", taskRecords[0].name)
+    assertEquals("uid100", taskRecords[99].uid)
+    val customRecords = dsl.selectFrom(TASKCUSTOMCOLUMN).fetch()
+    assertEquals(1, customRecords.size)
+    assertEquals("uid1", customRecords[0].uid)
+    assertEquals(def.id, customRecords[0].columnId)
+    assertEquals("foovalue", customRecords[0].columnValue)
+    assertEquals(99, dsl.selectFrom(TASKDEPENDENCY).fetch().size)
+    // Loaded rows are the baseline state and are not logged.
+    assertEquals(logSize, dsl.selectFrom(LOGRECORD).fetch().size)
+  }
+
+  @Test fun `bulk load is rolled back on failure`() {
+    projectDatabase.init()
+
+    val tasks = listOf(
+      taskManager.newTaskBuilder().withUid("someuid1").withId(1).build(),
+      taskManager.newTaskBuilder().withUid("someuid1").withId(2).build()
+    )
+    assertThrows<ProjectDatabaseException> { projectDatabase.bulkLoad(tasks, emptyList()) }
+    assertTrue(dsl.selectFrom(TASK).fetch().isEmpty())
+  }
+
+  @Test fun `database agrees with the task model after undo and redo`() {
+    projectDatabase.init()
+    val database = projectDatabase as SqlProjectDatabaseImpl
+
+    val task1 = taskManager.newTaskBuilder().withUid("someuid1").withId(1).withName("Name1").build()
+    val task2 = taskManager.newTaskBuilder().withUid("someuid2").withId(2).withName("Name2").build()
+    taskManager.dependencyCollection.createDependency(task2, task1)
+    projectDatabase.bulkLoad(listOf(task1, task2), taskManager.dependencyCollection.dependencies.toList())
+    assertEquals(emptyList<String>(), database.findInconsistencies(taskManager))
+
+    val txn = projectDatabase.startTransaction()
+    task1.createMutator().also {
+      it.setName("Name3")
+      it.completionPercentage = 50
+      it.commit()
+    }
+    txn.commit()
+    assertEquals(emptyList<String>(), database.findInconsistencies(taskManager))
+
+    projectDatabase.startTransaction().also {
+      txn.replayUndo(taskManager)
+      it.commit()
+    }
+    assertEquals(emptyList<String>(), database.findInconsistencies(taskManager))
+
+    projectDatabase.startTransaction().also {
+      txn.replayRedo(taskManager)
+      it.commit()
+    }
+    assertEquals(emptyList<String>(), database.findInconsistencies(taskManager))
+
+    // Undoing the database transaction alone makes the database diverge from the model.
+    txn.undo()
+    val inconsistencies = database.findInconsistencies(taskManager)
+    assertEquals(2, inconsistencies.size) { inconsistencies.toString() }
+    assertTrue(inconsistencies.any { it.startsWith("Task someuid1: name=Name1") }) { inconsistencies.toString() }
+  }
+
+  @Test fun `database agrees with the task model after undo and redo of structural edits`() {
+    val database = projectDatabase as SqlProjectDatabaseImpl
+    val proxy = LazyProjectDatabaseProxy({ database }, { taskManager })
+    taskManager.addTaskListener(proxy.createTaskEventListener())
+
+    val task1 = taskManager.newTaskBuilder().withUid("someuid1").withId(1).withName("Name1").build()
+    val task2 = taskManager.newTaskBuilder().withUid("someuid2").withId(2).withName("Name2").build()
+    proxy.reload(taskManager)
+    assertEquals(emptyList<String>(), database.findInconsistencies(taskManager))
+
+    // Neither task removal nor dependency creation are recorded in the database.
+    val txn = proxy.startTransaction()
+    taskManager.dependencyCollection.createDependency(task2, task1)
+    taskManager.deleteTask(task1)
+    txn.commit()
+    assertFalse(txn.isComplete)
+    assertFalse(txn.isReplayable)
+    assertTrue(database.findInconsistencies(taskManager).isNotEmpty())
+
+    // Undo restores the task model from a snapshot.
+    taskManager.newTaskBuilder().withUid("someuid1").withId(1).withName("Name1").build()
+    proxy.syncUndoRedo(txn, true, taskManager)
+    assertEquals(emptyList<String>(), database.findInconsistencies(taskManager))
+
+    taskManager.deleteTask(taskManager.getTask(1))
+    proxy.syncUndoRedo(txn, false, taskManager)
+    assertEquals(emptyList<String>(), database.findInconsistencies(taskManager))
+  }
+
+  @Test fun `updates of the same shape are executed with bind values`() {
+    projectDatabase.init()
+
+    val tasks = (1..3).map { taskManager.newTaskBuilder().withUid("uid$it").withId(it).withName("Task$it").build() }
+    projectDatabase.bulkLoad(tasks, emptyList())
+
+    fun updateTasks(tasks: List<Task>) {
+      val txn = projectDatabase.startTransaction()
+      tasks.forEach { task ->
+        task.createMutator().also {
+          it.setName("O'Brien's ${task.taskID}")
+          it.setNotes(null)
+          it.commit()
+        }
+      }
+      txn.commit()
+    }
+    updateTasks(tasks.take(1))
+    val statementCount = (projectDatabase as SqlProjectDatabaseImpl).cachedStatementCount
+    assertTrue(statementCount > 0)
+    updateTasks(tasks.drop(1))
+    // The updates of the other tasks reuse the statements prepared for the first one.
+    assertEquals(statementCount, (projectDatabase as SqlProjectDatabaseImpl).cachedStatementCount)
+    assertEquals(listOf("O'Brien's 1", "O'Brien's 2", "O'Brien's 3"), dsl.selectFrom(TASK).orderBy(TASK.NUM).fetch(TASK.NAME))
+
+    val txns = projectDatabase.fetchTransactions(startLocalTxnId = 0, limit = 10)
+    val names = txns.takeLast(2).flatMap { it.colloboqueOperations }.map { (it as OperationDto.UpdateOperationDto).newValues[TASK.NAME.name] }
+    assertEquals(listOf("O'Brien's 1", "O'Brien's 2", "O'Brien's 3"), names)
+  }
+
+  @Test fun `binary log records are fetched as the same operations`() {
+    val binaryDatabase = SqlProjectDatabaseImpl(dataSource, XlogFormat.BINARY).also {
+      it.init()
+      it.startLog("0")
+    }
+    val task1 = taskManager.newTaskBuilder().withUid("someuid1").withId(1).withName("Name1").build()
+    binaryDatabase.insertTask(task1)
+    binaryDatabase.createTaskUpdateBuilder(task1).also {
+      it.setName("Name1", "Name2")
+      it.commit()
+    }
+
+    val records = dsl.selectFrom(LOGRECORD).orderBy(LOGRECORD.ID).fetch()
+    assertEquals(2, records.size)
+    assertTrue(records.all { it.operationDtoJson == null && it.operationDtoBytes != null })
+
+    val txns = binaryDatabase.fetchTransactions(startLocalTxnId = 0, limit = 2)
+    assertEquals(buildInsertTaskDto(task1), txns[0].colloboqueOperations[0])
+    val update = txns[1].colloboqueOperations[0] as OperationDto.UpdateOperationDto
+    assertEquals("Name2", update.newValues[TASK.NAME.name])
+    assertEquals(listOf(Triple(TASK.UID.name, BinaryPred.EQ, "someuid1")), update.updateBinaryConditions)
+  }
+
+  @Test fun `transaction with inserts is not replayable`() {
+    projectDatabase.init()
+
+    val txn = projectDatabase.startTransaction()
+    projectDatabase.insertTask(taskManager.newTaskBuilder().withUid("someuid1").withId(1).build())
+    txn.commit()
+    assertFalse(txn.isReplayable)
+    assertThrows<ProjectDatabaseException> { txn.replayUndo(taskManager) }
+  }
 }
 
 private fun LocalDate.toIsoNoHours() = this.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))
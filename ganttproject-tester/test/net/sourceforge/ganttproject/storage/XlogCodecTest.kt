@@ -0,0 +1,122 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an opensource project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package net.sourceforge.ganttproject.storage
+
+import kotlinx.serialization.json.Json
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Disabled
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.io.IOException
+
+class XlogCodecTest {
+  @Test
+  fun `round trip of all operation kinds`() {
+    val operations = listOf(
+      OperationDto.InsertOperationDto("task", mapOf("uid" to "uid1", "name" to "Task 1", "notes" to null)),
+      OperationDto.UpdateOperationDto(
+        "task",
+        mutableListOf(Triple("uid", BinaryPred.EQ, "uid1")),
+        mutableListOf(Triple("num", RangePred.NOT_IN, listOf("1", "2"))),
+        mutableMapOf("name" to "Задача", "completion" to "50")
+      ),
+      OperationDto.DeleteOperationDto("taskdependency", listOf(Triple("dependee_uid", BinaryPred.EQ, "uid1"))),
+      OperationDto.MergeOperationDto(
+        "taskcustomcolumn",
+        listOf(Triple("uid", BinaryPred.EQ, "uid1"), Triple("column_id", BinaryPred.EQ, "tpc0")),
+        listOf(),
+        mapOf("column_value" to "foo"),
+        mapOf("uid" to "uid1", "column_id" to "tpc0", "column_value" to "foo")
+      ),
+      // Names which are not in the dictionary
+      OperationDto.InsertOperationDto("resource", mapOf("id" to "", "" to "empty key"))
+    )
+    operations.forEach {
+      assertEquals(it, OperationDtoBinaryCodec.decode(OperationDtoBinaryCodec.encode(it)))
+    }
+  }
+
+  @Test
+  fun `long strings round trip`() {
+    val notes = "x".repeat(100_000)
+    val dto = OperationDto.InsertOperationDto("task", mapOf("notes" to notes))
+    assertEquals(dto, OperationDtoBinaryCodec.decode(OperationDtoBinaryCodec.encode(dto)))
+  }
+
+  @Test
+  fun `malformed input throws`() {
+    assertThrows<IOException> { OperationDtoBinaryCodec.decode(byteArrayOf(1, 42)) }
+    assertThrows<IOException> { OperationDtoBinaryCodec.decode(byteArrayOf(99, 0)) }
+    val bytes = OperationDtoBinaryCodec.encode(OperationDto.InsertOperationDto("task", mapOf("name" to "Task")))
+    assertThrows<IOException> { OperationDtoBinaryCodec.decode(bytes.copyOf(bytes.size - 1)) }
+  }
+
+  @Test
+  fun `binary encoding is more compact than JSON`() {
+    val operations = createTaskUpdates()
+    val jsonSize = operations.sumOf { dto ->
+      val json = Json.encodeToString(OperationDto.serializer(), dto)
+      assertEquals(dto, Json.decodeFromString(OperationDto.serializer(), json))
+      json.toByteArray(Charsets.UTF_8).size
+    }
+    val binarySize = operations.sumOf { dto ->
+      val bytes = OperationDtoBinaryCodec.encode(dto)
+      assertEquals(dto, OperationDtoBinaryCodec.decode(bytes))
+      bytes.size
+    }
+    assertTrue(binarySize * 3 < jsonSize) { "JSON: $jsonSize bytes, binary: $binarySize bytes" }
+  }
+
+  /**
+   * Compares the round trip time of JSON and binary encodings. It asserts nothing, because timings depend
+   * on the machine, and is disabled to keep the test run fast. Enable it locally to see the numbers.
+   */
+  @Disabled("Benchmark, run it manually")
+  @Test
+  fun `round trip benchmark`() {
+    val operations = createTaskUpdates()
+    // Round trip a few times to warm up, then report the last run.
+    repeat(5) { run ->
+      val jsonMs = measureMillis(operations) { dto ->
+        Json.decodeFromString(OperationDto.serializer(), Json.encodeToString(OperationDto.serializer(), dto))
+      }
+      val binaryMs = measureMillis(operations) { dto ->
+        OperationDtoBinaryCodec.decode(OperationDtoBinaryCodec.encode(dto))
+      }
+      if (run == 4) {
+        println("Round trip of ${operations.size} operations: JSON ${jsonMs}ms, binary ${binaryMs}ms")
+      }
+    }
+  }
+
+  private fun createTaskUpdates() = (1..10_000).map {
+    OperationDto.UpdateOperationDto(
+      "task",
+      mutableListOf(Triple("uid", BinaryPred.EQ, "uid$it")),
+      mutableListOf(),
+      mutableMapOf("start_date" to "2024-01-${it % 28 + 1}", "duration" to "${it % 10}", "completion" to "${it % 100}")
+    )
+  }
+
+  private fun measureMillis(operations: List<OperationDto>, roundTrip: (OperationDto) -> OperationDto): Long {
+    val start = System.nanoTime()
+    operations.forEach { roundTrip(it) }
+    return (System.nanoTime() - start) / 1_000_000
+  }
+}
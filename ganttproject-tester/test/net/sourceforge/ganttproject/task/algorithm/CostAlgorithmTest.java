@@ -99,4 +99,47 @@ public class CostAlgorithmTest extends TaskTestCase {
     assertEquals(BigDecimal.valueOf(20), joe.getTotalCost());
   }
 
+  public void testCalculatedCostIsUpdated() {
+    TaskManagerBuilder builder = TestSetupHelper.newTaskManagerBuilder();
+    setTaskManager(builder.build());
+    HumanResource joe = new HumanResource("Joe", 1, builder.getResourceManager());
+    joe.setStandardPayRate(BigDecimal.valueOf(5));
+    builder.getResourceManager().add(joe);
+
+    Task supertask = createTask();
+    Task t = createTask();
+    getTaskManager().getTaskHierarchy().move(t, supertask);
+    t.setDuration(t.getManager().createLength(2));
+    var assignment = t.getAssignmentCollection().addAssignment(joe);
+    assignment.setLoad(100f);
+    assertEquals(0, BigDecimal.valueOf(10).compareTo(supertask.getCost().getValue()));
+
+    joe.setStandardPayRate(BigDecimal.valueOf(7));
+    assertEquals(0, BigDecimal.valueOf(14).compareTo(supertask.getCost().getValue()));
+
+    assignment.setLoad(50f);
+    assertEquals(0, BigDecimal.valueOf(7).compareTo(supertask.getCost().getValue()));
+
+    t.setDuration(t.getManager().createLength(4));
+    assertEquals(0, BigDecimal.valueOf(14).compareTo(supertask.getCost().getValue()));
+
+    getTaskManager().getTaskHierarchy().move(t, getTaskManager().getRootTask());
+    assertEquals(0, BigDecimal.ZERO.compareTo(supertask.getCost().getValue()));
+  }
+
+  public void testAssignmentCostMatchesBigDecimalCalculation() {
+    BigDecimal[] payRates = {BigDecimal.ZERO, BigDecimal.valueOf(5), new BigDecimal("12.5"), new BigDecimal("0.333"),
+        BigDecimal.valueOf(Long.MAX_VALUE), new BigDecimal("1E+3")};
+    float[] loads = {0f, 100f, 50f, 33.3f, 12.34f, 250f};
+    long[] durations = {0, 1, 7, 1000};
+    for (BigDecimal payRate : payRates) {
+      for (float load : loads) {
+        for (long duration : durations) {
+          BigDecimal expected = payRate.multiply(BigDecimal.valueOf(load)).divide(BigDecimal.valueOf(100))
+              .multiply(BigDecimal.valueOf(duration));
+          assertEquals(expected, CostAlgorithmImpl.getAssignmentCost(payRate, load, duration));
+        }
+      }
+    }
+  }
 }
@@ -20,6 +20,8 @@ package net.sourceforge.ganttproject.task.algorithm;
 
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.dependency.TaskDependency;
+import net.sourceforge.ganttproject.task.dependency.TaskDependencyCollectionImpl;
+import net.sourceforge.ganttproject.task.dependency.TaskDependencyImpl;
 import net.sourceforge.ganttproject.test.task.TaskTestCase;
 
 import com.google.common.base.Suppliers;
@@ -258,6 +260,61 @@ public class DependencyGraphTest extends TaskTestCase {
     assertTrue(graph.getNode(tasks[1]).getOutgoing().isEmpty());
   }
 
+  public void testIsLooping() throws Exception {
+    Task[] tasks = new Task[] {createTask(), createTask(), createTask(), createTask(), createTask()};
+    TaskDependency[] deps = new TaskDependency[] {createDependency(tasks[2], tasks[1]), createDependency(tasks[1], tasks[0])};
+    DependencyGraph graph = createGraph(tasks, deps);
+
+    assertTrue(graph.isLooping(newDependency(tasks[0], tasks[2])));
+    assertTrue(graph.isLooping(newDependency(tasks[1], tasks[2])));
+    assertFalse(graph.isLooping(newDependency(tasks[2], tasks[0])));
+    assertFalse(graph.isLooping(newDependency(tasks[3], tasks[2])));
+
+    // task4 is a subtask of task3 and it depends on task2, so task3 can't be a predecessor of task0
+    getTaskManager().getTaskHierarchy().move(tasks[4], tasks[3]);
+    graph.move(tasks[4], tasks[3]);
+    graph.addDependency(createDependency(tasks[4], tasks[2]));
+    assertFalse(graph.isLooping(newDependency(tasks[3], tasks[0])));
+    assertTrue(graph.isLooping(newDependency(tasks[0], tasks[3])));
+    // Dependencies between a supertask and its subtask are loops
+    assertTrue(graph.isLooping(newDependency(tasks[3], tasks[4])));
+    assertTrue(graph.isLooping(newDependency(tasks[4], tasks[3])));
+    assertEquals(5, graph.checkLayerValidity());
+  }
+
+  public void testBulkUpdate() throws Exception {
+    Task[] tasks = new Task[] {createTask(), createTask(), createTask(), createTask(), createTask(), createTask()};
+    DependencyGraph graph = new DependencyGraph(Suppliers.ofInstance(getTaskManager().getTaskHierarchy()));
+    graph.startBulkUpdate();
+    initGraph(graph, tasks, new TaskDependency[] {
+        createDependency(tasks[4], tasks[3]),
+        createDependency(tasks[4], tasks[2]),
+        createDependency(tasks[2], tasks[1]),
+        createDependency(tasks[1], tasks[0]),
+        createDependency(tasks[3], tasks[0])
+    });
+    move(tasks[5], tasks[2], graph);
+    // Loops are detected even though the levels are not maintained yet
+    assertTrue(graph.isLooping(newDependency(tasks[0], tasks[4])));
+    assertTrue(graph.isLooping(newDependency(tasks[0], tasks[5])));
+    assertFalse(graph.isLooping(newDependency(tasks[3], tasks[5])));
+    assertEquals(0, graph.getNode(tasks[4]).getLevel());
+
+    graph.finishBulkUpdate();
+    // Subtask inherits the dependency of its supertask, and supertask comes after its subtask
+    assertEquals(4, graph.getNode(tasks[4]).getLevel());
+    assertEquals(3, graph.getNode(tasks[2]).getLevel());
+    assertEquals(2, graph.getNode(tasks[5]).getLevel());
+    assertEquals(1, graph.getNode(tasks[3]).getLevel());
+    assertEquals(1, graph.getNode(tasks[1]).getLevel());
+    assertEquals(0, graph.getNode(tasks[0]).getLevel());
+    assertEquals(5, graph.checkLayerValidity());
+  }
+
+  private TaskDependency newDependency(Task dependant, Task dependee) {
+    return new TaskDependencyImpl(dependant, dependee, (TaskDependencyCollectionImpl) getTaskManager().getDependencyCollection());
+  }
+
   private DependencyGraph createGraph(Task[] tasks, TaskDependency[] deps) {
     DependencyGraph graph = new DependencyGraph(Suppliers.ofInstance(getTaskManager().getTaskHierarchy()));
     initGraph(graph, tasks, deps);
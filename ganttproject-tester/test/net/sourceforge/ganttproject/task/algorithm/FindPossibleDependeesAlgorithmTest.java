@@ -0,0 +1,69 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an opensource project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package net.sourceforge.ganttproject.task.algorithm;
+
+import net.sourceforge.ganttproject.task.Task;
+import net.sourceforge.ganttproject.test.task.TaskTestCase;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests candidates for the task predecessors
+ */
+public class FindPossibleDependeesAlgorithmTest extends TaskTestCase {
+  public void testCandidatesExcludeRelatedAndLoopingTasks() throws Exception {
+    Task[] tasks = createTasks("alpha", "beta", "gamma", "delta", "epsilon", "zeta");
+    getTaskManager().getTaskHierarchy().move(tasks[2], tasks[1]);
+    getTaskManager().getTaskHierarchy().move(tasks[3], tasks[1]);
+    createDependency(tasks[4], tasks[0]);
+    createDependency(tasks[5], tasks[2]);
+    FindPossibleDependeesAlgorithm algorithm = getTaskManager().getAlgorithmCollection().getFindPossibleDependeesAlgorithm();
+
+    assertEquals(List.of(tasks[0], tasks[3], tasks[4]), Arrays.asList(algorithm.run(tasks[2])));
+    assertEquals(List.of(tasks[0], tasks[4]), Arrays.asList(algorithm.run(tasks[1])));
+    assertEquals(List.of(tasks[1], tasks[2], tasks[3], tasks[5]), Arrays.asList(algorithm.run(tasks[0])));
+  }
+
+  public void testPagingAndSearch() throws Exception {
+    Task[] tasks = createTasks("alpha", "beta", "gamma", "delta", "epsilon", "Alpine");
+    createDependency(tasks[4], tasks[0]);
+    FindPossibleDependeesAlgorithm.Candidates candidates =
+        getTaskManager().getAlgorithmCollection().getFindPossibleDependeesAlgorithm().getCandidates(tasks[0]);
+
+    assertFalse(candidates.isEmpty());
+    assertEquals(List.of(tasks[1], tasks[2]), candidates.getPage(0, 2));
+    assertEquals(List.of(tasks[3], tasks[5]), candidates.getPage(2, 2));
+    assertTrue(candidates.getPage(4, 2).isEmpty());
+    assertEquals(4, candidates.size());
+
+    assertEquals(List.of(tasks[5]), candidates.search("ALP").getPage(0, 10));
+    assertEquals(List.of(tasks[3]), candidates.search(String.valueOf(tasks[3].getTaskID())).getPage(0, 10));
+    assertTrue(candidates.search("epsilon").isEmpty());
+    assertEquals(4, candidates.search(" ").size());
+  }
+
+  private Task[] createTasks(String... names) {
+    Task[] result = new Task[names.length];
+    for (int i = 0; i < names.length; i++) {
+      result[i] = getTaskManager().newTaskBuilder().withName(names[i]).build();
+    }
+    return result;
+  }
+}
@@ -19,6 +19,7 @@ along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
 package net.sourceforge.ganttproject.task.algorithm;
 
 import biz.ganttproject.core.calendar.WeekendCalendarImpl;
+import biz.ganttproject.core.time.GanttCalendar;
 import com.google.common.base.Suppliers;
 import net.sourceforge.ganttproject.TestSetupHelper;
 import net.sourceforge.ganttproject.task.Task;
@@ -28,6 +29,9 @@ import net.sourceforge.ganttproject.task.dependency.constraint.FinishFinishConst
 import net.sourceforge.ganttproject.task.dependency.constraint.FinishStartConstraintImpl;
 import net.sourceforge.ganttproject.test.task.TaskTestCase;
 
+import java.util.Calendar;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Tests scheduling algorithm
  *
@@ -298,6 +302,92 @@ public class SchedulerTest extends TaskTestCase {
     assertEquals(TestSetupHelper.newWendesday(), tasks[1].getStart());
   }
 
+  public void testIncrementalRunReschedulesOnlySuccessorsOfChangedTask() throws Exception {
+    getTaskManager().getAlgorithmCollection().getRecalculateTaskScheduleAlgorithm().setEnabled(false);
+    // t0->t1->t2 and t3->t4 are two independent chains
+    Task[] tasks = new Task[] {
+        createTask(TestSetupHelper.newMonday()), createTask(TestSetupHelper.newMonday()), createTask(TestSetupHelper.newMonday()),
+        createTask(TestSetupHelper.newMonday()), createTask(TestSetupHelper.newMonday())};
+    createDependency(tasks[1], tasks[0]);
+    createDependency(tasks[2], tasks[1]);
+    createDependency(tasks[4], tasks[3]);
+    assertEquals(TestSetupHelper.newWendesday(), tasks[2].getStart());
+    assertEquals(TestSetupHelper.newTuesday(), tasks[4].getStart());
+
+    // Break the constraint t3->t4 silently, so that only a full run can restore it
+    tasks[4].setStart(TestSetupHelper.newMonday());
+    tasks[4].setDuration(getTaskManager().createLength(1));
+
+    // Shifting t0 triggers incremental scheduling which reaches t1 and t2 but not t4
+    var mutator = tasks[0].createShiftMutator();
+    mutator.shift(getTaskManager().createLength(1));
+    mutator.commit();
+    assertEquals(TestSetupHelper.newTuesday(), tasks[0].getStart());
+    assertEquals(TestSetupHelper.newWendesday(), tasks[1].getStart());
+    assertEquals(TestSetupHelper.newThursday(), tasks[2].getStart());
+    assertEquals(TestSetupHelper.newMonday(), tasks[4].getStart());
+
+    getTaskManager().getAlgorithmCollection().getScheduler().run();
+    assertEquals(TestSetupHelper.newTuesday(), tasks[4].getStart());
+  }
+
+  public void testIncrementalRunStopsWhenDatesDoNotChange() throws Exception {
+    getTaskManager().getAlgorithmCollection().getRecalculateTaskScheduleAlgorithm().setEnabled(false);
+    // t0->t2, t1->t2 and t2->t3. t1 is longer than t0, so shifting t0 by one day does not affect t2
+    Task[] tasks = new Task[] {
+        createTask(TestSetupHelper.newMonday()), createTask(TestSetupHelper.newMonday(), 2),
+        createTask(TestSetupHelper.newMonday()), createTask(TestSetupHelper.newMonday())};
+    TaskDependency[] deps = new TaskDependency[] {
+        createDependency(tasks[2], tasks[0]), createDependency(tasks[2], tasks[1]), createDependency(tasks[3], tasks[2])};
+    DependencyGraph graph = createGraph(tasks, deps);
+    SchedulerImpl scheduler = new SchedulerImpl(graph, Suppliers.ofInstance(getTaskManager().getTaskHierarchy())::get);
+    scheduler.run();
+    assertEquals(TestSetupHelper.newWendesday(), tasks[2].getStart());
+    assertEquals(TestSetupHelper.newThursday(), tasks[3].getStart());
+
+    // t3 is moved back silently. If propagation went past t2 it would be pushed forward again.
+    tasks[3].setStart(TestSetupHelper.newMonday());
+    tasks[3].setDuration(getTaskManager().createLength(1));
+    tasks[0].setStart(TestSetupHelper.newTuesday());
+    tasks[0].setDuration(getTaskManager().createLength(1));
+    graph.markDirty(tasks[0]);
+    scheduler.runIncremental();
+
+    assertEquals(TestSetupHelper.newWendesday(), tasks[2].getStart());
+    assertEquals(TestSetupHelper.newMonday(), tasks[3].getStart());
+  }
+
+  public void testWideLayersAreScheduledConcurrently() throws Exception {
+    setTaskManager(TestSetupHelper.newTaskManagerBuilder().withCalendar(new WeekendCalendarImpl()).build());
+    getTaskManager().getAlgorithmCollection().getRecalculateTaskScheduleAlgorithm().setEnabled(false);
+    getTaskManager().getAlgorithmCollection().getScheduler().setEnabled(false);
+    // Many independent chains head->tail, so that both layers are wider than the threshold.
+    // Heads start on different days of the week, and tails must skip the weekends.
+    int chainCount = SchedulerImpl.PARALLEL_LAYER_THRESHOLD * 2;
+    Task[] tasks = new Task[chainCount * 2];
+    TaskDependency[] deps = new TaskDependency[chainCount];
+    for (int i = 0; i < chainCount; i++) {
+      GanttCalendar headStart = TestSetupHelper.newMonday();
+      headStart.add(Calendar.DATE, i % 5);
+      tasks[2 * i] = createTask(headStart);
+      tasks[2 * i + 1] = createTask(TestSetupHelper.newMonday());
+    }
+    for (int i = 0; i < chainCount; i++) {
+      deps[i] = createDependency(tasks[2 * i + 1], tasks[2 * i]);
+    }
+    DependencyGraph graph = createGraph(tasks, deps);
+    SchedulerImpl scheduler = new SchedulerImpl(
+        graph, Suppliers.ofInstance(getTaskManager().getTaskHierarchy())::get, new ForkJoinPool(4));
+    scheduler.run();
+
+    for (int i = 0; i < chainCount; i++) {
+      GanttCalendar expectedStart = TestSetupHelper.newMonday();
+      // Friday heads are followed by tails on the next Monday
+      expectedStart.add(Calendar.DATE, i % 5 == 4 ? 7 : i % 5 + 1);
+      assertEquals("Unexpected start of task=" + tasks[2 * i + 1], expectedStart, tasks[2 * i + 1].getStart());
+    }
+  }
+
   private DependencyGraph createGraph(Task[] tasks, TaskDependency[] deps) {
     DependencyGraph graph = new DependencyGraph(Suppliers.ofInstance(getTaskManager().getTaskHierarchy()));
     initGraph(graph, tasks, deps);
@@ -25,6 +25,7 @@ import java.util.Set;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskManager;
 import net.sourceforge.ganttproject.task.TaskMutator;
+import net.sourceforge.ganttproject.task.algorithm.CriticalPathAlgorithm;
 import net.sourceforge.ganttproject.task.dependency.TaskDependency;
 import net.sourceforge.ganttproject.task.dependency.TaskDependencyConstraint;
 import net.sourceforge.ganttproject.task.dependency.constraint.FinishFinishConstraintImpl;
@@ -177,6 +178,34 @@ public class TestCriticalPath extends TaskTestCase {
         assertFalse(criticalTasks.contains(t2));
     }
 
+    public void testFloat() throws Exception {
+        TaskManager mgr = getTaskManager();
+        Task t1 = createTask();
+        Task t2 = createTask();
+        Task t3 = createTask();
+        Task t4 = createTask();
+        Task t5 = createTask();
+        Task t6 = createTask();
+        createDependency(t4, t3);
+        createDependency(t3, t2);
+        createDependency(t2, t1);
+        createDependency(t4, t5);
+        createDependency(t5, t1);
+        createDependency(t6, t5);
+        mgr.getAlgorithmCollection().getRecalculateTaskScheduleAlgorithm().run();
+
+        CriticalPathAlgorithm.Result result = mgr.getAlgorithmCollection().getCriticalPathAlgorithm().calculate();
+        assertEquals(0, result.getTotalFloat(t1).getLength());
+        assertEquals(0, result.getTotalFloat(t3).getLength());
+        assertEquals(0, result.getFreeFloat(t2).getLength());
+        // t5 can be delayed by one day without delaying t4 and the project end
+        assertEquals(1, result.getTotalFloat(t5).getLength());
+        assertEquals(0, result.getFreeFloat(t5).getLength());
+        // t6 ends together with t3, one day before the project end
+        assertEquals(1, result.getTotalFloat(t6).getLength());
+        assertEquals(1, result.getFreeFloat(t6).getLength());
+    }
+
     class LaggedDependencyChainCriticalPathTester {
         private final Task t1;
         private final Task t2;
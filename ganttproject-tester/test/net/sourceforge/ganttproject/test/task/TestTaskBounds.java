@@ -1,5 +1,6 @@
 package net.sourceforge.ganttproject.test.task;
 
+import biz.ganttproject.core.time.CalendarFactory;
 import biz.ganttproject.core.time.GanttCalendar;
 import net.sourceforge.ganttproject.TestSetupHelper;
 import net.sourceforge.ganttproject.task.Task;
@@ -44,4 +45,32 @@ public class TestTaskBounds extends TaskTestCase {
     assertEquals(tuesday, supertask.getDisplayEnd());
 
   }
+
+  public void testProjectBoundsFollowTaskChanges() {
+    assertEquals(0f, getTaskManager().getProjectLength().getValue());
+
+    Task task1 = createTask(TestSetupHelper.newMonday());
+    Task task2 = createTask(TestSetupHelper.newWendesday());
+    assertEquals(TestSetupHelper.newMonday().getTime(), getTaskManager().getProjectStart());
+    assertEquals(TestSetupHelper.newThursday().getTime(), getTaskManager().getProjectEnd());
+    assertEquals(3f, getTaskManager().getProjectLength().getValue());
+
+    var mutator = task1.createShiftMutator();
+    mutator.shift(getTaskManager().createLength("1d"));
+    mutator.commit();
+    assertEquals(TestSetupHelper.newTuesday().getTime(), getTaskManager().getProjectStart());
+
+    GanttCalendar nextFriday = CalendarFactory.createGanttCalendar(2004, 9, 22);
+    task2.setDuration(getTaskManager().createLength(2));
+    assertEquals(nextFriday.getTime(), getTaskManager().getProjectEnd());
+
+    var startMutator = task1.createMutatorFixingDuration();
+    startMutator.setStart(TestSetupHelper.newThursday());
+    startMutator.commit();
+    assertEquals(TestSetupHelper.newWendesday().getTime(), getTaskManager().getProjectStart());
+
+    getTaskManager().deleteTask(task2);
+    assertEquals(TestSetupHelper.newThursday().getTime(), getTaskManager().getProjectStart());
+    assertEquals(nextFriday.getTime(), getTaskManager().getProjectEnd());
+  }
 }
@@ -209,4 +209,46 @@ public class TestTaskCompletionPercentage extends TaskTestCase {
     assertEquals(30, task.getCompletionPercentage());
     assertEquals(false, listenerCalled.get());
   }
+
+  public void testCompletionIsUpdatedOnChanges() {
+    TaskManager taskManager = getTaskManager();
+    Task supertask1 = taskManager.newTaskBuilder().build();
+    Task supertask2 = taskManager.newTaskBuilder().build();
+    Task task1 = taskManager.newTaskBuilder().withParent(supertask1).withDuration(taskManager.createLength(1)).build();
+    Task task2 = taskManager.newTaskBuilder().withParent(supertask1).withDuration(taskManager.createLength(3)).build();
+    Task task3 = taskManager.newTaskBuilder().withParent(supertask2).withDuration(taskManager.createLength(1)).withCompletion(100).build();
+    RecalculateTaskCompletionPercentageAlgorithm alg = taskManager.getAlgorithmCollection().getRecalculateTaskCompletionPercentageAlgorithm();
+    alg.run();
+    assertEquals(0, supertask1.getCompletionPercentage());
+    assertEquals(100, supertask2.getCompletionPercentage());
+    assertEquals(20, taskManager.getRootTask().getCompletionPercentage());
+
+    // Progress change is propagated to the ancestors by the event handlers
+    var mutator = task2.createMutator();
+    mutator.setCompletionPercentage(100);
+    mutator.commit();
+    assertEquals(75, supertask1.getCompletionPercentage());
+    assertEquals(80, taskManager.getRootTask().getCompletionPercentage());
+
+    // Changing duration changes the planned days
+    task1.setDuration(taskManager.createLength(3));
+    alg.run();
+    assertEquals(50, supertask1.getCompletionPercentage());
+
+    taskManager.getTaskHierarchy().move(task2, supertask2);
+    alg.run();
+    assertEquals(0, supertask1.getCompletionPercentage());
+    assertEquals(100, supertask2.getCompletionPercentage());
+
+    taskManager.deleteTask(task3);
+    taskManager.deleteTask(task1);
+    alg.run();
+    assertEquals(100, supertask2.getCompletionPercentage());
+
+    // Incremental updates give the same result as the calculation from scratch
+    int rootCompletion = taskManager.getRootTask().getCompletionPercentage();
+    alg.reset();
+    alg.run();
+    assertEquals(rootCompletion, taskManager.getRootTask().getCompletionPercentage());
+  }
 }
@@ -1,7 +1,13 @@
 package net.sourceforge.ganttproject.test.task.event;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import net.sourceforge.ganttproject.test.task.TaskTestCase;
+import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskManager;
+import net.sourceforge.ganttproject.task.dependency.TaskDependencyException;
+import net.sourceforge.ganttproject.task.event.TaskEventBatch;
 import net.sourceforge.ganttproject.task.event.TaskListenerAdapter;
 import net.sourceforge.ganttproject.task.event.TaskHierarchyEvent;
 
@@ -20,6 +26,61 @@ public class TestTaskHierarchyEvent extends TaskTestCase {
                 .hasBeenCalled());
     }
 
+    public void testSingleModelResetEventIsSentOnBulkUpdate() throws TaskDependencyException {
+        TaskManager taskManager = getTaskManager();
+        int[] addedCount = new int[1];
+        int[] resetCount = new int[1];
+        taskManager.addTaskListener(new TaskListenerAdapter() {
+            @Override
+            public void taskAdded(TaskHierarchyEvent e) {
+                addedCount[0]++;
+            }
+
+            @Override
+            public void taskModelReset() {
+                resetCount[0]++;
+            }
+        });
+        Task[] tasks = new Task[3];
+        try (var bulkUpdate = taskManager.startBulkUpdate()) {
+            try (var nestedUpdate = taskManager.startBulkUpdate()) {
+                for (int i = 0; i < tasks.length; i++) {
+                    tasks[i] = taskManager.createTask();
+                }
+            }
+            createDependency(tasks[1], tasks[0]);
+            createDependency(tasks[2], tasks[1]);
+            assertEquals(0, resetCount[0]);
+        }
+        assertEquals(0, addedCount[0]);
+        assertEquals(1, resetCount[0]);
+
+        // Layers are built and tasks are scheduled when bulk update finishes
+        assertEquals(tasks[2], taskManager.getDependencyGraph().getLayer(2).iterator().next().getTask());
+        assertEquals(tasks[0].getEnd(), tasks[1].getStart());
+        assertEquals(tasks[1].getEnd(), tasks[2].getStart());
+
+        taskManager.createTask();
+        assertEquals(1, addedCount[0]);
+    }
+
+    public void testTaskAddedAndRemovedInBatchIsNotReported() {
+        TaskManager taskManager = getTaskManager();
+        Task existing = taskManager.createTask();
+        List<TaskEventBatch> batches = new ArrayList<>();
+        taskManager.addTaskBatchListener(batches::add);
+        try (var eventBatch = taskManager.startEventBatch()) {
+            Task task = taskManager.createTask();
+            taskManager.getTaskHierarchy().move(existing, task);
+            taskManager.getTaskHierarchy().move(existing, taskManager.getRootTask());
+            taskManager.deleteTask(task);
+        }
+        assertEquals(1, batches.size());
+        assertTrue(batches.get(0).getAddedTasks().isEmpty());
+        assertTrue(batches.get(0).getRemovedTasks().isEmpty());
+        assertEquals(List.of(existing), new ArrayList<>(batches.get(0).getMovedTasks()));
+    }
+
     private static class TaskListenerImpl extends TaskListenerAdapter {
         private boolean hasBeenCalled;
 
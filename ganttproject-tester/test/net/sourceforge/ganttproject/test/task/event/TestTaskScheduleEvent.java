@@ -1,6 +1,10 @@
 package net.sourceforge.ganttproject.test.task.event;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import biz.ganttproject.core.time.GanttCalendar;
 import biz.ganttproject.core.time.impl.GregorianTimeUnitStack;
@@ -9,6 +13,8 @@ import net.sourceforge.ganttproject.test.task.TaskTestCase;
 import net.sourceforge.ganttproject.task.TaskManager;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskMutator;
+import net.sourceforge.ganttproject.task.dependency.TaskDependencyException;
+import net.sourceforge.ganttproject.task.event.TaskEventBatch;
 import net.sourceforge.ganttproject.task.event.TaskListenerAdapter;
 import net.sourceforge.ganttproject.task.event.TaskScheduleEvent;
 
@@ -57,6 +63,42 @@ public class TestTaskScheduleEvent extends TaskTestCase {
                 listener.hasBeenCalled());
     }
 
+    public void testScheduleChangesAreBatched() throws TaskDependencyException {
+        TaskManager taskManager = getTaskManager();
+        Task task1 = taskManager.createTask();
+        Task task2 = taskManager.createTask();
+        Task task3 = taskManager.createTask();
+        createDependency(task2, task1);
+        createDependency(task3, task2);
+        List<TaskEventBatch> batches = new ArrayList<>();
+        taskManager.addTaskBatchListener(batches::add);
+        GanttCalendar task1End = task1.getEnd().clone();
+        try (var eventBatch = taskManager.startEventBatch()) {
+            for (int i = 2; i <= 3; i++) {
+                TaskMutator mutator = task1.createMutator();
+                mutator.setDuration(taskManager.createLength(GregorianTimeUnitStack.DAY, i));
+                mutator.commit();
+            }
+            assertTrue("Batch is expected to be delivered when it is closed", batches.isEmpty());
+        }
+        assertEquals(1, batches.size());
+        Map<Task, TaskScheduleEvent> changes = new HashMap<>();
+        for (TaskScheduleEvent e : batches.get(0).getScheduleChanges()) {
+            changes.put(e.getTask(), e);
+        }
+        assertEquals(3, changes.size());
+        assertEquals(task1End, changes.get(task1).getOldFinishDate());
+        assertEquals(task1.getEnd(), changes.get(task1).getNewFinishDate());
+        assertEquals(task2.getStart(), changes.get(task2).getNewStartDate());
+
+        // Successors rescheduled after a single change come in the same batch
+        TaskMutator mutator = task1.createMutator();
+        mutator.setDuration(taskManager.createLength(GregorianTimeUnitStack.DAY, 1));
+        mutator.commit();
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.get(1).getScheduleChanges().size());
+    }
+
     private static class TaskListenerImpl extends TaskListenerAdapter {
         private boolean hasBeenCalled;
 
@@ -32,4 +32,40 @@ public class TestTaskDocumentOrder extends TaskTestCase {
 
         assertEquals(expectedOrder, getTaskManager().getTaskHierarchy().getTasksInDocumentOrder());
     }
+
+    public void testDocumentOrderIsMaintainedOnChanges() {
+        Task root = getTaskManager().getRootTask();
+        Task first = getTaskManager().newTaskBuilder().withName("first").build();
+        Task last = getTaskManager().newTaskBuilder().withName("last").build();
+        assertEquals(Arrays.asList(first, last), Arrays.asList(getTaskManager().getTasks()));
+
+        // Inserting many tasks into the same gap makes the labels run out, so the tree gets relabeled.
+        for (int i = 0; i < 100; i++) {
+            Task task = getTaskManager().newTaskBuilder().withName(String.valueOf(i)).build();
+            getTaskManager().getTaskHierarchy().move(task, root, 1);
+            assertDocumentOrder();
+        }
+        Task supertask = getTaskManager().getTasks()[10];
+        for (Task task : Arrays.copyOfRange(getTaskManager().getTasks(), 50, 60)) {
+            task.move(supertask, 0);
+        }
+        assertDocumentOrder();
+
+        supertask.move(last);
+        assertDocumentOrder();
+        assertTrue(getTaskManager().getTaskHierarchy().compareDocumentOrder(last, supertask) < 0);
+        assertTrue(getTaskManager().getTaskHierarchy().compareDocumentOrder(first, supertask) < 0);
+
+        getTaskManager().deleteTask(supertask);
+        assertDocumentOrder();
+        assertEquals(91, getTaskManager().getTasks().length);
+    }
+
+    private void assertDocumentOrder() {
+        List<Task> expectedOrder = getTaskManager().getTaskHierarchy().getTasksInDocumentOrder();
+        assertEquals(expectedOrder, Arrays.asList(getTaskManager().getTasks()));
+        for (int i = 1; i < expectedOrder.size(); i++) {
+            assertTrue(getTaskManager().getTaskHierarchy().compareDocumentOrder(expectedOrder.get(i - 1), expectedOrder.get(i)) < 0);
+        }
+    }
 }
@@ -81,4 +81,31 @@ public class TestTaskHierarchy extends TaskTestCase {
       });
       assertEquals(ImmutableList.of(getTaskManager().getRootTask(), task7, task6, task5, task2, task1), filteredBfs);
     }
+
+  public void testSiblingPositions() {
+    TaskContainmentHierarchyFacade hierarchy = getTaskManager().getTaskHierarchy();
+    Task supertask = getTaskManager().createTask();
+    Task task1 = getTaskManager().createTask();
+    Task task2 = getTaskManager().createTask();
+    Task task3 = getTaskManager().createTask();
+    task1.move(supertask);
+    task3.move(supertask);
+    hierarchy.move(task2, supertask, 1);
+
+    assertEquals(3, hierarchy.getNestedTaskCount(supertask));
+    assertEquals(ImmutableList.of(task1, task2, task3), ImmutableList.of(
+        hierarchy.getNestedTask(supertask, 0), hierarchy.getNestedTask(supertask, 1), hierarchy.getNestedTask(supertask, 2)));
+    assertEquals(1, hierarchy.getTaskIndex(task2));
+    assertEquals(task1, hierarchy.getPreviousSibling(task2));
+    assertEquals(task3, hierarchy.getNextSibling(task2));
+    assertNull(hierarchy.getPreviousSibling(task1));
+    assertNull(hierarchy.getNextSibling(task3));
+
+    task1.move(getTaskManager().getRootTask());
+    assertEquals(0, hierarchy.getTaskIndex(task2));
+    assertEquals(1, hierarchy.getTaskIndex(task3));
+    assertNull(hierarchy.getPreviousSibling(task2));
+    assertEquals(ImmutableList.of(1, 2), hierarchy.getOutlinePath(task3));
+    assertEquals(ImmutableList.of(task2, task3), Arrays.asList(hierarchy.getDeepNestedTasks(supertask)));
+  }
 }
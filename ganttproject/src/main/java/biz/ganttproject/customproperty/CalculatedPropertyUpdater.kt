@@ -20,22 +20,52 @@ package biz.ganttproject.customproperty
 
 import net.sourceforge.ganttproject.storage.ColumnConsumer
 import net.sourceforge.ganttproject.storage.ProjectDatabase
+import net.sourceforge.ganttproject.storage.ProjectDatabaseTxn
 
+/**
+ * Updates the values of the calculated custom properties from the project database.
+ *
+ * After a committed transaction only the tasks inserted or updated in that transaction are recalculated.
+ * All the tasks are recalculated when the transaction is unknown or incomplete, when the calculated properties have
+ * changed since the previous update, and after [reset].
+ */
 class CalculatedPropertyUpdater(
   private val projectDatabase: ProjectDatabase,
   private val customPropertyManager: CustomPropertyManager,
-  private val propertyHolders: ()->Map<Int,CustomPropertyHolder?>) {
-
-  fun update() {
-    val id2values = propertyHolders()
-    val updaters = customPropertyManager.definitions.filterNotNull().mapNotNull {def ->
-      when (val calculationMethod = def.calculationMethod) {
-        is SimpleSelect -> ColumnConsumer(calculationMethod) { taskNum, value ->
-          id2values[taskNum]?.setValue(def, value)
-        }
-        else -> null
+  private val propertyHolder: (Int) -> CustomPropertyHolder?) {
+
+  // Expressions and result classes of the calculated properties as of the previous update, by property id
+  private var lastCalculations: Map<String, Pair<String, Class<*>>>? = null
+
+  fun update() = update(null)
+
+  /**
+   * Makes the next update recalculate all the tasks. Call it when the database contents are replaced,
+   * e.g. when a project is opened or closed, or when the database is reloaded on undo and redo.
+   */
+  fun reset() {
+    lastCalculations = null
+  }
+
+  fun update(txn: ProjectDatabaseTxn?) {
+    val calculatedProperties = customPropertyManager.definitions.filterNotNull().mapNotNull { def ->
+      (def.calculationMethod as? SimpleSelect)?.let { def to it }
+    }
+    val calculations = calculatedProperties.associate { (def, select) -> def.id to (select.selectExpression to select.resultClass) }
+    val isFullUpdate = txn == null || !txn.isComplete || calculations != lastCalculations
+    lastCalculations = calculations
+    if (calculatedProperties.isEmpty()) {
+      return
+    }
+    val updaters = calculatedProperties.map { (def, select) ->
+      ColumnConsumer(select) { taskNum, value ->
+        propertyHolder(taskNum)?.setValue(def, value)
       }
+    }.toTypedArray()
+    if (isFullUpdate) {
+      projectDatabase.mapTasks(*updaters)
+    } else {
+      projectDatabase.mapTasks(txn!!.taskUids, *updaters)
     }
-    projectDatabase.mapTasks(*(updaters.toTypedArray()))
   }
-}
\ No newline at end of file
+}
@@ -475,7 +475,7 @@ class TaskTable(
             onEditCommit = EventHandler { event ->
               val targetTask: Task = event.rowValue.value
               event.newValue?.let { copyTask ->
-                undoManager.undoableEdit("Edit properties of task ${copyTask.name}") {
+                undoManager.undoableTaskEdit("Edit properties of task ${copyTask.name}") {
                   taskTableModel.setValue(copyTask.name, targetTask, taskDefaultColumn)
                 }
               }
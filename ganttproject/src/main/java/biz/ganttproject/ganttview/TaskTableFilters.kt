@@ -24,7 +24,6 @@ import biz.ganttproject.core.time.CalendarFactory
 import javafx.beans.property.SimpleIntegerProperty
 import net.sourceforge.ganttproject.task.Task
 import net.sourceforge.ganttproject.task.TaskManager
-import net.sourceforge.ganttproject.task.event.TaskListenerAdapter
 
 typealias TaskFilter = (parent: Task, child: Task?) -> Boolean
 typealias FilterChangedListener = (filter: TaskFilter?) -> Unit
@@ -66,10 +65,11 @@ class TaskFilterManager(val taskManager: TaskManager) {
   val hiddenTaskCount = SimpleIntegerProperty(0)
 
   init {
-    taskManager.addTaskListener(TaskListenerAdapter().also {
-      it.taskProgressChangedHandler = { _ -> if (activeFilter != VOID_FILTER) sync() }
-      it.taskScheduleChangedHandler = { _ -> if (activeFilter != VOID_FILTER) sync() }
-    })
+    taskManager.addTaskBatchListener { batch ->
+      if (activeFilter != VOID_FILTER && (batch.progressChangedTasks.isNotEmpty() || batch.scheduleChanges.isNotEmpty())) {
+        sync()
+      }
+    }
   }
 
   var activeFilter: TaskFilter = VOID_FILTER
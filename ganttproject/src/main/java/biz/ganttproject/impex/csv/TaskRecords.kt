@@ -262,9 +262,11 @@ private class AssignmentColumnSpecImpl(
   private val myErrors: MutableList<Pair<Level, String>>
 ) : AssignmentSpec {
   override fun apply(task: Task, resourceManager: HumanResourceManager) {
-    val assignments = myValue.split(";").toTypedArray()
-    for (item in assignments) {
-      val idAndLoad = item.split(":").toTypedArray()
+    val assignments = myValue.split(";").map { it to it.split(":").toTypedArray() }
+    val id2resource = resourceManager.getByIds(assignments.mapNotNull { (_, idAndLoad) ->
+      if (idAndLoad.size == 2) idAndLoad[0].toIntOrNull() else null
+    })
+    for ((item, idAndLoad) in assignments) {
       if (idAndLoad.size != 2) {
         addError(
           myErrors, Level.SEVERE, String.format(
@@ -275,7 +277,7 @@ private class AssignmentColumnSpecImpl(
       }
       try {
         val resourceId = idAndLoad[0].toInt()
-        val resource = resourceManager.getById(resourceId)
+        val resource = id2resource[resourceId]
         if (resource == null) {
           addError(
             myErrors, Level.WARNING, String.format(
@@ -19,11 +19,12 @@ along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
 package net.sourceforge.ganttproject;
 
 import biz.ganttproject.LoggerApi;
+import biz.ganttproject.app.Barrier;
+import biz.ganttproject.app.BarrierEntrance;
 import biz.ganttproject.app.FXSearchUi;
 import biz.ganttproject.app.FXToolbar;
 import biz.ganttproject.app.FXToolbarBuilder;
 import biz.ganttproject.customproperty.CalculatedPropertyUpdater;
-import biz.ganttproject.customproperty.CustomPropertyHolder;
 import biz.ganttproject.lib.fx.TreeTableCellsKt;
 import biz.ganttproject.platform.UpdateOptions;
 import biz.ganttproject.storage.cloud.GPCloudOptions;
@@ -69,6 +70,7 @@ import net.sourceforge.ganttproject.roles.RoleManager;
 import net.sourceforge.ganttproject.task.CustomColumnsStorage;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.undo.GPUndoListener;
+import net.sourceforge.ganttproject.undo.ProjectDatabaseEdit;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 
@@ -79,7 +81,6 @@ import java.awt.event.*;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -324,27 +325,39 @@ public class GanttProject extends GanttProjectBase implements ResourceView, Gant
       gpLogger.error(Arrays.toString(e.getStackTrace()), new Object[]{}, ImmutableMap.of(), e);
     }
     var calculatedPropertyUpdater = new CalculatedPropertyUpdater(myProjectDatabase, getTaskCustomColumnManager(),
-      () -> {
-        var mapping = new HashMap<Integer, CustomPropertyHolder>();
-        for (Task t : getTaskManager().getTasks()) {
-          mapping.put(t.getTaskID(), t.getCustomValues());
-        }
-        return mapping;
+      taskNum -> {
+        Task t = getTaskManager().getTask(taskNum);
+        return t == null ? null : t.getCustomValues();
       });
     getUndoManager().addUndoableEditListener(new GPUndoListener() {
       @Override
       public void undoOrRedoHappened() {
-
+        calculatedPropertyUpdater.reset();
       }
 
       @Override
       public void undoReset() {
-
+        calculatedPropertyUpdater.reset();
       }
 
       @Override
       public void undoableEditHappened(UndoableEditEvent e) {
-        calculatedPropertyUpdater.update();
+        if (e.getEdit() instanceof ProjectDatabaseEdit) {
+          calculatedPropertyUpdater.update(((ProjectDatabaseEdit) e.getEdit()).getProjectDatabaseTxn());
+        } else {
+          calculatedPropertyUpdater.update();
+        }
+      }
+    });
+    addProjectEventListener(new ProjectEventListener.Stub() {
+      @Override
+      public void projectOpened(BarrierEntrance barrierRegistry, Barrier<IGanttProject> barrier) {
+        calculatedPropertyUpdater.reset();
+      }
+
+      @Override
+      public void projectClosed() {
+        calculatedPropertyUpdater.reset();
       }
     });
   }
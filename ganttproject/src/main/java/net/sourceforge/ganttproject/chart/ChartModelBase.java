@@ -46,10 +46,6 @@ import net.sourceforge.ganttproject.language.GanttLanguage;
 import net.sourceforge.ganttproject.language.GanttLanguage.Event;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskManager;
-import net.sourceforge.ganttproject.task.event.TaskHierarchyEvent;
-import net.sourceforge.ganttproject.task.event.TaskListenerAdapter;
-import net.sourceforge.ganttproject.task.event.TaskScheduleEvent;
-import org.jetbrains.annotations.NotNull;
 
 
 import java.awt.*;
@@ -252,24 +248,8 @@ public abstract class ChartModelBase implements /* TimeUnitStack.Listener, */Cha
           myWeekNumProperty.setValue(new RelativeWeekNumbering(myTaskManager.getProjectStart()));
       }
     });
-    myTaskManager.addTaskListener(new TaskListenerAdapter() {
-      @Override
-      public void taskScheduleChanged(@NotNull TaskScheduleEvent e) {
-        resetWeekNumbering();
-      }
-      @Override
-      public void taskAdded(@NotNull TaskHierarchyEvent e) {
-        resetWeekNumbering();
-      }
-      @Override
-      public void taskMoved(@NotNull TaskHierarchyEvent e) {
-        resetWeekNumbering();
-      }
-      @Override
-      public void taskRemoved(@NotNull TaskHierarchyEvent e) {
-        resetWeekNumbering();
-      }
-      private void resetWeekNumbering() {
+    myTaskManager.addTaskBatchListener(batch -> {
+      if (batch.getHasHierarchyChanges() || !batch.getScheduleChanges().isEmpty()) {
         if (UIConfiguration.WeekOption.RELATIVE_TO_PROJECT.equals(myWeekNumberOption.getSelectedValue())) {
           myWeekNumProperty.setValue(new RelativeWeekNumbering(myTaskManager.getProjectStart()));
         }
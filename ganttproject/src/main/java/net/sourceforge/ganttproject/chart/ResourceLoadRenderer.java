@@ -22,6 +22,7 @@ package net.sourceforge.ganttproject.chart;
 import biz.ganttproject.core.chart.grid.Offset;
 import biz.ganttproject.core.chart.scene.CapacityHeatmapSceneBuilder;
 import net.sourceforge.ganttproject.resource.HumanResource;
+import net.sourceforge.ganttproject.resource.LoadDistribution;
 import net.sourceforge.ganttproject.resource.LoadDistribution.Load;
 import org.jetbrains.annotations.NotNull;
 
@@ -97,18 +98,22 @@ class ResourceLoadRenderer extends ChartRendererBase {
     List<CapacityHeatmapSceneBuilder.Resource> resources = new ArrayList<>();
 
     for (HumanResource humanResource : humanResources) {
+      LoadDistribution loadDistribution = humanResource.getLoadDistribution();
+      boolean isExpanded = myResourcechart.isExpanded(humanResource);
+      // Resource rows are drawn from the load timelines, the individual loads are needed only for the details
       List<CapacityHeatmapSceneBuilder.Load> loads = new ArrayList<>();
-      List<Load> tasksLoads = humanResource.getLoadDistribution().getTasksLoads();
-      for (Load taskLoad : tasksLoads) {
-        Integer taskId = null;
-        if (taskLoad.refTask != null) {
-          taskId = taskLoad.refTask.getTaskID();
+      if (isExpanded) {
+        for (Load taskLoad : loadDistribution.getTasksLoads()) {
+          Integer taskId = null;
+          if (taskLoad.refTask != null) {
+            taskId = taskLoad.refTask.getTaskID();
+          }
+          CapacityHeatmapSceneBuilder.Load load = new CapacityHeatmapSceneBuilder.Load(taskLoad.startDate.getTime(), taskLoad.endDate.getTime(), taskLoad.load, taskId);
+          loads.add(load);
         }
-        CapacityHeatmapSceneBuilder.Load load = new CapacityHeatmapSceneBuilder.Load(taskLoad.startDate.getTime(), taskLoad.endDate.getTime(), taskLoad.load, taskId);
-        loads.add(load);
       }
-      boolean isExpanded = myResourcechart.isExpanded(humanResource);
-      CapacityHeatmapSceneBuilder.Resource resource = new CapacityHeatmapSceneBuilder.Resource(loads, isExpanded);
+      CapacityHeatmapSceneBuilder.Resource resource = new CapacityHeatmapSceneBuilder.Resource(
+          loads, isExpanded, loadDistribution.getDaysOffTimeline(), loadDistribution.getLoadTimeline());
       resources.add(resource);
     }
 
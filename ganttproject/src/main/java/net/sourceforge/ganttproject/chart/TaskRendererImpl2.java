@@ -32,6 +32,7 @@ import com.google.common.collect.ImmutableList;
 import net.sourceforge.ganttproject.GanttPreviousStateTask;
 import net.sourceforge.ganttproject.chart.gantt.*;
 import net.sourceforge.ganttproject.task.*;
+import net.sourceforge.ganttproject.task.dependency.TaskDependency;
 
 import java.util.*;
 import java.util.List;
@@ -51,6 +52,22 @@ public class TaskRendererImpl2 extends ChartRendererBase {
   private final GPOptionGroup myLabelOptions;
 
   class GanttChartSceneApi implements GanttChartSceneBuilder.InputApi {
+    // Visible tasks are set by the chart controller only when they change, so we keep
+    // their wrappers until the model gets another list.
+    private List<Task> myWrappedTasks;
+    private List<ITask> myVisibleITasks;
+    private List<ITaskSceneTask> myVisibleTaskSceneTasks;
+
+    private void updateVisibleTasks() {
+      List<Task> visibleTasks = TaskRendererImpl2.this.getVisibleTasks();
+      if (visibleTasks != myWrappedTasks) {
+        Map<Task, ITask> tasks2itasks = DependencySceneApiAdapterKt.tasks2itasks(visibleTasks);
+        myVisibleITasks = visibleTasks.stream().map(tasks2itasks::get).collect(Collectors.toList());
+        myVisibleTaskSceneTasks = ImmutableList.copyOf(mapTaskSceneTask2Task(visibleTasks, myModel).keySet());
+        myWrappedTasks = visibleTasks;
+      }
+    }
+
     @Override
     public int getHeaderHeight() {
       return myModel.getChartUIConfiguration().getHeaderHeight();
@@ -71,6 +88,11 @@ public class TaskRendererImpl2 extends ChartRendererBase {
       return myModel.getVerticalOffset();
     }
 
+    @Override
+    public int getViewportHeight() {
+      return getChartModel().getBounds() == null ? 0 : (int) getChartModel().getBounds().getHeight();
+    }
+
     @Override
     public OffsetList getTasksUnitOffsets() {
       return getChartModel().getDefaultUnitOffsets();
@@ -93,16 +115,14 @@ public class TaskRendererImpl2 extends ChartRendererBase {
 
     @Override
     public List<ITask> getVisibleTasks() {
-      TaskContainmentHierarchyFacade containment = myModel.getTaskManager().getTaskHierarchy();
-      Map<Task, ITask> tasks2itasks = DependencySceneApiAdapterKt.tasks2itasks(containment.getTasksInDocumentOrder());
-      return myModel.getVisibleTasks().stream().map(tasks2itasks::get).collect(Collectors.toList());
+      updateVisibleTasks();
+      return myVisibleITasks;
     }
 
     @Override
     public List<ITaskSceneTask> getVisibleTaskSceneTasks() {
-      return ImmutableList.copyOf(
-        mapTaskSceneTask2Task(TaskRendererImpl2.this.getVisibleTasks(), myModel).keySet()
-      );
+      updateVisibleTasks();
+      return myVisibleTaskSceneTasks;
     }
 
     @Override
@@ -113,6 +133,11 @@ public class TaskRendererImpl2 extends ChartRendererBase {
       );
     }
 
+    @Override
+    public TaskDependency[] getDependencies() {
+      return myModel.getTaskManager().getDependencyCollection().getDependencies();
+    }
+
     @Override
     public List<GanttPreviousStateTask> getBaseline() {
       return myModel.getBaseline();
@@ -0,0 +1,131 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an opensource project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package net.sourceforge.ganttproject.chart.gantt;
+
+import net.sourceforge.ganttproject.task.dependency.TaskDependency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Row numbers of the visible tasks and the row spans of the dependencies between them. It is built
+ * once per visible task list, so that rendering a range of rows doesn't need to look through all rows.
+ *
+ * Dependency spans are sorted by their top row, and a segment tree keeps the maximal bottom row in each
+ * range of spans. The spans which cross the rendered rows are the ones which start above the first
+ * rendered row and end at or below the last one, and the tree lets us descend only into the ranges which
+ * have such spans.
+ */
+class DependencyRowIndex {
+  private final List<ITask> myVisibleTasks;
+  private final Map<Integer, Integer> myRowNums = new HashMap<>();
+  private final int[] myTopRows;
+  private final int[] myBottomRows;
+  private final ITask[] myTopTasks;
+  private final int[] myMaxBottomRows;
+
+  DependencyRowIndex(List<ITask> visibleTasks, TaskDependency[] dependencies) {
+    myVisibleTasks = visibleTasks;
+    for (int rowNum = 0; rowNum < visibleTasks.size(); rowNum++) {
+      myRowNums.put(visibleTasks.get(rowNum).getRowId(), rowNum);
+    }
+    List<int[]> spans = new ArrayList<>();
+    for (TaskDependency dep : dependencies) {
+      Integer dependantRow = myRowNums.get(dep.getDependant().getTaskID());
+      Integer dependeeRow = myRowNums.get(dep.getDependee().getTaskID());
+      if (dependantRow != null && dependeeRow != null) {
+        spans.add(new int[] {Math.min(dependantRow, dependeeRow), Math.max(dependantRow, dependeeRow)});
+      }
+    }
+    spans.sort(Comparator.comparingInt(span -> span[0]));
+    myTopRows = new int[spans.size()];
+    myBottomRows = new int[spans.size()];
+    myTopTasks = new ITask[spans.size()];
+    for (int i = 0; i < spans.size(); i++) {
+      myTopRows[i] = spans.get(i)[0];
+      myBottomRows[i] = spans.get(i)[1];
+      myTopTasks[i] = visibleTasks.get(myTopRows[i]);
+    }
+    myMaxBottomRows = new int[Math.max(1, 4 * spans.size())];
+    if (!spans.isEmpty()) {
+      buildTree(1, 0, spans.size());
+    }
+  }
+
+  /**
+   * @return true if this index was built for the given visible task list
+   */
+  boolean isBuiltFor(List<ITask> visibleTasks) {
+    return myVisibleTasks == visibleTasks;
+  }
+
+  /**
+   * @return row number of the visible task with the given row identifier, or null if it is not visible
+   */
+  Integer getRowNum(int rowId) {
+    return myRowNums.get(rowId);
+  }
+
+  /**
+   * Adds to the result the tasks in the top rows of the dependencies which start above firstRow
+   * and end at or below lastRow.
+   */
+  void collectCrossingDependencyTasks(int firstRow, int lastRow, Set<ITask> result) {
+    int spanCount = Arrays.binarySearch(myTopRows, firstRow);
+    if (spanCount < 0) {
+      spanCount = -spanCount - 1;
+    } else {
+      // Spans with the same top row may precede the found one
+      while (spanCount > 0 && myTopRows[spanCount - 1] == firstRow) {
+        spanCount--;
+      }
+    }
+    if (spanCount > 0) {
+      collect(1, 0, myTopRows.length, spanCount, lastRow, result);
+    }
+  }
+
+  private int buildTree(int node, int lo, int hi) {
+    if (hi - lo == 1) {
+      myMaxBottomRows[node] = myBottomRows[lo];
+    } else {
+      int mid = (lo + hi) >>> 1;
+      myMaxBottomRows[node] = Math.max(buildTree(2 * node, lo, mid), buildTree(2 * node + 1, mid, hi));
+    }
+    return myMaxBottomRows[node];
+  }
+
+  private void collect(int node, int lo, int hi, int spanCount, int lastRow, Set<ITask> result) {
+    if (lo >= spanCount || myMaxBottomRows[node] < lastRow) {
+      return;
+    }
+    if (hi - lo == 1) {
+      result.add(myTopTasks[lo]);
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    collect(2 * node, lo, mid, spanCount, lastRow, result);
+    collect(2 * node + 1, mid, hi, spanCount, lastRow, result);
+  }
+}
@@ -79,8 +79,14 @@ internal class ITaskImpl(
 
 }
 
+/**
+ * Wraps the given tasks into ITask instances. Dependency endpoints which are not among the given tasks,
+ * e.g. collapsed or filtered out tasks, are wrapped on demand.
+ */
 internal fun tasks2itasks(tasks: List<Task>) : Map<Task, ITask> {
   val result = mutableMapOf<Task, ITask>()
-  tasks.map { task -> ITaskImpl(task, result::get).also { result[task] = it } }
+  lateinit var mapping: (Task) -> ITask
+  mapping = { task -> result.getOrPut(task) { ITaskImpl(task, mapping) } }
+  tasks.forEach { mapping(it) }
   return result
 }
@@ -40,8 +40,11 @@ import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskManager;
 import net.sourceforge.ganttproject.task.TaskSelectionManager;
 import net.sourceforge.ganttproject.task.dependency.TaskDependency.Hardness;
+import net.sourceforge.ganttproject.task.event.TaskDependencyEvent;
+import net.sourceforge.ganttproject.task.event.TaskListenerAdapter;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import java.awt.*;
@@ -60,6 +63,9 @@ public class GanttChartController extends AbstractChartImplementation implements
   private final TaskTableChartConnector myTaskTableConnector;
   protected CustomBalloonTip myTooltip;
   private final TaskSelectionManager mySelectionManager;
+  // The chart model caches the row layout of the visible tasks, so we give it a new list of the visible
+  // tasks only when the list or the dependencies between the tasks change, rather than on every repaint.
+  private volatile boolean isVisibleTasksChanged = true;
 
   public GanttChartController(IGanttProject project, UIFacade uiFacade, ChartModelImpl chartModel,
                               ChartComponentBase chartComponent, ChartViewState chartViewState,
@@ -75,8 +81,27 @@ public class GanttChartController extends AbstractChartImplementation implements
     mySelection = new GanttChartSelection(myTaskManager, mySelectionManager);
     myTaskTableConnector = taskTableConnector;
     myTaskTableConnector.getVisibleTasks().addListener(
-        (ListChangeListener<Task>) c -> SwingUtilities.invokeLater(this::reset)
+        (ListChangeListener<Task>) c -> {
+          isVisibleTasksChanged = true;
+          SwingUtilities.invokeLater(this::reset);
+        }
     );
+    myTaskManager.addTaskListener(new TaskListenerAdapter() {
+      @Override
+      public void dependencyAdded(@NotNull TaskDependencyEvent e) {
+        isVisibleTasksChanged = true;
+      }
+
+      @Override
+      public void dependencyRemoved(@NotNull TaskDependencyEvent e) {
+        isVisibleTasksChanged = true;
+      }
+
+      @Override
+      public void taskModelReset() {
+        isVisibleTasksChanged = true;
+      }
+    });
     myTaskTableConnector.getTableScrollOffset().addListener(
         (ChangeListener<? super Number>) (wtf, old, newValue) -> SwingUtilities.invokeLater(() -> {
           getChartModel().setVerticalOffset(newValue.intValue());
@@ -167,8 +192,11 @@ public class GanttChartController extends AbstractChartImplementation implements
       model.setRowHeight((int)Math.ceil(rowHeight));
       model.setTopTimeUnit(getViewState().getTopTimeUnit());
       model.setBottomTimeUnit(getViewState().getBottomTimeUnit());
-      List<Task> visibleTasks = myTaskTableConnector.getVisibleTasks();
-      model.setVisibleTasks(visibleTasks);
+      if (isVisibleTasksChanged) {
+        isVisibleTasksChanged = false;
+        List<Task> visibleTasks = myTaskTableConnector.getVisibleTasks();
+        model.setVisibleTasks(visibleTasks);
+      }
       myChartModel.setTimelineTasks(getUIFacade().getCurrentTaskView().getTimelineTasks());
       model.paint(g);
       if (getActiveInteraction() != null) {
@@ -35,29 +35,48 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import net.sourceforge.ganttproject.GanttPreviousStateTask;
 import net.sourceforge.ganttproject.task.*;
+import net.sourceforge.ganttproject.task.dependency.TaskDependency;
 
 import javax.annotation.Nullable;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Renders task rectangles, dependency lines and all task-related text strings
  * in the gantt chart
  */
 public class GanttChartSceneBuilder {
+  static final int DEFAULT_OVERSCAN_ROWS = 5;
+
   public interface InputApi {
     int getHeaderHeight();
     int getWidth();
     int getLabelsFontSize();
     int getVerticalOffset();
+
+    /**
+     * @return height of the chart viewport in pixels, or non-positive value if it is not known,
+     * in which case all visible rows are rendered
+     */
+    int getViewportHeight();
     OffsetList getTasksUnitOffsets();
     TimeUnit getProgressBarTimeUnit();
     VerticalPartitioning getVerticalPartitioning();
+
+    /**
+     * @return visible tasks in their row order. The same list instance is expected to be returned
+     * until the visible tasks or the dependencies between them change.
+     */
     List<ITask> getVisibleTasks();
     List<ITaskSceneTask> getVisibleTaskSceneTasks();
     List<ITaskSceneTask> getTasksInDocumentOrder();
+    TaskDependency[] getDependencies();
     List<GanttPreviousStateTask> getBaseline();
     TaskActivitySceneBuilder.ChartApi getChartApi(TaskLabelSceneBuilder<ITaskSceneTask> labelsRenderer);
     GPCalendarCalc getCalendar();
@@ -80,6 +99,8 @@ public class GanttChartSceneBuilder {
   private final Canvas myLabelsLayer;
   private final TaskActivitySceneBuilder.ChartApi myChartApi;
   private final TaskActivitySplitter mySplitter;
+  private int myOverscanRows = DEFAULT_OVERSCAN_ROWS;
+  private DependencyRowIndex myRowIndex;
 
   public GanttChartSceneBuilder(InputApi input) {
     this(input, new Canvas());
@@ -154,17 +175,58 @@ public class GanttChartSceneBuilder {
     getPrimitiveContainer().setOffset(0, input.getHeaderHeight() - input.getVerticalOffset());
     getPrimitiveContainer().getLayer(2).setOffset(0, input.getHeaderHeight() - input.getVerticalOffset());
 
-    VerticalPartitioning vp = input.getVerticalPartitioning();
-    vp.build(input.getTasksInDocumentOrder());
     OffsetList defaultUnitOffsets = input.getTasksUnitOffsets();
-
-    renderVisibleTasks(input.getVisibleTaskSceneTasks(), defaultUnitOffsets);
-    renderTasksAboveAndBelowViewport(vp.getAboveViewport(), vp.getBelowViewport(), defaultUnitOffsets);
-    renderDependencies();
+    List<ITaskSceneTask> visibleTasks = input.getVisibleTaskSceneTasks();
+    List<ITask> visibleDependencyTasks = input.getVisibleTasks();
+    int firstRow = getFirstRenderedRow(visibleTasks.size());
+    int lastRow = getLastRenderedRow(visibleTasks.size());
+    if (firstRow == 0 && lastRow == visibleTasks.size()) {
+      VerticalPartitioning vp = input.getVerticalPartitioning();
+      vp.build(input.getTasksInDocumentOrder());
+      renderVisibleTasks(visibleTasks, 0, lastRow, defaultUnitOffsets);
+      renderTasksAboveAndBelowViewport(vp.getAboveViewport(), vp.getBelowViewport(), defaultUnitOffsets);
+      renderDependencies(visibleDependencyTasks);
+    } else {
+      DependencyRowIndex rowIndex = getRowIndex(visibleDependencyTasks);
+      List<ITask> renderedDependencyTasks = collectRenderedDependencyTasks(visibleDependencyTasks, rowIndex, firstRow, lastRow);
+      renderVisibleTasks(visibleTasks, firstRow, lastRow, defaultUnitOffsets);
+      renderDependencyEndpoints(visibleTasks, rowIndex, firstRow, lastRow, collectDependencyEndpoints(renderedDependencyTasks), defaultUnitOffsets);
+      renderDependencies(renderedDependencyTasks);
+    }
 
     return getPrimitiveContainer();
   }
 
+  /**
+   * Sets the number of rows rendered above and below the viewport, so that small scrolls
+   * do not reveal empty rows. Negative value turns row virtualization off, and then all visible
+   * rows are rendered regardless of the viewport.
+   */
+  public void setOverscanRows(int overscanRows) {
+    myOverscanRows = overscanRows;
+  }
+
+  private boolean isVirtualized() {
+    return myOverscanRows >= 0 && input.getViewportHeight() > 0 && getRowHeight() > 0;
+  }
+
+  private int getFirstRenderedRow(int rowCount) {
+    if (!isVirtualized()) {
+      return 0;
+    }
+    int firstRow = Math.max(0, input.getVerticalOffset()) / getRowHeight() - myOverscanRows;
+    return Math.max(0, Math.min(rowCount, firstRow));
+  }
+
+  private int getLastRenderedRow(int rowCount) {
+    if (!isVirtualized()) {
+      return rowCount;
+    }
+    int viewportBottom = Math.max(0, input.getVerticalOffset()) + input.getViewportHeight();
+    int lastRow = viewportBottom / getRowHeight() + 1 + myOverscanRows;
+    return Math.max(0, Math.min(rowCount, lastRow));
+  }
+
   public TaskLabelSceneBuilder.InputApi getTaskLabelSceneApi() {
     return taskLabelSceneApi;
   }
@@ -173,14 +235,14 @@ public class GanttChartSceneBuilder {
     return canvas;
   }
 
-  private void renderDependencies() {
+  private void renderDependencies(List<ITask> tasks) {
     DependencySceneBuilder.ChartApi chartApi = new DependencySceneBuilder.ChartApi() {
       @Override
       public int getBarHeight() {
         return getRectangleHeight();
       }
     };
-    var taskApi = new DependencySceneTaskApi(input.getVisibleTasks(), mySplitter);
+    var taskApi = new DependencySceneTaskApi(tasks, mySplitter);
     DependencySceneBuilder<ITask, BarChartConnectorImpl> dependencyRenderer = new DependencySceneBuilder<>(
         getPrimitiveContainer(), getPrimitiveContainer().getLayer(1), taskApi, chartApi);
     dependencyRenderer.build();
@@ -206,10 +268,96 @@ public class GanttChartSceneBuilder {
     }
   }
 
-  private void renderVisibleTasks(List<ITaskSceneTask> visibleTasks, OffsetList defaultUnitOffsets) {
+  /**
+   * Returns the index of the visible rows, building it anew if the visible task list has changed
+   * since the previous frame.
+   */
+  private DependencyRowIndex getRowIndex(List<ITask> visibleTasks) {
+    if (myRowIndex == null || !myRowIndex.isBuiltFor(visibleTasks)) {
+      myRowIndex = new DependencyRowIndex(visibleTasks, input.getDependencies());
+    }
+    return myRowIndex;
+  }
+
+  /**
+   * Returns the tasks of the rendered rows followed by the tasks above them which have dependencies crossing
+   * the rendered rows, that is, dependencies with the other endpoint below the rendered rows. Task dependency
+   * lists include the dependencies in both directions, so drawing the dependencies of the upper task is enough.
+   */
+  private static List<ITask> collectRenderedDependencyTasks(List<ITask> visibleTasks, DependencyRowIndex rowIndex,
+                                                            int firstRow, int lastRow) {
+    List<ITask> result = new ArrayList<>(visibleTasks.subList(firstRow, lastRow));
+    if (firstRow == 0 || lastRow == visibleTasks.size()) {
+      return result;
+    }
+    Set<ITask> crossingTasks = new LinkedHashSet<>();
+    rowIndex.collectCrossingDependencyTasks(firstRow, lastRow, crossingTasks);
+    result.addAll(crossingTasks);
+    return result;
+  }
+
+  /**
+   * Collects row identifiers of the tasks which are connected with dependencies to the given tasks.
+   */
+  private static Set<Integer> collectDependencyEndpoints(List<ITask> tasks) {
+    Set<Integer> result = new HashSet<>();
+    for (ITask t : tasks) {
+      for (IDependency dep : t.getDependencies()) {
+        result.add(dep.getStart().getOwner().getRowId());
+        result.add(dep.getEnd().getOwner().getRowId());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Renders invisible activities of the tasks outside of the rendered rows which are connected with
+   * dependencies to the rendered tasks, so that dependency lines could find their ends. Only if some endpoints
+   * are not found among the visible rows we need to partition all tasks and look for them in the collapsed
+   * or filtered out tasks.
+   */
+  private void renderDependencyEndpoints(List<ITaskSceneTask> visibleTasks, DependencyRowIndex rowIndex,
+                                         int firstRow, int lastRow, Set<Integer> endpoints, OffsetList defaultUnitOffsets) {
+    for (Iterator<Integer> it = endpoints.iterator(); it.hasNext();) {
+      Integer rowNum = rowIndex.getRowNum(it.next());
+      if (rowNum != null) {
+        it.remove();
+        if (rowNum < firstRow || rowNum >= lastRow) {
+          renderDependencyEndpoint(visibleTasks.get(rowNum), rowNum, defaultUnitOffsets);
+        }
+      }
+    }
+    if (endpoints.isEmpty()) {
+      return;
+    }
+    VerticalPartitioning vp = input.getVerticalPartitioning();
+    vp.build(input.getTasksInDocumentOrder());
+    List<ITaskSceneTask> above = new ArrayList<>();
+    for (ITaskSceneTask t : vp.getAboveViewport()) {
+      if (endpoints.contains(t.getRowId())) {
+        above.add(t);
+      }
+    }
+    List<ITaskSceneTask> below = new ArrayList<>();
+    for (ITaskSceneTask t : vp.getBelowViewport()) {
+      if (endpoints.contains(t.getRowId())) {
+        below.add(t);
+      }
+    }
+    renderTasksAboveAndBelowViewport(above, below, defaultUnitOffsets);
+  }
+
+  private void renderDependencyEndpoint(ITaskSceneTask t, int rowNum, OffsetList defaultUnitOffsets) {
+    List<ITaskActivity<ITaskSceneTask>> activities = mySplitter.split(t.getActivities());
+    for (Polygon p : renderActivities(rowNum, t, activities, defaultUnitOffsets, false)) {
+      p.setVisible(false);
+    }
+  }
+
+  private void renderVisibleTasks(List<ITaskSceneTask> visibleTasks, int firstRow, int lastRow, OffsetList defaultUnitOffsets) {
     List<Polygon> boundPolygons = Lists.newArrayList();
-    int rowNum = 0;
-    for (ITaskSceneTask t : visibleTasks) {
+    for (int rowNum = firstRow; rowNum < lastRow; rowNum++) {
+      ITaskSceneTask t = visibleTasks.get(rowNum);
       boundPolygons.clear();
       List<ITaskActivity<ITaskSceneTask>> activities = t.getActivities();
       activities = mySplitter.split(activities);
@@ -221,9 +369,8 @@ public class GanttChartSceneBuilder {
       }
       renderLabels(boundPolygons);
       renderBaseline(t, rowNum, defaultUnitOffsets);
-      rowNum++;
-      Canvas.Line nextLine = getPrimitiveContainer().createLine(0, rowNum * getRowHeight(),
-          input.getWidth(), rowNum * getRowHeight());
+      Canvas.Line nextLine = getPrimitiveContainer().createLine(0, (rowNum + 1) * getRowHeight(),
+          input.getWidth(), (rowNum + 1) * getRowHeight());
       nextLine.setForegroundColor(Color.GRAY);
     }
   }
@@ -66,7 +66,7 @@ public abstract class ChangeTaskBoundaryInteraction extends MouseInteractionBase
     if (getState() == RUNNING) {
       setState(FINISHING);
       mutator.setIsolationLevel(TaskMutator.READ_COMMITED);
-      myUiFacade.getUndoManager().undoableEdit("Task boundary changed", new Runnable() {
+      myUiFacade.getUndoManager().undoableTaskEdit("Task boundary changed", new Runnable() {
         @Override
         public void run() {
           doFinish(mutator);
@@ -21,7 +21,6 @@ package net.sourceforge.ganttproject.chart.mouse;
 import java.awt.event.MouseEvent;
 import java.util.Date;
 
-import biz.ganttproject.core.calendar.walker.WorkingUnitCounter;
 import biz.ganttproject.core.time.TimeDuration;
 
 import net.sourceforge.ganttproject.chart.item.TaskBoundaryChartItem;
@@ -31,20 +30,19 @@ import net.sourceforge.ganttproject.task.algorithm.RecalculateTaskScheduleAlgori
 
 public class ChangeTaskEndInteraction extends ChangeTaskBoundaryInteraction implements MouseInteraction {
   private TaskMutator myMutator;
-  private WorkingUnitCounter myCounter;
 
   public ChangeTaskEndInteraction(TaskBoundaryChartItem taskBoundary, TimelineFacade chartDateGrid, UIFacade uiFacade,
       RecalculateTaskScheduleAlgorithm taskScheduleAlgorithm) {
     super(taskBoundary.getTask().getStart().getTime(), taskBoundary.getTask(), chartDateGrid, uiFacade,
         taskScheduleAlgorithm);
     myMutator = getTask().createMutator();
-    myCounter = new WorkingUnitCounter(getChartDateGrid().getCalendar(), getTask().getDuration().getTimeUnit());
   }
 
   @Override
   public void apply(MouseEvent event) {
     Date dateUnderX = getChartDateGrid().getDateAt(event.getX());
-    TimeDuration newDuration = myCounter.run(getStartDate(), dateUnderX);
+    TimeDuration newDuration = getChartDateGrid().getCalendar().countWorkingUnits(
+        getStartDate(), dateUnderX, getTask().getDuration().getTimeUnit());
     myMutator.setDuration(newDuration);
     updateTooltip(event);
   }
@@ -89,7 +89,7 @@ public class ChangeTaskProgressInteraction extends MouseInteractionBase implemen
     }
     isCompleted = true;
     myMutator.setIsolationLevel(TaskMutator.READ_COMMITED);
-    myUiFacade.getUndoManager().undoableEdit("Task progress changed", new Runnable() {
+    myUiFacade.getUndoManager().undoableTaskEdit("Task progress changed", new Runnable() {
       @Override
       public void run() {
         doFinish(myMutator);
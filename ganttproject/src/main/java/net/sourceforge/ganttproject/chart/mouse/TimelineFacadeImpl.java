@@ -19,7 +19,6 @@ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
 package net.sourceforge.ganttproject.chart.mouse;
 
 import biz.ganttproject.core.calendar.GPCalendarCalc;
-import biz.ganttproject.core.calendar.walker.WorkingUnitCounter;
 import biz.ganttproject.core.time.TimeDuration;
 import biz.ganttproject.core.time.TimeUnit;
 import biz.ganttproject.core.time.TimeUnitStack;
@@ -47,11 +46,10 @@ public class TimelineFacadeImpl implements MouseInteraction.TimelineFacade {
 
   @Override
   public TimeDuration createTimeInterval(TimeUnit timeUnit, Date startDate, Date endDate) {
-    WorkingUnitCounter workingUnitCounter = new WorkingUnitCounter(getCalendar(), timeUnit);
     if (startDate.before(endDate)) {
-      return workingUnitCounter.run(startDate, endDate);
+      return getCalendar().countWorkingUnits(startDate, endDate, timeUnit);
     }
-    return workingUnitCounter.run(endDate, startDate).reverse();
+    return getCalendar().countWorkingUnits(endDate, startDate, timeUnit).reverse();
   }
 
   @Override
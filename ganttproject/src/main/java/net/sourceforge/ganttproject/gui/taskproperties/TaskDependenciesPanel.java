@@ -22,6 +22,7 @@ import net.sourceforge.ganttproject.gui.AbstractTableAndActionsComponent;
 import net.sourceforge.ganttproject.gui.UIUtil;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskManager;
+import net.sourceforge.ganttproject.task.algorithm.FindPossibleDependeesAlgorithm;
 import net.sourceforge.ganttproject.task.dependency.TaskDependency;
 import net.sourceforge.ganttproject.task.dependency.TaskDependencyConstraint;
 import net.sourceforge.ganttproject.task.dependency.constraint.FinishFinishConstraintImpl;
@@ -38,6 +39,7 @@ import java.awt.event.ActionListener;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * UI component in a task properties dialog: a table with task predecessors
@@ -66,8 +68,8 @@ public class TaskDependenciesPanel {
     myModel = new DependencyTableModel(myTask);
     myTable = new JTable(myModel);
     UIUtil.setupTableUI(myTable);
-    Task[] predecessorCandidates = getTaskManager().getAlgorithmCollection()
-        .getFindPossibleDependeesAlgorithm().run(getTask());
+    FindPossibleDependeesAlgorithm.Candidates predecessorCandidates = getTaskManager().getAlgorithmCollection()
+        .getFindPossibleDependeesAlgorithm().getCandidates(getTask());
     setUpPredecessorComboColumn(
         predecessorCandidates, DependencyTableModel.MyColumn.TASK_NAME.getTableColumn(getTable()), getTable());
 
@@ -96,7 +98,7 @@ public class TaskDependenciesPanel {
       }
     };
 
-    tableAndActions.setEnabled(predecessorCandidates.length > 0);
+    tableAndActions.setEnabled(!predecessorCandidates.isEmpty());
     SwingUtilities.invokeLater(() -> CommonPanel.loadColumnWidth(myTable, ourColumnWidth));
     return CommonPanel.createTableAndActions(myTable, tableAndActions.getActionsComponent());
   }
@@ -117,12 +119,18 @@ public class TaskDependenciesPanel {
     return myTask;
   }
 
-  private void setUpPredecessorComboColumn(Task[] predecessorCandidates, TableColumn predecessorColumn, final JTable predecessorTable) {
-    final JComboBox<DependencyTableModel.TaskComboItem> comboBox = new JComboBox<>();
+  private void setUpPredecessorComboColumn(FindPossibleDependeesAlgorithm.Candidates predecessorCandidates,
+                                          TableColumn predecessorColumn, final JTable predecessorTable) {
+    // Candidates are evaluated when the combo box popup needs them rather than when the panel opens
+    final JComboBox<DependencyTableModel.TaskComboItem> comboBox = new JComboBox<>(
+        new CandidatesComboBoxModel(predecessorCandidates));
+    List<Task> firstCandidate = predecessorCandidates.getPage(0, 1);
+    if (!firstCandidate.isEmpty()) {
+      comboBox.setPrototypeDisplayValue(new DependencyTableModel.TaskComboItem(firstCandidate.get(0)));
+    }
 
     int maxDigits = 0;
-    for (Task task : predecessorCandidates) {
-      comboBox.addItem(new DependencyTableModel.TaskComboItem(task));
+    for (Task task : getTaskManager().getTasks()) {
       maxDigits = Math.max(maxDigits, (int) Math.log10(task.getTaskID()));
     }
     final int maxWidth = (maxDigits + 1) * 10;
@@ -180,4 +188,38 @@ public class TaskDependenciesPanel {
   private TaskManager getTaskManager() {
     return getTask().getManager();
   }
+
+  private static class CandidatesComboBoxModel extends AbstractListModel<DependencyTableModel.TaskComboItem>
+      implements ComboBoxModel<DependencyTableModel.TaskComboItem> {
+    private final FindPossibleDependeesAlgorithm.Candidates myCandidates;
+    private Object mySelectedItem;
+
+    CandidatesComboBoxModel(FindPossibleDependeesAlgorithm.Candidates candidates) {
+      myCandidates = candidates;
+    }
+
+    @Override
+    public int getSize() {
+      return myCandidates.size();
+    }
+
+    @Override
+    public DependencyTableModel.TaskComboItem getElementAt(int index) {
+      List<Task> page = myCandidates.getPage(index, 1);
+      return page.isEmpty() ? null : new DependencyTableModel.TaskComboItem(page.get(0));
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+      if (!Objects.equals(mySelectedItem, item)) {
+        mySelectedItem = item;
+        fireContentsChanged(this, -1, -1);
+      }
+    }
+
+    @Override
+    public Object getSelectedItem() {
+      return mySelectedItem;
+    }
+  }
 }
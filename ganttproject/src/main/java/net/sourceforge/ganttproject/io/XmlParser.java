@@ -20,56 +20,46 @@ along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
 package net.sourceforge.ganttproject.io;
 
 import biz.ganttproject.core.io.XmlSerializerKt;
-import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
 import net.sourceforge.ganttproject.GPLogger;
 import net.sourceforge.ganttproject.parser.FileFormatException;
 import net.sourceforge.ganttproject.parser.ParsingListener;
 import net.sourceforge.ganttproject.parser.TagHandler;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.ext.DefaultHandler2;
-
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import java.io.ByteArrayInputStream;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 
 /**
- * SAX parser which delegates parsing semantics to TagHandler instances.
+ * Streaming parser which delegates parsing semantics to TagHandler instances.
+ *
+ * The document is parsed in a single pass: XmlProject is read from a StAX stream, and the same events are
+ * dispatched to the tag handlers as the reader advances. Once the project is read, the listeners are notified
+ * and the handlers process XmlProject.
  *
  * @author dbarashev (Dmitry Barashev)
  */
-public class XmlParser extends DefaultHandler2 {
+public class XmlParser {
   private final List<TagHandler> myTagHandlers;
   private final List<ParsingListener> myListeners;
-  private boolean myCdataStarted;
 
   public XmlParser(List<TagHandler> tagHandlers, List<ParsingListener> listeners) {
     myTagHandlers = tagHandlers;
     myListeners = listeners;
   }
 
-  @Override
-  public void startDocument() throws SAXException {
-    super.startDocument();
-  }
-
-  @Override
-  public void endDocument() {
+  private void endDocument() {
     for (ParsingListener l : myListeners) {
       l.parsingFinished();
     }
   }
 
-  @Override
-  public void startElement(String namespaceURI, String sName, // simple
-      // name
-      String qName, // qualified name
-      Attributes attrs) {
+  private void startElement(String namespaceURI, String sName, String qName, AttributesImpl attrs) {
     for (TagHandler next : myTagHandlers) {
       try {
         next.startElement(namespaceURI, sName, qName, attrs);
@@ -79,29 +69,13 @@ public class XmlParser extends DefaultHandler2 {
     }
   }
 
-  @Override
-  public void endElement(String namespaceURI, String sName, String qName) {
+  private void endElement(String namespaceURI, String sName, String qName) {
     for (TagHandler next : myTagHandlers) {
       next.endElement(namespaceURI, sName, qName);
     }
   }
 
-  @Override
-  public void startCDATA() {
-    myCdataStarted = true;
-  }
-
-  @Override
-  public void endCDATA() {
-    myCdataStarted = false;
-  }
-
-  @Override
-  public void characters(char buf[], int offset, int len) {
-    if (!myCdataStarted) {
-      return;
-    }
-    String s = new String(buf, offset, len);
+  private void cdata(String s) {
     for (TagHandler tagHandler : myTagHandlers) {
       if (tagHandler.hasCdata()) {
         tagHandler.appendCdata(s);
@@ -110,24 +84,14 @@ public class XmlParser extends DefaultHandler2 {
   }
 
   public void parse(InputStream inStream) throws IOException {
-    var inputBytes = inStream.readAllBytes();
-
-    // Use the default (non-validating) parser
-    SAXParserFactory factory = SAXParserFactory.newInstance();
     try {
-      // Parse the input
-      SAXParser saxParser;
-      saxParser = factory.newSAXParser();
-      XMLReader xmlReader = saxParser.getXMLReader();
-      xmlReader.setProperty("http://xml.org/sax/properties/lexical-handler",
-          this);
-      saxParser.parse(new ByteArrayInputStream(inputBytes), this);
-
-      var xmlProject = XmlSerializerKt.parseXmlProject(new String(inputBytes, Charsets.UTF_8));
+      var xmlReader = new TagHandlerDispatcher(XmlSerializerKt.createXmlStreamReader(inStream));
+      var xmlProject = XmlSerializerKt.parseXmlProject(xmlReader);
+      endDocument();
       for (var handler : myTagHandlers) {
         handler.process(xmlProject);
       }
-    } catch (ParserConfigurationException | SAXException e) {
+    } catch (XMLStreamException e) {
       if (!GPLogger.log(e)) {
         e.printStackTrace(System.err);
       }
@@ -139,4 +103,46 @@ public class XmlParser extends DefaultHandler2 {
       throw new IOException(e.getMessage());
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Forwards the element and CDATA events to the tag handlers while XmlProject reader pulls them.
+   */
+  private class TagHandlerDispatcher extends StreamReaderDelegate {
+    TagHandlerDispatcher(XMLStreamReader reader) {
+      super(reader);
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+      int event = super.next();
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          startElement(Strings.nullToEmpty(getNamespaceURI()), getLocalName(), getQName(getPrefix(), getLocalName()), getAttributes());
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          endElement(Strings.nullToEmpty(getNamespaceURI()), getLocalName(), getQName(getPrefix(), getLocalName()));
+          break;
+        case XMLStreamConstants.CDATA:
+          cdata(getText());
+          break;
+        default:
+          break;
+      }
+      return event;
+    }
+
+    private AttributesImpl getAttributes() {
+      var result = new AttributesImpl();
+      for (int i = 0; i < getAttributeCount(); i++) {
+        var localName = getAttributeLocalName(i);
+        result.addAttribute(Strings.nullToEmpty(getAttributeNamespace(i)), localName,
+            getQName(getAttributePrefix(i), localName), Strings.nullToEmpty(getAttributeType(i)), getAttributeValue(i));
+      }
+      return result;
+    }
+  }
+
+  private static String getQName(String prefix, String localName) {
+    return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+  }
+}
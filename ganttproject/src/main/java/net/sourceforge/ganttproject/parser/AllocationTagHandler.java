@@ -31,9 +31,11 @@ import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskManager;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 /**
  * @author bard
@@ -56,17 +58,23 @@ public class AllocationTagHandler extends AbstractTagHandler {
 
   @Override
   public void process(XmlProject xmlProject) {
-    xmlProject.getAllocations().forEach(this::loadAllocation);
+    var allocations = xmlProject.getAllocations();
+    Set<Integer> resourceIds = new HashSet<>();
+    for (XmlAllocation xmlAllocation : allocations) {
+      resourceIds.add(xmlAllocation.getResourceId());
+    }
+    var id2resource = getResourceManager().getByIds(resourceIds);
+    allocations.forEach(xmlAllocation -> loadAllocation(xmlAllocation, id2resource));
     processRoleBindings();
   }
 
-  private void loadAllocation(XmlAllocation xmlAllocation) throws FileFormatException {
+  private void loadAllocation(XmlAllocation xmlAllocation, Map<Integer, HumanResource> id2resource) throws FileFormatException {
     var taskId = xmlAllocation.getTaskId();
     var resourceId = xmlAllocation.getResourceId();
     var load = xmlAllocation.getLoad();
     var coordinator = xmlAllocation.isCoordinator();
 
-    HumanResource human = getResourceManager().getById(resourceId);
+    HumanResource human = id2resource.get(resourceId);
     if (human == null) {
       throw new FileFormatException("Human resource with id=" + resourceId + " not found");
     }
@@ -43,11 +43,13 @@ public class TaskTagHandler  {
   public void process(XmlProject xmlProject) {
     var taskLoader = new TaskLoader(getManager(), myTreeFacade);
     taskLoader.loadTaskCustomPropertyDefinitions(xmlProject);
-    XmlSerializerKt.walkTasksDepthFirst(xmlProject, (parent, child) -> {
-      taskLoader.loadTask(parent, child);
-      return true;
-    });
-    TaskSerializerKt.loadDependencyGraph(taskLoader.getDependencies(), myManager, taskLoader.getLegacyFixedStartTasks());
+    try (var bulkUpdate = myManager.startBulkUpdate()) {
+      XmlSerializerKt.walkTasksDepthFirst(xmlProject, (parent, child) -> {
+        taskLoader.loadTask(parent, child);
+        return true;
+      });
+      TaskSerializerKt.loadDependencyGraph(taskLoader.getDependencies(), myManager, taskLoader.getLegacyFixedStartTasks());
+    }
   }
 
   private TaskManager getManager() {
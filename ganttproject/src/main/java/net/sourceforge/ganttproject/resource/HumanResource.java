@@ -31,6 +31,7 @@ import biz.ganttproject.customproperty.CustomColumnsException;
 import biz.ganttproject.customproperty.CustomColumnsValues;
 import net.sourceforge.ganttproject.task.ResourceAssignment;
 import net.sourceforge.ganttproject.task.Task;
+import net.sourceforge.ganttproject.task.algorithm.CostAlgorithmImpl;
 
 import javax.swing.*;
 import java.math.BigDecimal;
@@ -208,7 +209,9 @@ public class HumanResource implements CustomPropertyHolder {
   public ResourceAssignment createAssignment(ResourceAssignment assignmentToTask) {
     ResourceAssignment result = new ResourceAssignmentImpl(assignmentToTask);
     myAssignments.add(result);
-    resetLoads();
+    if (myLoadDistribution != null) {
+      myLoadDistribution.addAssignment(result);
+    }
     fireAssignmentsChanged();
     return result;
   }
@@ -228,6 +231,7 @@ public class HumanResource implements CustomPropertyHolder {
   }
 
   private void fireAssignmentsChanged() {
+    CostAlgorithmImpl.invalidateCalculatedCosts();
     if (areEventsEnabled) {
       myManager.fireAssignmentsChanged(this);
     }
@@ -276,6 +280,20 @@ public class HumanResource implements CustomPropertyHolder {
     myLoadDistribution = null;
   }
 
+  /**
+   * Updates the loads of this resource assignments to the given task, e.g. when the task is rescheduled.
+   */
+  public void updateLoads(Task task) {
+    if (myLoadDistribution == null) {
+      return;
+    }
+    for (ResourceAssignment assignment : myAssignments) {
+      if (assignment.getTask() == task) {
+        myLoadDistribution.updateAssignment(assignment);
+      }
+    }
+  }
+
   public LoadDistribution getLoadDistribution() {
     if (myLoadDistribution == null) {
       myLoadDistribution = new LoadDistribution(this);
@@ -283,8 +301,17 @@ public class HumanResource implements CustomPropertyHolder {
     return myLoadDistribution;
   }
 
-  private void fireAssignmentChanged() {
-    resetLoads();
+  private void fireAssignmentChanged(ResourceAssignment assignment) {
+    if (myLoadDistribution != null) {
+      myLoadDistribution.updateAssignment(assignment);
+    }
+    fireAssignmentsChanged();
+  }
+
+  private void fireAssignmentRemoved(ResourceAssignment assignment) {
+    if (myLoadDistribution != null) {
+      myLoadDistribution.removeAssignment(assignment);
+    }
     fireAssignmentsChanged();
   }
 
@@ -296,6 +323,7 @@ public class HumanResource implements CustomPropertyHolder {
 
   public void setStandardPayRate(BigDecimal rate) {
     myStandardPayRate = rate;
+    CostAlgorithmImpl.invalidateCalculatedCosts();
   }
 
   public BigDecimal getStandardPayRate() {
@@ -372,14 +400,14 @@ public class HumanResource implements CustomPropertyHolder {
     @Override
     public void setLoad(float load) {
       myLoad = load;
-      HumanResource.this.fireAssignmentChanged();
+      HumanResource.this.fireAssignmentChanged(this);
     }
 
     /** Removes all related assignments */
     @Override
     public void delete() {
       HumanResource.this.myAssignments.remove(this);
-      HumanResource.this.fireAssignmentChanged();
+      HumanResource.this.fireAssignmentRemoved(this);
     }
 
     @Override
@@ -31,6 +31,7 @@ import net.sourceforge.ganttproject.undo.GPUndoManager;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +91,10 @@ public class HumanResourceManager {
 
   private final List<HumanResource> resources = new ArrayList<>();
 
+  // Index of resources by id. If several resources share the same id, the first one wins,
+  // as it did when we searched the list.
+  private final Map<Integer, HumanResource> myIdIndex = new HashMap<>();
+
   private int nextFreeId = 0;
 
   private final Role myDefaultRole;
@@ -155,19 +160,28 @@ public class HumanResourceManager {
       nextFreeId = resource.getId() + 1;
     }
     resources.add(resource);
+    myIdIndex.putIfAbsent(resource.getId(), resource);
     fireResourceAdded(resource);
   }
 
   public HumanResource getById(int id) {
-    // Linear search is not really efficient, but we do not have so many
-    // resources !?
-    HumanResource pr = null;
-    for (HumanResource resource : resources)
-      if (resource.getId() == id) {
-        pr = resource;
-        break;
+    return myIdIndex.get(id);
+  }
+
+  /**
+   * Looks up resources with the given ids.
+   *
+   * @return map of the ids to the resources. Ids which are not found are absent in the map.
+   */
+  public Map<Integer, HumanResource> getByIds(Collection<Integer> ids) {
+    Map<Integer, HumanResource> result = new HashMap<>();
+    for (Integer id : ids) {
+      HumanResource resource = myIdIndex.get(id);
+      if (resource != null) {
+        result.put(id, resource);
       }
-    return pr;
+    }
+    return result;
   }
 
   public List<HumanResource> getResources() {
@@ -176,20 +190,34 @@ public class HumanResourceManager {
 
   public void remove(HumanResource resource) {
     fireResourcesRemoved(new HumanResource[] { resource });
-    resources.remove(resource);
+    removeResource(resource);
   }
 
   public void remove(HumanResource resource, GPUndoManager myUndoManager) {
     final HumanResource res = resource;
     myUndoManager.undoableEdit("Delete Human OK", () -> {
       fireResourcesRemoved(new HumanResource[] { res });
-      resources.remove(res);
+      removeResource(res);
     });
   }
 
+  private void removeResource(HumanResource resource) {
+    resources.remove(resource);
+    if (myIdIndex.remove(resource.getId(), resource)) {
+      // Some other resource with the same id may still be in the list
+      for (HumanResource hr : resources) {
+        if (hr.getId() == resource.getId()) {
+          myIdIndex.put(hr.getId(), hr);
+          break;
+        }
+      }
+    }
+  }
+
   public void clear() {
     fireCleanup();
     resources.clear();
+    myIdIndex.clear();
   }
 
   public void addView(ResourceView view) {
@@ -7,18 +7,24 @@ package net.sourceforge.ganttproject.resource;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.DefaultListModel;
 
 import biz.ganttproject.core.calendar.GanttDaysOff;
 
+import biz.ganttproject.core.chart.scene.LoadTimeline;
 import net.sourceforge.ganttproject.task.ResourceAssignment;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskActivity;
 
 /**
- * Represents load of of one particular resource in the given time range
+ * Represents load of of one particular resource in the given time range.
+ *
+ * Loads are kept per assignment and are updated incrementally when assignments are added, removed
+ * or changed, together with the sorted timelines of the load changes.
  */
 public class LoadDistribution {
   public static class Load {
@@ -46,7 +52,15 @@ public class LoadDistribution {
     public final Date endDate;
   }
 
-  private final List<Load> myTasksLoads = new ArrayList<Load>();
+  private final Map<ResourceAssignment, List<Load>> myAssignmentLoads = new LinkedHashMap<>();
+
+  private final List<Load> myDaysOffLoads = new ArrayList<>();
+
+  private final LoadTimeline myLoadTimeline = new LoadTimeline();
+
+  private final LoadTimeline myDaysOffTimeline = new LoadTimeline();
+
+  private List<Load> myTasksLoads;
 
   public LoadDistribution(HumanResource resource) {
     ResourceAssignment[] assignments = resource.getAssignments();
@@ -63,16 +77,52 @@ public class LoadDistribution {
         GanttDaysOff dayOff = (GanttDaysOff) daysOff.get(l);
         Date dayOffStart = dayOff.getStart().getTime();
         Date dayOffEnd = dayOff.getFinish().getTime();
-        myTasksLoads.add(new Load(dayOffStart, dayOffEnd, -1, null));
+        Load load = new Load(dayOffStart, dayOffEnd, -1, null);
+        myDaysOffLoads.add(load);
+        myDaysOffTimeline.add(dayOffStart.getTime(), dayOffEnd.getTime(), load.load);
       }
     }
   }
 
   private void processAssignment(ResourceAssignment assignment) {
     Task task = assignment.getTask();
+    List<Load> loads = new ArrayList<>();
     for (TaskActivity ta : task.getActivities()) {
       if (ta.getIntensity() != 0) {
-        myTasksLoads.add(new Load(ta.getStart(), ta.getEnd(), assignment.getLoad(), task));
+        Load load = new Load(ta.getStart(), ta.getEnd(), assignment.getLoad(), task);
+        loads.add(load);
+        myLoadTimeline.add(load.startDate.getTime(), load.endDate.getTime(), load.load);
+      }
+    }
+    // Replacing the value of the existing key keeps the assignment order
+    myAssignmentLoads.put(assignment, loads);
+    myTasksLoads = null;
+  }
+
+  void addAssignment(ResourceAssignment assignment) {
+    processAssignment(assignment);
+  }
+
+  /**
+   * Recalculates loads of the given assignment, e.g. when its load changes or when its task is rescheduled.
+   */
+  void updateAssignment(ResourceAssignment assignment) {
+    List<Load> loads = myAssignmentLoads.get(assignment);
+    if (loads != null) {
+      removeLoads(loads);
+      processAssignment(assignment);
+    }
+  }
+
+  void removeAssignment(ResourceAssignment assignment) {
+    removeLoads(myAssignmentLoads.remove(assignment));
+    myTasksLoads = null;
+  }
+
+  private void removeLoads(List<Load> loads) {
+    if (loads != null) {
+      for (Load load : loads) {
+        myLoadTimeline.remove(load.startDate.getTime(), load.endDate.getTime(), load.load);
       }
     }
   }
@@ -82,6 +132,28 @@ public class LoadDistribution {
    *         a set of <code>Load</code>
    */
   public List<Load> getTasksLoads() {
+    if (myTasksLoads == null) {
+      List<Load> tasksLoads = new ArrayList<>();
+      for (List<Load> loads : myAssignmentLoads.values()) {
+        tasksLoads.addAll(loads);
+      }
+      tasksLoads.addAll(myDaysOffLoads);
+      myTasksLoads = tasksLoads;
+    }
     return myTasksLoads;
   }
+
+  /**
+   * @return timeline of the working time loads of all assignments
+   */
+  public LoadTimeline getLoadTimeline() {
+    return myLoadTimeline;
+  }
+
+  /**
+   * @return timeline of the resource days off
+   */
+  public LoadTimeline getDaysOffTimeline() {
+    return myDaysOffTimeline;
+  }
 }
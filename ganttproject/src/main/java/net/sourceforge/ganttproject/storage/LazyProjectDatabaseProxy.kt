@@ -19,6 +19,7 @@ along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
 
 package net.sourceforge.ganttproject.storage
 
+import net.sourceforge.ganttproject.GPLogger
 import net.sourceforge.ganttproject.ProjectEventListener
 import net.sourceforge.ganttproject.storage.ProjectDatabase.*
 import net.sourceforge.ganttproject.task.Task
@@ -26,6 +27,9 @@ import net.sourceforge.ganttproject.task.TaskManager
 import net.sourceforge.ganttproject.task.dependency.TaskDependency
 import net.sourceforge.ganttproject.task.event.TaskListener
 import net.sourceforge.ganttproject.undo.GPUndoListener
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
 
 /**
  * ProjectDatabase implementation with lazy initialization. After each shutdown, a new database is created.
@@ -37,10 +41,40 @@ class LazyProjectDatabaseProxy(private val databaseFactory: () -> ProjectDatabas
   private val projectEventListenerImpl by lazy { ProjectEventListenerImpl(this, taskManager) }
   private fun isInitialized(): Boolean = lazyProjectDatabase != null
 
+  private val loadExecutor = Executors.newSingleThreadExecutor { Thread(it, "ProjectDatabaseLoader").apply { isDaemon = true } }
+  private var pendingLoad: Future<*>? = null
+
+  // Every call waits until the pending background load completes, so that the changes are applied
+  // to the loaded rows.
+  @Synchronized
   private fun getDatabase(): ProjectDatabase {
+    awaitPendingLoad()
     return lazyProjectDatabase ?: databaseFactory().also { it.init(); lazyProjectDatabase = it }
   }
 
+  private fun awaitPendingLoad() {
+    val load = pendingLoad ?: return
+    pendingLoad = null
+    try {
+      load.get()
+    } catch (e: InterruptedException) {
+      Thread.currentThread().interrupt()
+    } catch (e: ExecutionException) {
+      LOG.error("Failed to load the project database {}", e)
+    }
+  }
+
+  /**
+   * Reads the tasks and dependencies on the calling thread and inserts them into the database in the background.
+   * Other calls to this database wait until the load completes.
+   */
+  @Synchronized
+  @Throws(ProjectDatabaseException::class)
+  fun bulkLoadInBackground(tasks: List<Task>, dependencies: List<TaskDependency>) {
+    val load = getDatabase().prepareBulkLoad(tasks, dependencies)
+    pendingLoad = loadExecutor.submit { load.execute() }
+  }
+
   override fun startLog(baseTxnId: String) {
     getDatabase().startLog(baseTxnId)
   }
@@ -63,6 +97,10 @@ class LazyProjectDatabaseProxy(private val databaseFactory: () -> ProjectDatabas
     getDatabase().insertTaskDependency(taskDependency)
   }
 
+  override fun prepareBulkLoad(tasks: List<Task>, dependencies: List<TaskDependency>): BulkLoad =
+    getDatabase().prepareBulkLoad(tasks, dependencies)
+
+  @Synchronized
   override fun shutdown() {
     if (isInitialized()) {
       getDatabase().shutdown()
@@ -82,11 +120,21 @@ class LazyProjectDatabaseProxy(private val databaseFactory: () -> ProjectDatabas
     getDatabase().mapTasks(*columnConsumer)
   }
 
+  override fun mapTasks(taskUids: Collection<String>, vararg columnConsumer: ColumnConsumer) {
+    getDatabase().mapTasks(taskUids, *columnConsumer)
+  }
+
   override fun validateColumnConsumer(columnConsumer: ColumnConsumer) {
     getDatabase().validateColumnConsumer(columnConsumer)
   }
 
+  override fun registerUnrecordedChange(description: String) {
+    getDatabase().registerUnrecordedChange(description)
+  }
+
   fun createProjectEventListener(): ProjectEventListener = projectEventListenerImpl
   fun createTaskEventListener(): TaskListener = projectEventListenerImpl
   fun createUndoListener(): GPUndoListener = projectEventListenerImpl
 }
+
+private val LOG = GPLogger.create("ProjectDatabase")
@@ -31,12 +31,7 @@ import java.math.BigDecimal
 import java.time.LocalDate
 
 fun buildInsertTaskQuery(dsl: DSLContext, task: Task): Insert<TaskRecord> {
-  var costManualValue: BigDecimal? = null
-  var isCostCalculated: Boolean? = null
-  if (!(task.cost.isCalculated && task.cost.manualValue == BigDecimal.ZERO)) {
-    costManualValue = task.cost.manualValue
-    isCostCalculated = task.cost.isCalculated
-  }
+  val (costManualValue, isCostCalculated) = externalizedCost(task)
   return dsl
     .insertInto(Tables.TASK)
     .set(Tables.TASK.UID, task.uid)
@@ -58,13 +53,35 @@ fun buildInsertTaskQuery(dsl: DSLContext, task: Task): Insert<TaskRecord> {
 
 }
 
-fun buildInsertTaskDto(task: Task): OperationDto.InsertOperationDto {
-  var costManualValue: BigDecimal? = null
-  var isCostCalculated: Boolean? = null
-  if (!(task.cost.isCalculated && task.cost.manualValue == BigDecimal.ZERO)) {
-    costManualValue = task.cost.manualValue
-    isCostCalculated = task.cost.isCalculated
+/**
+ * Builds a task record with all the columns marked as changed, so that inserting records of different tasks
+ * renders the same statement and can be executed as a single JDBC batch.
+ */
+fun buildTaskRecord(dsl: DSLContext, task: Task): TaskRecord {
+  val (costManualValue, isCostCalculated) = externalizedCost(task)
+  return dsl.newRecord(Tables.TASK).also {
+    it.set(Tables.TASK.UID, task.uid)
+    it.set(Tables.TASK.NUM, task.taskID)
+    it.set(Tables.TASK.NAME, task.name)
+    it.set(Tables.TASK.COLOR, (task as TaskImpl).externalizedColor())
+    it.set(Tables.TASK.SHAPE, task.shape?.array)
+    it.set(Tables.TASK.IS_MILESTONE, task.isLegacyMilestone)
+    it.set(Tables.TASK.IS_PROJECT_TASK, task.isProjectTask)
+    it.set(Tables.TASK.START_DATE, task.start.toLocalDate())
+    it.set(Tables.TASK.DURATION, task.duration.length)
+    it.set(Tables.TASK.COMPLETION, task.completionPercentage)
+    it.set(Tables.TASK.EARLIEST_START_DATE, task.third?.toLocalDate())
+    it.set(Tables.TASK.PRIORITY, task.priority.persistentValue)
+    it.set(Tables.TASK.WEB_LINK, task.externalizedWebLink())
+    it.set(Tables.TASK.COST_MANUAL_VALUE, costManualValue)
+    it.set(Tables.TASK.IS_COST_CALCULATED, isCostCalculated)
+    it.set(Tables.TASK.NOTES, task.externalizedNotes())
+    it.changed(true)
   }
+}
+
+fun buildInsertTaskDto(task: Task): OperationDto.InsertOperationDto {
+  val (costManualValue, isCostCalculated) = externalizedCost(task)
   return OperationDto.InsertOperationDto(
     Tables.TASK.name.lowercase(),
     mapOf(
@@ -87,3 +104,11 @@ fun buildInsertTaskDto(task: Task): OperationDto.InsertOperationDto {
     )
   )
 }
+
+/** Manual cost value and calculated flag as they are stored, both null if the task has the default cost. */
+private fun externalizedCost(task: Task): Pair<BigDecimal?, Boolean?> =
+  if (task.cost.isCalculated && task.cost.manualValue == BigDecimal.ZERO) {
+    null to null
+  } else {
+    task.cost.manualValue to task.cost.isCalculated
+  }
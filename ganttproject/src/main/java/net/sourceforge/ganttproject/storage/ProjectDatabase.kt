@@ -24,7 +24,9 @@ import biz.ganttproject.core.time.GanttCalendar
 import biz.ganttproject.core.time.TimeDuration
 import biz.ganttproject.customproperty.CustomPropertyHolder
 import biz.ganttproject.customproperty.SimpleSelect
+import net.sourceforge.ganttproject.GPLogger
 import net.sourceforge.ganttproject.task.Task
+import net.sourceforge.ganttproject.task.TaskManager
 import net.sourceforge.ganttproject.task.dependency.TaskDependency
 import java.awt.Color
 
@@ -37,11 +39,43 @@ interface ProjectDatabaseTxn {
   @Throws(ProjectDatabaseException::class)
   fun commit()
 
+  /** Discards the collected changes without writing them to the database. */
+  @Throws(ProjectDatabaseException::class)
+  fun rollback()
+
   @Throws(ProjectDatabaseException::class)
   fun undo()
 
   @Throws(ProjectDatabaseException::class)
   fun redo()
+
+  /**
+   * True if every change collected by this transaction has a task model counterpart, so that it can be
+   * undone and redone with replayUndo and replayRedo.
+   */
+  val isReplayable: Boolean
+
+  /**
+   * False if the task model was changed in a way which is not recorded in the database, e.g. a task was removed
+   * or a dependency was added. Such a transaction can be neither replayed nor applied on undo and redo.
+   */
+  val isComplete: Boolean
+
+  /** UIDs of the tasks which were inserted or updated by the changes collected in this transaction. */
+  val taskUids: Set<String>
+
+  /**
+   * Applies the inverse of the collected changes to the task model, most recent first. The database is updated
+   * by the model itself, so the caller is expected to wrap this call into a new transaction.
+   * If some change fails, the changes applied so far are reverted before the exception is thrown, so the caller
+   * is expected to roll its transaction back.
+   */
+  @Throws(ProjectDatabaseException::class)
+  fun replayUndo(taskManager: TaskManager)
+
+  /** Applies the collected changes to the task model once again. */
+  @Throws(ProjectDatabaseException::class)
+  fun replayRedo(taskManager: TaskManager)
 }
 
 typealias ColumnConsumer = Pair<SimpleSelect, (Int, Any?)->Unit>
@@ -73,6 +107,12 @@ interface ProjectDatabase {
     }
   }
 
+  /** Database rows captured from the task model, which can be inserted on any thread. */
+  fun interface BulkLoad {
+    @Throws(ProjectDatabaseException::class)
+    fun execute()
+  }
+
   /** Initialize the database. */
   @Throws(ProjectDatabaseException::class)
   fun init()
@@ -90,6 +130,20 @@ interface ProjectDatabase {
   @Throws(ProjectDatabaseException::class)
   fun insertTaskDependency(taskDependency: TaskDependency)
 
+  /**
+   * Reads the rows of the tasks with their custom column values and the dependencies. The task model is not
+   * thread-safe, so this must be called on the thread which owns it, while the returned load, which inserts
+   * the rows in a single transaction, may run in the background.
+   * This is the fast path for loading the whole project into an empty database. The inserted rows are
+   * the baseline state, so they are not written to the log.
+   */
+  @Throws(ProjectDatabaseException::class)
+  fun prepareBulkLoad(tasks: List<Task>, dependencies: List<TaskDependency>): BulkLoad
+
+  /** Insert the tasks with their custom column values and the dependencies in a single transaction. */
+  @Throws(ProjectDatabaseException::class)
+  fun bulkLoad(tasks: List<Task>, dependencies: List<TaskDependency>) = prepareBulkLoad(tasks, dependencies).execute()
+
   /** Close connections and release the resources. */
   @Throws(ProjectDatabaseException::class)
   fun shutdown()
@@ -114,6 +168,42 @@ interface ProjectDatabase {
   @Throws(ProjectDatabaseException::class)
   fun mapTasks(vararg columnConsumer: ColumnConsumer)
 
+  /** Same as mapTasks, but runs the query only against the tasks with the given UIDs. */
+  @Throws(ProjectDatabaseException::class)
+  fun mapTasks(taskUids: Collection<String>, vararg columnConsumer: ColumnConsumer)
+
   @Throws(ProjectDatabaseException::class)
   fun validateColumnConsumer(columnConsumer: ColumnConsumer)
+
+  /**
+   * Notifies the database that the task model was changed in a way which the database doesn't record.
+   * The current transaction, if any, becomes incomplete.
+   */
+  fun registerUnrecordedChange(description: String)
 }
+
+/** Replaces the database contents with the current tasks and dependencies of the task model. */
+@Throws(ProjectDatabaseException::class)
+fun ProjectDatabase.reload(taskManager: TaskManager) {
+  shutdown()
+  bulkLoad(taskManager.tasks.toList(), taskManager.dependencyCollection.dependencies.toList())
+}
+
+/**
+ * Brings the database in agreement with the task model after undo or redo of an edit which was recorded
+ * in the given transaction. The task model is reloaded if the transaction is missing or incomplete, or if it fails.
+ */
+@Throws(ProjectDatabaseException::class)
+fun ProjectDatabase.syncUndoRedo(txn: ProjectDatabaseTxn?, isUndo: Boolean, taskManager: TaskManager) {
+  if (txn != null && txn.isComplete) {
+    try {
+      if (isUndo) txn.undo() else txn.redo()
+      return
+    } catch (e: ProjectDatabaseException) {
+      LOG.error("Failed to apply transaction, reloading the project database {}", e)
+    }
+  }
+  reload(taskManager)
+}
+
+private val LOG = GPLogger.create("ProjectDatabase")
@@ -34,7 +34,7 @@ import javax.swing.event.UndoableEditEvent
  * @param projectDatabase - database which holds the current project state.
  */
 internal class ProjectEventListenerImpl(
-  private val projectDatabase: ProjectDatabase, private val taskManagerSupplier: ()-> TaskManager)
+  private val projectDatabase: LazyProjectDatabaseProxy, private val taskManagerSupplier: ()-> TaskManager)
   : TaskListener, ProjectEventListener.Stub(), GPUndoListener {
 
   private fun withLogger(errorMessage: () -> String, body: () -> Unit) {
@@ -47,7 +47,13 @@ internal class ProjectEventListenerImpl(
 
   override fun projectOpened(barrierRegistry: BarrierEntrance, barrier: Barrier<IGanttProject>) {
     projectDatabase.shutdown()
-    barrier.await { it.taskManager.tasks.forEach(projectDatabase::insertTask) }
+    barrier.await { project ->
+      withLogger({ "Failed to load the tasks into the project database" }) {
+        projectDatabase.bulkLoadInBackground(
+          project.taskManager.tasks.toList(), project.taskManager.dependencyCollection.dependencies.toList()
+        )
+      }
+    }
   }
 
   override fun projectClosed() = withLogger({ "Failed to close project" }) {
@@ -63,25 +69,17 @@ internal class ProjectEventListenerImpl(
     // ...
   }
 
-  override fun dependencyAdded(e: TaskDependencyEvent) {
-    // ...
-  }
+  // The changes below are not recorded in the project database yet, so the transaction which contains them
+  // can't be applied on undo and redo.
+  override fun dependencyAdded(e: TaskDependencyEvent) = registerUnrecordedChange { "Dependency added: ${e.dependency}" }
 
-  override fun dependencyRemoved(e: TaskDependencyEvent) {
-    // ...
-  }
+  override fun dependencyRemoved(e: TaskDependencyEvent) = registerUnrecordedChange { "Dependency removed: ${e.dependency}" }
 
-  override fun dependencyChanged(e: TaskDependencyEvent) {
-    // ...
-  }
+  override fun dependencyChanged(e: TaskDependencyEvent) = registerUnrecordedChange { "Dependency changed: ${e.dependency}" }
 
-  override fun taskRemoved(e: TaskHierarchyEvent) {
-    // ...
-  }
+  override fun taskRemoved(e: TaskHierarchyEvent) = registerUnrecordedChange { "Task removed: ${e.task.uid}" }
 
-  override fun taskMoved(e: TaskHierarchyEvent) {
-    // ...
-  }
+  override fun taskMoved(e: TaskHierarchyEvent) = registerUnrecordedChange { "Task moved: ${e.task.uid}" }
 
   override fun taskPropertiesChanged(e: TaskPropertyEvent) {
     // ...
@@ -91,16 +89,17 @@ internal class ProjectEventListenerImpl(
     // ...
   }
 
-  override fun taskModelReset() {
-    // ...
+  override fun taskModelReset() = registerUnrecordedChange { "Task model reset" }
+
+  private fun registerUnrecordedChange(description: () -> String) = withLogger({ "Failed to register change" }) {
+    projectDatabase.registerUnrecordedChange(description())
   }
 
   override fun undoableEditHappened(e: UndoableEditEvent?) {
   }
 
   override fun undoOrRedoHappened() {
-    projectDatabase.shutdown()
-    taskManagerSupplier().tasks.forEach(projectDatabase::insertTask)
+    // The undone or redone edit has already applied its transaction to the project database.
   }
 
   override fun undoReset() {
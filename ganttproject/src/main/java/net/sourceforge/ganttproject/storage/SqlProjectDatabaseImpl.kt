@@ -25,11 +25,14 @@ import biz.ganttproject.core.time.TimeDuration
 import biz.ganttproject.customproperty.CustomProperty
 import biz.ganttproject.customproperty.CustomPropertyHolder
 import biz.ganttproject.storage.db.Tables.*
+import biz.ganttproject.storage.db.tables.records.LogrecordRecord
 import biz.ganttproject.storage.db.tables.records.TaskRecord
 import kotlinx.serialization.json.Json
 import net.sourceforge.ganttproject.GPLogger
 import net.sourceforge.ganttproject.storage.ProjectDatabase.TaskUpdateBuilder
 import net.sourceforge.ganttproject.task.Task
+import net.sourceforge.ganttproject.task.TaskManager
+import net.sourceforge.ganttproject.task.TaskMutator
 import net.sourceforge.ganttproject.task.dependency.TaskDependency
 import net.sourceforge.ganttproject.util.ColorConvertion
 import org.h2.jdbcx.JdbcDataSource
@@ -38,10 +41,17 @@ import org.jooq.conf.ParamType
 import org.jooq.impl.DSL
 import org.jooq.impl.DSL.field
 import java.awt.Color
+import java.math.BigDecimal
 import java.sql.SQLException
 import javax.sql.DataSource
 
-class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDatabase {
+/**
+ * @param xlogFormat - format of the operations written to the log. Records in any format can be fetched.
+ */
+class SqlProjectDatabaseImpl(
+  private val dataSource: DataSource,
+  private val xlogFormat: XlogFormat = XlogFormat.JSON
+) : ProjectDatabase {
   companion object Factory {
     fun createInMemoryDatabase(): ProjectDatabase {
       val dataSource = JdbcDataSource()
@@ -50,6 +60,12 @@ class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDataba
     }
   }
 
+  /** Prepared statements of the write transactions. */
+  private val statementCache = SqlStatementCache(dataSource)
+
+  /** Number of the prepared statements which are kept for the write transactions. */
+  val cachedStatementCount: Int get() = statementCache.size
+
   /** Queries which belong to the current transaction. Null if each statement should be committed separately. */
   private var currentTxn: TransactionImpl? = null
   private var localTxnId: Int = -1
@@ -73,32 +89,39 @@ class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDataba
   }
 
   /** Execute queries and save their logs as a transaction with the specified ID. */
-  private fun executeAndLog(queries: List<SqlQuery>, localTxnId: Int): Unit = withDSL({ "Failed to commit transaction" }) { dsl ->
-    dsl.transaction { config ->
-      val context = DSL.using(config)
-      queries.forEach {
-        try {
-          LOG.debug("SQL: ${it.sqlStatementH2}")
-          context.execute(it.sqlStatementH2)
-          if (isLogStarted) {
-            context
-              .insertInto(LOGRECORD)
-              .set(LOGRECORD.LOCAL_TXN_ID, localTxnId)
-              .set(LOGRECORD.OPERATION_DTO_JSON, Json.encodeToString(OperationDto.serializer(), it.colloboqueOperationDto))
-              .execute()
+  private fun executeAndLog(queries: List<SqlQuery>, localTxnId: Int) {
+    try {
+      statementCache.transaction {
+        queries.forEach {
+          try {
+            LOG.debug("SQL: {}", it.query)
+            statementCache.execute(it.query)
+            if (isLogStarted) {
+              statementCache.execute(buildInsertLogRecordQuery(localTxnId, it.colloboqueOperationDto))
+            }
+          } catch (e: Exception) {
+            val errorMessage = "Failed to execute or log txnId=$localTxnId\n ${it.sqlStatementH2}"
+            LOG.error(errorMessage)
+            throw ProjectDatabaseException(errorMessage, e)
           }
-        } catch (e: Exception) {
-          val errorMessage = "Failed to execute or log txnId=$localTxnId\n ${it.sqlStatementH2}"
-          LOG.error(errorMessage)
-          throw ProjectDatabaseException(errorMessage, e)
         }
       }
+    } catch (e: SQLException) {
+      throw ProjectDatabaseException("Failed to commit transaction", e)
+    }
+  }
+
+  private fun buildInsertLogRecordQuery(localTxnId: Int, operationDto: OperationDto): Query {
+    val insert = DSL.using(SQLDialect.H2).insertInto(LOGRECORD).set(LOGRECORD.LOCAL_TXN_ID, localTxnId)
+    return when (xlogFormat) {
+      XlogFormat.JSON -> insert.set(LOGRECORD.OPERATION_DTO_JSON, Json.encodeToString(OperationDto.serializer(), operationDto))
+      XlogFormat.BINARY -> insert.set(LOGRECORD.OPERATION_DTO_BYTES, OperationDtoBinaryCodec.encode(operationDto))
     }
   }
 
   /** Add a query to the current txn. Executes immediately if no transaction started. */
-  private fun withLog(buildQuery: (dsl: DSLContext) -> String,
-                      buildUndoQuery: (dsl: DSLContext) -> String,
+  private fun withLog(buildQuery: (dsl: DSLContext) -> Query,
+                      buildUndoQuery: (dsl: DSLContext) -> Query,
                       colloboqueOperationDto: OperationDto,
                       colloboqueUndoOperationDto: OperationDto) {
     val query = SqlQuery(buildQuery(DSL.using(SQLDialect.H2)), colloboqueOperationDto)
@@ -128,16 +151,15 @@ class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDataba
 
   private val isLogStarted get() = localTxnId >= 0
 
-  override fun createTaskUpdateBuilder(task: Task): TaskUpdateBuilder = SqlTaskUpdateBuilder(task, this::update)
+  override fun createTaskUpdateBuilder(task: Task): TaskUpdateBuilder = SqlTaskUpdateBuilder(task, this::update, this::updateModel)
 
   @Throws(ProjectDatabaseException::class)
   override fun insertTask(task: Task) {
-    val queryBuilder = { dsl: DSLContext -> buildInsertTaskQuery(dsl, task).getSQL(ParamType.INLINED) }
+    val queryBuilder = { dsl: DSLContext -> buildInsertTaskQuery(dsl, task) }
     val undoQueryBuilder = { dsl: DSLContext ->
       dsl
         .deleteFrom(TASK)
         .where(TASK.UID.eq(task.uid))
-        .getSQL(ParamType.INLINED)
     }
     val insertDto = buildInsertTaskDto(task)
     val deleteDto = OperationDto.DeleteOperationDto(
@@ -157,14 +179,12 @@ class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDataba
         .set(TASKDEPENDENCY.TYPE, taskDependency.constraint.type.persistentValue)
         .set(TASKDEPENDENCY.LAG, taskDependency.difference)
         .set(TASKDEPENDENCY.HARDNESS, taskDependency.hardness.identifier)
-        .getSQL(ParamType.INLINED)
     }
     val undoQueryBuilder = { dsl: DSLContext ->
       dsl
         .deleteFrom(TASKDEPENDENCY)
         .where(TASKDEPENDENCY.DEPENDANT_UID.eq(taskDependency.dependant.uid)
           .and(TASKDEPENDENCY.DEPENDEE_UID.eq(taskDependency.dependee.uid)))
-        .getSQL(ParamType.INLINED)
 
     }
     val insertDto = OperationDto.InsertOperationDto(
@@ -187,8 +207,46 @@ class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDataba
     withLog(queryBuilder, undoQueryBuilder, insertDto, deleteDto)
   }
 
+  @Throws(ProjectDatabaseException::class)
+  override fun prepareBulkLoad(tasks: List<Task>, dependencies: List<TaskDependency>): ProjectDatabase.BulkLoad {
+    if (currentTxn != null) throw ProjectDatabaseException("Can't bulk load in a transaction: $currentTxn")
+    val dsl = DSL.using(SQLDialect.H2)
+    val taskRecords = tasks.map { buildTaskRecord(dsl, it) }
+    val customValueRecords = tasks.flatMap { task ->
+      task.customValues.customProperties.map {
+        dsl.newRecord(TASKCUSTOMCOLUMN).also { record ->
+          record.set(TASKCUSTOMCOLUMN.UID, task.uid)
+          record.set(TASKCUSTOMCOLUMN.COLUMN_ID, it.definition.id)
+          record.set(TASKCUSTOMCOLUMN.COLUMN_VALUE, it.valueAsString)
+          record.changed(true)
+        }
+      }
+    }
+    val dependencyRecords = dependencies.map {
+      dsl.newRecord(TASKDEPENDENCY).also { record ->
+        record.set(TASKDEPENDENCY.DEPENDEE_UID, it.dependee.uid)
+        record.set(TASKDEPENDENCY.DEPENDANT_UID, it.dependant.uid)
+        record.set(TASKDEPENDENCY.TYPE, it.constraint.type.persistentValue)
+        record.set(TASKDEPENDENCY.LAG, it.difference)
+        record.set(TASKDEPENDENCY.HARDNESS, it.hardness.identifier)
+      }
+    }
+    return ProjectDatabase.BulkLoad {
+      withDSL({ "Failed to load ${tasks.size} tasks and ${dependencies.size} dependencies" }) { dsl ->
+        dsl.transaction { config ->
+          val context = DSL.using(config)
+          // Records of the same table render the same statement, and jOOQ executes them as one JDBC batch.
+          context.batchInsert(taskRecords).execute()
+          context.batchInsert(customValueRecords).execute()
+          context.batchInsert(dependencyRecords).execute()
+        }
+      }
+    }
+  }
+
   @Throws(ProjectDatabaseException::class)
   override fun shutdown() {
+    statementCache.close()
     try {
       dataSource.connection.use { it.createStatement().execute("shutdown") }
     } catch (e: Exception) {
@@ -204,6 +262,12 @@ class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDataba
     }
   }
 
+  internal fun rollbackTransaction(txn: TransactionImpl) {
+    if (currentTxn === txn) {
+      currentTxn = null
+    }
+  }
+
   @Throws(ProjectDatabaseException::class)
   internal fun commitTransaction(queries: List<SqlQuery>) {
     try {
@@ -223,11 +287,15 @@ class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDataba
       .selectFrom(LOGRECORD)
       .where(LOGRECORD.LOCAL_TXN_ID.ge(startLocalTxnId).and(LOGRECORD.LOCAL_TXN_ID.lt(startLocalTxnId + limit)))
       .orderBy(LOGRECORD.LOCAL_TXN_ID, LOGRECORD.ID)
-      .fetchGroups(LOGRECORD.LOCAL_TXN_ID, LOGRECORD.OPERATION_DTO_JSON)
+      .fetchGroups(LOGRECORD.LOCAL_TXN_ID)
       .values
-      .map { XlogRecord(it.map { str -> Json.decodeFromString(OperationDto.serializer(), str) }) }
+      .map { records -> XlogRecord(records.map { decodeOperation(it) }) }
   }
 
+  private fun decodeOperation(record: LogrecordRecord): OperationDto =
+    record.operationDtoBytes?.let(OperationDtoBinaryCodec::decode)
+      ?: Json.decodeFromString(OperationDto.serializer(), record.operationDtoJson)
+
   override fun findTasks(whereExpression: String, lookupById: (Int)->Task?): List<Task> {
     return withDSL({"Failed to execute query $whereExpression"}) { dsl ->
       dsl.select(TASK.NUM).from(TASK).where(whereExpression).mapNotNull {
@@ -239,13 +307,21 @@ class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDataba
   fun SelectSelectStep<Record>.select(col: ColumnConsumer?): SelectSelectStep<Record> =
     col?.let { this.select(field(it.first.selectExpression, it.first.resultClass)!!.`as`(col.first.propertyId))} ?: this
 
-  override fun mapTasks(vararg columnConsumer: ColumnConsumer) {
+  override fun mapTasks(vararg columnConsumer: ColumnConsumer) = mapTasks(DSL.noCondition(), columnConsumer)
+
+  override fun mapTasks(taskUids: Collection<String>, vararg columnConsumer: ColumnConsumer) {
+    if (taskUids.isNotEmpty()) {
+      mapTasks(TASK.UID.`in`(taskUids), columnConsumer)
+    }
+  }
+
+  private fun mapTasks(condition: Condition, columnConsumer: Array<out ColumnConsumer>) {
     withDSL { dsl ->
       var q: SelectSelectStep<out Record> = dsl.select(TASK.NUM)
       columnConsumer.forEach {
         q = q.select(field(it.first.selectExpression, it.first.resultClass).`as`(it.first.propertyId))
       }
-      q.from(TASK).forEach {row  ->
+      q.from(TASK).where(condition).forEach {row  ->
         val taskNum = row[TASK.NUM]
         columnConsumer.forEach {
           it.second(taskNum, row[it.first.propertyId])
@@ -263,23 +339,118 @@ class SqlProjectDatabaseImpl(private val dataSource: DataSource) : ProjectDataba
     }
   }
 
+  override fun registerUnrecordedChange(description: String) {
+    currentTxn?.addUnrecordedChange(description)
+  }
+
+  /**
+   * Compares the database contents with the task model and describes the found differences. The list is empty
+   * if they agree. This reads all the tables, so it is meant to be run in the tests.
+   */
+  @Throws(ProjectDatabaseException::class)
+  fun findInconsistencies(taskManager: TaskManager): List<String> = withDSL({ "Failed to check the database consistency" }) { dsl ->
+    val result = mutableListOf<String>()
+    val taskRecords = dsl.selectFrom(TASK).fetchMap(TASK.UID)
+    val tasks = taskManager.tasks
+    tasks.forEach { task ->
+      val actual = taskRecords[task.uid]
+      if (actual == null) {
+        result.add("Task ${task.uid} is not in the database")
+        return@forEach
+      }
+      val expected = buildTaskRecord(dsl, task)
+      TASK.fields().filterNot { isSameValue(expected[it], actual[it]) }.forEach {
+        result.add("Task ${task.uid}: ${it.name}=${actual[it]} in the database, ${expected[it]} in the model")
+      }
+    }
+    (taskRecords.keys - tasks.map { it.uid }.toSet()).forEach { result.add("Task $it is not in the model") }
+
+    val customValues = dsl.selectFrom(TASKCUSTOMCOLUMN).fetch { Triple(it.uid, it.columnId, it.columnValue) }.toSet()
+    val modelCustomValues = tasks.flatMap { task ->
+      task.customValues.customProperties.map { Triple(task.uid, it.definition.id, it.valueAsString) }
+    }.toSet()
+    (modelCustomValues - customValues).forEach { result.add("Custom value $it is not in the database") }
+    (customValues - modelCustomValues).forEach { result.add("Custom value $it is not in the model") }
+
+    val dependencies = dsl.selectFrom(TASKDEPENDENCY).fetch {
+      listOf(it.dependeeUid, it.dependantUid, it.type, it.lag, it.hardness)
+    }.toSet()
+    val modelDependencies = taskManager.dependencyCollection.dependencies.map {
+      listOf(it.dependee.uid, it.dependant.uid, it.constraint.type.persistentValue, it.difference, it.hardness.identifier)
+    }.toSet()
+    (modelDependencies - dependencies).forEach { result.add("Dependency $it is not in the database") }
+    (dependencies - modelDependencies).forEach { result.add("Dependency $it is not in the model") }
+    result
+  }
+
   /** Add update query and save its xlog in the current transaction. */
   @Throws(ProjectDatabaseException::class)
   internal fun update(queries: List<SqlQuery>, undoQueries: List<SqlUndoQuery>) = withLog(queries, undoQueries)
+
+  /** Add the task model counterpart of the update queries to the current transaction, if any. */
+  internal fun updateModel(update: TaskModelUpdate, undoUpdate: TaskModelUpdate) {
+    currentTxn?.add(update, undoUpdate)
+  }
+}
+
+// UID of the task inserted or updated by this operation, null if it changes something else
+private fun OperationDto.taskUid(): String? = when (this) {
+  is OperationDto.InsertOperationDto ->
+    if (tableName.equals(TASK.name, ignoreCase = true)) values[TASK.UID.name] else null
+  is OperationDto.UpdateOperationDto ->
+    if (tableName.equals(TASK.name, ignoreCase = true)) {
+      updateBinaryConditions.firstOrNull { it.first == TASK.UID.name && it.second == BinaryPred.EQ }?.third
+    } else null
+  else -> null
 }
 
+// Numeric columns come back with the column scale, so 1.5 is read as 1.50
+private fun isSameValue(expected: Any?, actual: Any?) =
+  if (expected is BigDecimal && actual is BigDecimal) expected.compareTo(actual) == 0 else expected == actual
+
+/**
+ * Parameterised query for H2 and its operation for the log. The inlined SQL text is rendered only when
+ * it is requested, e.g. for an error message.
+ */
 data class SqlQuery(
-  val sqlStatementH2: String,
+  val query: Query,
   val colloboqueOperationDto: OperationDto
-)
+) {
+  val sqlStatementH2: String by lazy { query.getSQL(ParamType.INLINED) }
+}
 
 typealias SqlUndoQuery = SqlQuery
 
+/**
+ * Changes of a single task, recorded together with the update queries, which can be applied to the in-memory
+ * task model without reloading the project.
+ */
+class TaskModelUpdate(private val taskId: Int, private val changes: List<(TaskMutator) -> Unit>) {
+  @Throws(ProjectDatabaseException::class)
+  fun apply(taskManager: TaskManager) {
+    val task = taskManager.getTask(taskId) ?: throw ProjectDatabaseException("Task with id=$taskId not found")
+    task.createMutator().let { mutator ->
+      changes.forEach { it(mutator) }
+      mutator.commit()
+    }
+  }
+}
+
 class TransactionImpl(private val database: SqlProjectDatabaseImpl, private val title: String): ProjectDatabaseTxn {
   private val statements = mutableListOf<SqlQuery>()
   private val undoStatements = mutableListOf<SqlQuery>()
+  private val modelUpdates = mutableListOf<TaskModelUpdate>()
+  private val modelUndoUpdates = mutableListOf<TaskModelUpdate>()
 
   private var isCommitted: Boolean = false
+  private var hasStatementsWithoutModelUpdates = false
+  private val unrecordedChanges = mutableListOf<String>()
+
+  override val isReplayable: Boolean get() = !hasStatementsWithoutModelUpdates && isComplete
+
+  override val isComplete: Boolean get() = unrecordedChanges.isEmpty()
+
+  override val taskUids: Set<String> get() = statements.mapNotNullTo(LinkedHashSet()) { it.colloboqueOperationDto.taskUid() }
 
   override fun commit() {
     if (isCommitted) throw ProjectDatabaseException("Transaction is already committed")
@@ -287,6 +458,15 @@ class TransactionImpl(private val database: SqlProjectDatabaseImpl, private val
     isCommitted = true
   }
 
+  override fun rollback() {
+    if (isCommitted) throw ProjectDatabaseException("Transaction is already committed")
+    statements.clear()
+    undoStatements.clear()
+    modelUpdates.clear()
+    modelUndoUpdates.clear()
+    database.rollbackTransaction(this)
+  }
+
   override fun undo() {
     if (!isCommitted) throw ProjectDatabaseException("Cannot undo uncommitted transaction")
     database.commitTransaction(undoStatements.reversed())
@@ -297,10 +477,37 @@ class TransactionImpl(private val database: SqlProjectDatabaseImpl, private val
     database.commitTransaction(statements)
   }
 
+  override fun replayUndo(taskManager: TaskManager) =
+    replay(taskManager, modelUndoUpdates.zip(modelUpdates).reversed())
+
+  override fun replayRedo(taskManager: TaskManager) =
+    replay(taskManager, modelUpdates.zip(modelUndoUpdates))
+
+  // Applies the first update of each pair. If some update fails, the second updates of the pairs applied so far
+  // revert them in the reverse order.
+  private fun replay(taskManager: TaskManager, updates: List<Pair<TaskModelUpdate, TaskModelUpdate>>) {
+    if (!isCommitted) throw ProjectDatabaseException("Cannot replay uncommitted transaction")
+    if (!isReplayable) throw ProjectDatabaseException("Transaction $title has changes which can't be replayed in the task model")
+    updates.forEachIndexed { idx, (update, _) ->
+      try {
+        update.apply(taskManager)
+      } catch (e: Exception) {
+        try {
+          updates.subList(0, idx).asReversed().forEach { (_, revert) -> revert.apply(taskManager) }
+        } catch (revertError: Exception) {
+          e.addSuppressed(revertError)
+        }
+        throw e as? ProjectDatabaseException ?: ProjectDatabaseException("Failed to replay transaction $title", e)
+      }
+    }
+  }
+
   internal fun add(query: SqlQuery, undoQuery: SqlQuery) {
     if (isCommitted) throw ProjectDatabaseException("Txn was already committed")
     statements.add(query)
     undoStatements.add(undoQuery)
+    // Inserted tasks and dependencies have no counterpart in the task model updates.
+    hasStatementsWithoutModelUpdates = true
   }
 
   internal fun add(queries: List<SqlQuery>, undoQueries: List<SqlUndoQuery>) {
@@ -309,8 +516,18 @@ class TransactionImpl(private val database: SqlProjectDatabaseImpl, private val
     undoStatements.addAll(undoQueries.reversed())
   }
 
+  internal fun addUnrecordedChange(description: String) {
+    unrecordedChanges.add(description)
+  }
+
+  internal fun add(update: TaskModelUpdate, undoUpdate: TaskModelUpdate) {
+    if (isCommitted) throw ProjectDatabaseException("Txn was already committed")
+    modelUpdates.add(update)
+    modelUndoUpdates.add(undoUpdate)
+  }
+
   override fun toString(): String {
-    return "TransactionImpl(title='$title', statements=$statements)\n\n"
+    return "TransactionImpl(title='$title', statements=$statements, unrecordedChanges=$unrecordedChanges)\n\n"
   }
 }
 
@@ -322,7 +539,7 @@ internal class SqlTaskCustomPropertiesUpdateBuilder(
   internal var commit: () -> Unit = {}
 
   private fun generateStatements(customProperties: CustomPropertyHolder, isUndoOperation: Boolean): List<SqlQuery> {
-    val h2statements = mutableListOf<String>()
+    val h2statements = mutableListOf<Query>()
     val colloboqueUpdateDtos = mutableListOf<OperationDto>()
 
     val generateDeleteFnForH2 = {
@@ -348,11 +565,10 @@ internal class SqlTaskCustomPropertiesUpdateBuilder(
     }
   }
 
-  private fun generateDeleteStatement(dsl: DSLContext, customProperties: CustomPropertyHolder): String =
+  private fun generateDeleteStatement(dsl: DSLContext, customProperties: CustomPropertyHolder): Query =
     dsl.deleteFrom(TASKCUSTOMCOLUMN)
       .where(TASKCUSTOMCOLUMN.UID.eq(task.uid))
       .and(TASKCUSTOMCOLUMN.COLUMN_ID.notIn(customProperties.customProperties.map { it.definition.id }))
-      .getSQL(ParamType.INLINED)
 
   private fun generateDeleteDto(customProperties: CustomPropertyHolder): OperationDto.DeleteOperationDto =
     OperationDto.DeleteOperationDto(
@@ -365,10 +581,9 @@ internal class SqlTaskCustomPropertiesUpdateBuilder(
       )
     )
 
-  private fun generateDeleteStatementAllColumns(dsl: DSLContext): String =
+  private fun generateDeleteStatementAllColumns(dsl: DSLContext): Query =
     dsl.deleteFrom(TASKCUSTOMCOLUMN)
       .where(TASKCUSTOMCOLUMN.UID.eq(task.uid))
-      .getSQL(ParamType.INLINED)
 
   private fun generateDeleteDtoAllColumns(): OperationDto.DeleteOperationDto =
     OperationDto.DeleteOperationDto(
@@ -378,14 +593,13 @@ internal class SqlTaskCustomPropertiesUpdateBuilder(
       )
     )
 
-  private fun generateMergeStatements(customProperties: List<CustomProperty>, dsl: ()->DSLContext) =
+  private fun generateMergeStatements(customProperties: List<CustomProperty>, dsl: ()->DSLContext): List<Query> =
     customProperties.map {
       dsl().mergeInto(TASKCUSTOMCOLUMN).using(DSL.selectOne())
         .on(TASKCUSTOMCOLUMN.UID.eq(task.uid)).and(TASKCUSTOMCOLUMN.COLUMN_ID.eq(it.definition.id))
         .whenMatchedThenUpdate().set(TASKCUSTOMCOLUMN.COLUMN_VALUE, it.valueAsString)
         .whenNotMatchedThenInsert(TASKCUSTOMCOLUMN.UID, TASKCUSTOMCOLUMN.COLUMN_ID, TASKCUSTOMCOLUMN.COLUMN_VALUE)
         .values(task.uid, it.definition.id, it.valueAsString)
-        .getSQL(ParamType.INLINED)
     }
 
   private fun generateMergeDtos(customProperties: List<CustomProperty>) =
@@ -411,7 +625,8 @@ internal class SqlTaskCustomPropertiesUpdateBuilder(
 
 
 class SqlTaskUpdateBuilder(private val task: Task,
-                           private val onCommit: (List<SqlQuery>, List<SqlUndoQuery>) -> Unit): TaskUpdateBuilder {
+                           private val onCommit: (List<SqlQuery>, List<SqlUndoQuery>) -> Unit,
+                           private val onModelCommit: (TaskModelUpdate, TaskModelUpdate) -> Unit = { _, _ -> }): TaskUpdateBuilder {
   private var lastSetStepH2: UpdateSetMoreStep<TaskRecord>? = null
   private var updateDtoColloboque: OperationDto.UpdateOperationDto? = null
 
@@ -420,6 +635,9 @@ class SqlTaskUpdateBuilder(private val task: Task,
 
   private val customPropertiesUpdater = SqlTaskCustomPropertiesUpdateBuilder(task, onCommit)
 
+  private val modelChanges = mutableListOf<(TaskMutator) -> Unit>()
+  private val modelUndoChanges = mutableListOf<(TaskMutator) -> Unit>()
+
   private fun nextStep(stepH2: (lastStep: UpdateSetStep<TaskRecord>) -> UpdateSetMoreStep<TaskRecord>,
                        stepColloboque: (lastStep: OperationDto.UpdateOperationDto) -> OperationDto.UpdateOperationDto) {
     lastSetStepH2 = stepH2(lastSetStepH2 ?: DSL.using(SQLDialect.H2).update(TASK))
@@ -447,14 +665,19 @@ class SqlTaskUpdateBuilder(private val task: Task,
     )
   }
 
+  private fun <T> appendModelUpdate(oldValue: T, newValue: T, setter: TaskMutator.(T) -> Unit) {
+    modelChanges.add { it.setter(newValue) }
+    modelUndoChanges.add { it.setter(oldValue) }
+  }
+
 
   @Throws(ProjectDatabaseException::class)
   override fun commit() {
-    val finalH2 = lastSetStepH2?.where(TASK.UID.eq(task.uid))?.getSQL(ParamType.INLINED)
+    val finalH2 = lastSetStepH2?.where(TASK.UID.eq(task.uid))
     updateDtoColloboque?.updateBinaryConditions?.add(Triple(TASK.UID.name, BinaryPred.EQ, task.uid))
     val finalDtoColloboque = updateDtoColloboque
 
-    val finalUndoH2 = lastUndoSetStepH2?.where(TASK.UID.eq(task.uid))?.getSQL(ParamType.INLINED)
+    val finalUndoH2 = lastUndoSetStepH2?.where(TASK.UID.eq(task.uid))
     undoUpdateDtoColloboque?.updateBinaryConditions?.add(Triple(TASK.UID.name, BinaryPred.EQ, task.uid))
     val finalUndoDtoColloboque = undoUpdateDtoColloboque
 
@@ -467,34 +690,55 @@ class SqlTaskUpdateBuilder(private val task: Task,
       onCommit(listOf(SqlQuery(finalH2, finalDtoColloboque)), undoQueries)
     }
     customPropertiesUpdater.commit()
+    if (modelChanges.isNotEmpty()) {
+      onModelCommit(TaskModelUpdate(task.taskID, modelChanges.toList()), TaskModelUpdate(task.taskID, modelUndoChanges.toList()))
+    }
   }
 
-  override fun setName(oldName: String?, newName: String?) = appendUpdate(TASK.NAME, oldName, newName)
+  override fun setName(oldName: String?, newName: String?) {
+    appendUpdate(TASK.NAME, oldName, newName)
+    appendModelUpdate(oldName, newName) { it?.let(::setName) }
+  }
 
-  override fun setMilestone(oldValue: Boolean, newValue: Boolean) =
+  override fun setMilestone(oldValue: Boolean, newValue: Boolean) {
     appendUpdate(TASK.IS_MILESTONE, oldValue, newValue)
+    appendModelUpdate(oldValue, newValue) { setMilestone(it) }
+  }
 
-  override fun setPriority(oldValue: Task.Priority?, newValue: Task.Priority?) =
+  override fun setPriority(oldValue: Task.Priority?, newValue: Task.Priority?) {
     appendUpdate(TASK.PRIORITY, oldValue?.persistentValue, newValue?.persistentValue)
+    appendModelUpdate(oldValue, newValue) { it?.let(::setPriority) }
+  }
 
-  override fun setStart(oldValue: GanttCalendar, newValue: GanttCalendar) =
+  override fun setStart(oldValue: GanttCalendar, newValue: GanttCalendar) {
     appendUpdate(TASK.START_DATE, oldValue.toLocalDate(), newValue.toLocalDate())
+    appendModelUpdate(oldValue, newValue) { setStart(it) }
+  }
 
-  override fun setDuration(oldValue: TimeDuration, newValue: TimeDuration) =
+  override fun setDuration(oldValue: TimeDuration, newValue: TimeDuration) {
     appendUpdate(TASK.DURATION, oldValue.length, newValue.length)
+    appendModelUpdate(oldValue, newValue) { setDuration(it) }
+  }
 
-  override fun setCompletionPercentage(oldValue: Int, newValue: Int) =
+  override fun setCompletionPercentage(oldValue: Int, newValue: Int) {
     appendUpdate(TASK.COMPLETION, oldValue, newValue)
+    appendModelUpdate(oldValue, newValue) { completionPercentage = it }
+  }
 
-  override fun setShape(oldValue: ShapePaint?, newValue: ShapePaint?) =
+  override fun setShape(oldValue: ShapePaint?, newValue: ShapePaint?) {
     appendUpdate(TASK.SHAPE, oldValue?.array, newValue?.array)
+    appendModelUpdate(oldValue, newValue) { setShape(it) }
+  }
 
-  override fun setColor(oldValue: Color?, newValue: Color?) =
+  override fun setColor(oldValue: Color?, newValue: Color?) {
     appendUpdate(TASK.COLOR, oldValue?.let(ColorConvertion::getColor), newValue?.let(ColorConvertion::getColor))
+    appendModelUpdate(oldValue, newValue) { setColor(it) }
+  }
 
   override fun setCost(oldValue: Task.Cost, newValue: Task.Cost) {
     appendUpdate(TASK.IS_COST_CALCULATED, oldValue.isCalculated, newValue.isCalculated)
     appendUpdate(TASK.COST_MANUAL_VALUE, oldValue.manualValue, newValue.manualValue)
+    appendModelUpdate(oldValue, newValue) { setCost(it) }
   }
 
   override fun setCustomProperties(
@@ -502,19 +746,28 @@ class SqlTaskUpdateBuilder(private val task: Task,
     newCustomProperties: CustomPropertyHolder
   ) {
     customPropertiesUpdater.setCustomProperties(oldCustomProperties, newCustomProperties)
+    appendModelUpdate(oldCustomProperties, newCustomProperties) { setCustomProperties(it) }
   }
 
-  override fun setWebLink(oldValue: String?, newValue: String?) = appendUpdate(TASK.WEB_LINK, oldValue, newValue)
+  override fun setWebLink(oldValue: String?, newValue: String?) {
+    appendUpdate(TASK.WEB_LINK, oldValue, newValue)
+    appendModelUpdate(oldValue, newValue) { setWebLink(it) }
+  }
 
 
-  override fun setNotes(oldValue: String?, newValue: String?) = appendUpdate(TASK.NOTES, oldValue, newValue)
+  override fun setNotes(oldValue: String?, newValue: String?) {
+    appendUpdate(TASK.NOTES, oldValue, newValue)
+    appendModelUpdate(oldValue, newValue) { setNotes(it) }
+  }
 
   override fun setCritical(oldValue: Boolean, newValue: Boolean) {
     // TODO("Not yet implemented")
   }
 
-  override fun setProjectTask(oldValue: Boolean, newValue: Boolean) =
+  override fun setProjectTask(oldValue: Boolean, newValue: Boolean) {
     appendUpdate(TASK.IS_PROJECT_TASK, oldValue, newValue)
+    appendModelUpdate(oldValue, newValue) { setProjectTask(it) }
+  }
 }
 
 private fun Task.logId(): String = "${uid}:${taskID}"
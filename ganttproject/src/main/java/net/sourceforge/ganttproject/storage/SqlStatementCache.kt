@@ -0,0 +1,99 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an open-source project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package net.sourceforge.ganttproject.storage
+
+import org.jooq.Query
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.SQLException
+import javax.sql.DataSource
+
+/**
+ * Keeps a connection for the write transactions and the prepared statements created on it, one per distinct
+ * SQL text. Queries are rendered with bind parameters, so the statements of the same shape, e.g. updates of
+ * the same set of task fields, are parsed and planned by H2 only once.
+ *
+ * The least recently used statements are closed when there are more than `capacity` of them.
+ */
+internal class SqlStatementCache(private val dataSource: DataSource, private val capacity: Int = 64) {
+  private var connection: Connection? = null
+  private val statements = object : LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+    override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, PreparedStatement>): Boolean =
+      (size > capacity).also { if (it) eldest.value.close() }
+  }
+
+  /** Number of the prepared statements in the cache. */
+  val size: Int
+    @Synchronized get() = statements.size
+
+  /** Runs the body in a transaction on the cached connection. The transaction is rolled back if the body fails. */
+  @Synchronized
+  @Throws(SQLException::class)
+  fun <T> transaction(body: () -> T): T {
+    val conn = getConnection()
+    try {
+      return body().also { conn.commit() }
+    } catch (e: Exception) {
+      try {
+        conn.rollback()
+      } catch (rollbackError: SQLException) {
+        // The connection is unusable, we'll open a new one for the next transaction.
+        close()
+      }
+      throw e
+    }
+  }
+
+  /** Executes the query with a prepared statement, which is created on the first use of the query SQL text. */
+  @Synchronized
+  @Throws(SQLException::class)
+  fun execute(query: Query): Int {
+    val sql = query.sql
+    val statement = statements.getOrPut(sql) { getConnection().prepareStatement(sql) }
+    query.bindValues.forEachIndexed { idx, value -> statement.setObject(idx + 1, value) }
+    return statement.executeUpdate()
+  }
+
+  /** Closes the statements and the connection. A new connection will be opened when needed. */
+  @Synchronized
+  fun close() {
+    statements.values.forEach { it.closeQuietly() }
+    statements.clear()
+    connection?.closeQuietly()
+    connection = null
+  }
+
+  private fun getConnection(): Connection {
+    connection?.let { if (!it.isClosed) return it }
+    // The database might have been shut down, so the statements of the old connection are useless.
+    close()
+    return dataSource.connection.also {
+      it.autoCommit = false
+      connection = it
+    }
+  }
+}
+
+private fun AutoCloseable.closeQuietly() {
+  try {
+    close()
+  } catch (e: Exception) {
+    // Nothing to do with it.
+  }
+}
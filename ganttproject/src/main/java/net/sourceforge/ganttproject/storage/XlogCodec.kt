@@ -0,0 +1,241 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an open-source project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package net.sourceforge.ganttproject.storage
+
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+
+/** Format of the operations stored in the LogRecord table. */
+enum class XlogFormat {
+  /** Operation serialized to JSON, stored in operation_dto_json column. */
+  JSON,
+
+  /** Operation encoded with [OperationDtoBinaryCodec], stored in operation_dto_bytes column. */
+  BINARY
+}
+
+/**
+ * Compact binary encoding of OperationDto.
+ *
+ * Table and column names are written as indexes in a dictionary of the known names, other strings are
+ * written as UTF-8 bytes prefixed with the length. Lengths, sizes and indexes are unsigned varints,
+ * enum values are written as ordinals.
+ */
+object OperationDtoBinaryCodec {
+  private const val VERSION = 1
+
+  private const val INSERT = 0
+  private const val UPDATE = 1
+  private const val DELETE = 2
+  private const val MERGE = 3
+
+  // Names of the tables and columns of the project database. The encoded records refer to the names by their
+  // positions in this list, so new names may only be appended.
+  private val DICTIONARY = listOf(
+    "task", "taskcustomcolumn", "taskdependency",
+    "uid", "num", "name", "color", "shape", "is_milestone", "is_project_task", "start_date", "duration",
+    "completion", "earliest_start_date", "priority", "web_link", "cost_manual_value", "is_cost_calculated", "notes",
+    "column_id", "column_value",
+    "dependee_uid", "dependant_uid", "type", "lag", "hardness"
+  )
+  private val DICTIONARY_INDEX = DICTIONARY.withIndex().associate { it.value to it.index }
+
+  fun encode(dto: OperationDto): ByteArray {
+    val bytes = ByteArrayOutputStream()
+    DataOutputStream(bytes).use { out ->
+      out.writeByte(VERSION)
+      when (dto) {
+        is OperationDto.InsertOperationDto -> {
+          out.writeByte(INSERT)
+          out.writeName(dto.tableName)
+          out.writeMap(dto.values) { out.writeNullableString(it) }
+        }
+        is OperationDto.UpdateOperationDto -> {
+          out.writeByte(UPDATE)
+          out.writeName(dto.tableName)
+          out.writeBinaryConditions(dto.updateBinaryConditions)
+          out.writeRangeConditions(dto.updateRangeConditions)
+          out.writeMap(dto.newValues) { out.writeString(it) }
+        }
+        is OperationDto.DeleteOperationDto -> {
+          out.writeByte(DELETE)
+          out.writeName(dto.tableName)
+          out.writeBinaryConditions(dto.deleteBinaryConditions)
+          out.writeRangeConditions(dto.deleteRangeConditions)
+        }
+        is OperationDto.MergeOperationDto -> {
+          out.writeByte(MERGE)
+          out.writeName(dto.tableName)
+          out.writeBinaryConditions(dto.mergeBinaryConditions)
+          out.writeRangeConditions(dto.mergeRangeConditions)
+          out.writeMap(dto.whenMatchedThenUpdate) { out.writeString(it) }
+          out.writeMap(dto.whenNotMatchedThenInsert) { out.writeString(it) }
+        }
+      }
+    }
+    return bytes.toByteArray()
+  }
+
+  @Throws(IOException::class)
+  fun decode(bytes: ByteArray): OperationDto = DataInputStream(ByteArrayInputStream(bytes)).use { input ->
+    val version = input.readUnsignedByte()
+    if (version != VERSION) throw IOException("Unsupported operation encoding version $version")
+    when (val kind = input.readUnsignedByte()) {
+      INSERT -> OperationDto.InsertOperationDto(
+        input.readName(),
+        input.readMap { input.readNullableString() }
+      )
+      UPDATE -> OperationDto.UpdateOperationDto(
+        input.readName(),
+        input.readBinaryConditions(),
+        input.readRangeConditions(),
+        input.readMap { input.readString() }
+      )
+      DELETE -> OperationDto.DeleteOperationDto(
+        input.readName(),
+        input.readBinaryConditions(),
+        input.readRangeConditions()
+      )
+      MERGE -> OperationDto.MergeOperationDto(
+        input.readName(),
+        input.readBinaryConditions(),
+        input.readRangeConditions(),
+        input.readMap { input.readString() },
+        input.readMap { input.readString() }
+      )
+      else -> throw IOException("Unknown operation kind $kind")
+    }
+  }
+
+  // Name is written as 1 + its dictionary index, or as 0 followed by the string itself.
+  private fun DataOutputStream.writeName(name: String) {
+    val idx = DICTIONARY_INDEX[name]
+    if (idx == null) {
+      writeVarInt(0)
+      writeString(name)
+    } else {
+      writeVarInt(idx + 1)
+    }
+  }
+
+  private fun DataInputStream.readName(): String {
+    val code = readVarInt()
+    return if (code == 0) readString() else DICTIONARY.getOrNull(code - 1) ?: throw IOException("Unknown name code $code")
+  }
+
+  private fun DataOutputStream.writeString(value: String) {
+    val bytes = value.toByteArray(Charsets.UTF_8)
+    writeVarInt(bytes.size)
+    write(bytes)
+  }
+
+  private fun DataInputStream.readString(): String =
+    ByteArray(readVarInt()).also { readFully(it) }.toString(Charsets.UTF_8)
+
+  // Null is written as 0, other strings as 1 + their byte length followed by the bytes.
+  private fun DataOutputStream.writeNullableString(value: String?) {
+    if (value == null) {
+      writeVarInt(0)
+    } else {
+      val bytes = value.toByteArray(Charsets.UTF_8)
+      writeVarInt(bytes.size + 1)
+      write(bytes)
+    }
+  }
+
+  private fun DataInputStream.readNullableString(): String? {
+    val length = readVarInt()
+    return if (length == 0) null else ByteArray(length - 1).also { readFully(it) }.toString(Charsets.UTF_8)
+  }
+
+  private fun <V> DataOutputStream.writeMap(map: Map<String, V>, writeValue: (V) -> Unit) {
+    writeVarInt(map.size)
+    map.forEach { (key, value) ->
+      writeName(key)
+      writeValue(value)
+    }
+  }
+
+  private fun <V> DataInputStream.readMap(readValue: () -> V): MutableMap<String, V> {
+    val size = readVarInt()
+    return LinkedHashMap<String, V>(size * 2).also { map ->
+      repeat(size) { map[readName()] = readValue() }
+    }
+  }
+
+  private fun DataOutputStream.writeBinaryConditions(conditions: List<Triple<String, BinaryPred, String>>) {
+    writeVarInt(conditions.size)
+    conditions.forEach {
+      writeName(it.first)
+      writeByte(it.second.ordinal)
+      writeString(it.third)
+    }
+  }
+
+  private fun DataInputStream.readBinaryConditions(): MutableList<Triple<String, BinaryPred, String>> =
+    MutableList(readVarInt()) {
+      Triple(readName(), readEnum(BinaryPred.values()), readString())
+    }
+
+  private fun DataOutputStream.writeRangeConditions(conditions: List<Triple<String, RangePred, List<String>>>) {
+    writeVarInt(conditions.size)
+    conditions.forEach {
+      writeName(it.first)
+      writeByte(it.second.ordinal)
+      writeVarInt(it.third.size)
+      it.third.forEach { value -> writeString(value) }
+    }
+  }
+
+  private fun DataInputStream.readRangeConditions(): MutableList<Triple<String, RangePred, List<String>>> =
+    MutableList(readVarInt()) {
+      Triple(readName(), readEnum(RangePred.values()), List(readVarInt()) { readString() })
+    }
+
+  private fun <E : Enum<E>> DataInputStream.readEnum(values: Array<E>): E {
+    val ordinal = readUnsignedByte()
+    return values.getOrNull(ordinal) ?: throw IOException("Unknown enum ordinal $ordinal")
+  }
+
+  private fun DataOutputStream.writeVarInt(value: Int) {
+    var v = value
+    while (v and 0x7F.inv() != 0) {
+      writeByte((v and 0x7F) or 0x80)
+      v = v ushr 7
+    }
+    writeByte(v)
+  }
+
+  private fun DataInputStream.readVarInt(): Int {
+    var result = 0
+    var shift = 0
+    while (shift < 32) {
+      val b = readUnsignedByte()
+      result = result or ((b and 0x7F) shl shift)
+      if (b and 0x80 == 0) {
+        return result
+      }
+      shift += 7
+    }
+    throw IOException("Malformed varint")
+  }
+}
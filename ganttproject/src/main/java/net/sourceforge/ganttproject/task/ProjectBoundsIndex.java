@@ -0,0 +1,120 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an opensource project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package net.sourceforge.ganttproject.task;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps the earliest start and the latest end of the registered tasks.
+ *
+ * Task dates are often changed directly, without any events, so tasks report that their dates might
+ * have changed with {@link #markDirty(Task)} and the index re-reads the dates of such tasks on the next
+ * query. Querying the bounds when nothing has changed takes O(1) time, and after k task changes
+ * it takes O(k log n) time.
+ */
+class ProjectBoundsIndex {
+  // Recorded {start, end} of every registered task, null if the task is not counted in the bounds
+  private final Map<Task, long[]> myTaskBounds = new HashMap<>();
+  // Multisets of the recorded start and end dates: date -> number of tasks
+  private final TreeMap<Long, Integer> myStarts = new TreeMap<>();
+  private final TreeMap<Long, Integer> myEnds = new TreeMap<>();
+  private final Set<Task> myDirtyTasks = new LinkedHashSet<>();
+
+  void add(Task task) {
+    myTaskBounds.put(task, null);
+    myDirtyTasks.add(task);
+  }
+
+  void remove(Task task) {
+    long[] bounds = myTaskBounds.remove(task);
+    if (bounds != null) {
+      decrement(myStarts, bounds[0]);
+      decrement(myEnds, bounds[1]);
+    }
+    myDirtyTasks.remove(task);
+  }
+
+  void markDirty(Task task) {
+    if (myTaskBounds.containsKey(task)) {
+      myDirtyTasks.add(task);
+    }
+  }
+
+  void markAllDirty() {
+    myDirtyTasks.addAll(myTaskBounds.keySet());
+  }
+
+  void clear() {
+    myTaskBounds.clear();
+    myStarts.clear();
+    myEnds.clear();
+    myDirtyTasks.clear();
+  }
+
+  /**
+   * @return the earliest start of the tasks which are not deleted or null if there are no such tasks
+   */
+  Date getStart() {
+    flush();
+    return myStarts.isEmpty() ? null : new Date(myStarts.firstKey());
+  }
+
+  /**
+   * @return the latest end of the tasks which are not deleted or null if there are no such tasks
+   */
+  Date getEnd() {
+    flush();
+    return myEnds.isEmpty() ? null : new Date(myEnds.lastKey());
+  }
+
+  private void flush() {
+    if (myDirtyTasks.isEmpty()) {
+      return;
+    }
+    // Reading the dates may compute and cache the task end, so we copy the dirty set first.
+    List<Task> dirtyTasks = new ArrayList<>(myDirtyTasks);
+    myDirtyTasks.clear();
+    for (Task task : dirtyTasks) {
+      long[] oldBounds = myTaskBounds.get(task);
+      if (oldBounds != null) {
+        decrement(myStarts, oldBounds[0]);
+        decrement(myEnds, oldBounds[1]);
+      }
+      if (task.isDeleted()) {
+        myTaskBounds.put(task, null);
+        continue;
+      }
+      long[] newBounds = new long[] {task.getStart().getTime().getTime(), task.getEnd().getTime().getTime()};
+      myTaskBounds.put(task, newBounds);
+      myStarts.merge(newBounds[0], 1, Integer::sum);
+      myEnds.merge(newBounds[1], 1, Integer::sum);
+    }
+  }
+
+  private static void decrement(TreeMap<Long, Integer> multiset, long key) {
+    multiset.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+  }
+}
@@ -21,6 +21,7 @@ package net.sourceforge.ganttproject.task;
 import net.sourceforge.ganttproject.resource.HumanResource;
 import net.sourceforge.ganttproject.resource.HumanResourceManager;
 import net.sourceforge.ganttproject.roles.Role;
+import net.sourceforge.ganttproject.task.algorithm.CostAlgorithmImpl;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -91,6 +92,7 @@ class ResourceAssignmentCollectionImpl implements ResourceAssignmentCollection {
   @Override
   public void deleteAssignment(HumanResource resource) {
     myAssignments.remove(resource);
+    CostAlgorithmImpl.invalidateCalculatedCosts();
   }
 
   private ResourceAssignment auxAddAssignment(HumanResource resource) {
@@ -101,6 +103,7 @@ class ResourceAssignmentCollectionImpl implements ResourceAssignmentCollection {
 
   private void addAssignment(ResourceAssignment assignment) {
     myAssignments.put(assignment.getResource(), assignment);
+    CostAlgorithmImpl.invalidateCalculatedCosts();
   }
 
   /**
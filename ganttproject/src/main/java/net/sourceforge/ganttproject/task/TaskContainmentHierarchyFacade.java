@@ -36,6 +36,15 @@ public interface TaskContainmentHierarchyFacade {
 
   boolean hasNestedTasks(Task container);
 
+  /** @return the number of tasks nested directly in the container */
+  int getNestedTaskCount(Task container);
+
+  /**
+   * @return the task at the given index among the tasks nested directly in the container. Together with
+   *         {@link #getNestedTaskCount(Task)} allows for iterating over the nested tasks without creating arrays
+   */
+  Task getNestedTask(Task container, int index);
+
   Task getRootTask();
 
   Task getContainer(Task nestedTask);
@@ -99,6 +108,16 @@ public interface TaskContainmentHierarchyFacade {
       return false;
     }
 
+    @Override
+    public int getNestedTaskCount(Task container) {
+      return 0;
+    }
+
+    @Override
+    public Task getNestedTask(Task container, int index) {
+      throw new IndexOutOfBoundsException();
+    }
+
     @Override
     public Task getRootTask() {
       return null;
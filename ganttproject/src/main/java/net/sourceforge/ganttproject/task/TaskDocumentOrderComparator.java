@@ -30,15 +30,6 @@ public class TaskDocumentOrderComparator implements Comparator<Task> {
     myHierarchy = Suppliers.ofInstance(hierarchy);
   }
 
-  TaskDocumentOrderComparator(final TaskManagerImpl taskManager) {
-    myHierarchy = new Supplier<TaskContainmentHierarchyFacade>() {
-      @Override
-      public TaskContainmentHierarchyFacade get() {
-        return taskManager.getTaskHierarchy();
-      }
-    };
-  }
-
   @Override
   public int compare(Task task1, Task tasl2) {
     // TODO assert can be removed since it is checked by Java compiler?
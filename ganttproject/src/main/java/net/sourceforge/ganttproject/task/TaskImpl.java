@@ -475,10 +475,9 @@ public class TaskImpl implements Task {
 
   @Override
   public Task[] getNestedTasks() {
-    TaskHierarchyItem[] nestedItems = myTaskHierarchyItem.getNestedItems();
-    Task[] result = new Task[nestedItems.length];
-    for (int i = 0; i < nestedItems.length; i++) {
-      result[i] = nestedItems[i].getTask();
+    Task[] result = new Task[myTaskHierarchyItem.getNestedItemCount()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = myTaskHierarchyItem.getNestedItem(i).getTask();
     }
     return result;
   }
@@ -492,9 +491,10 @@ public class TaskImpl implements Task {
   public void move(Task targetSupertask, int position) {
     TaskImpl supertaskImpl = (TaskImpl) targetSupertask;
     TaskHierarchyItem targetItem = supertaskImpl.myTaskHierarchyItem;
+    Task oldSupertask = getSupertask();
     myTaskHierarchyItem.delete();
     targetItem.addNestedItem(myTaskHierarchyItem, position);
-    myManager.onTaskMoved(this);
+    myManager.onTaskMoved(this, oldSupertask);
   }
 
   @Override
@@ -502,6 +502,7 @@ public class TaskImpl implements Task {
   @Override
   public void delete() {
     isDeleted = true;
+    myManager.onTaskDatesChanged(this);
     getDependencies().clear();
     getAssignmentCollection().clear();
     myTaskHierarchyItem.delete();
@@ -542,6 +543,7 @@ public class TaskImpl implements Task {
   @Override
   public void setMilestone(boolean milestone) {
     isMilestone = milestone;
+    myManager.onTaskDatesChanged(this);
     if (milestone) {
       setEnd(null);
     }
@@ -557,6 +559,7 @@ public class TaskImpl implements Task {
     Date closestWorkingStart = myManager.findClosestWorkingTime(start.getTime());
     start.setTime(closestWorkingStart);
     myStart = start;
+    myManager.onTaskDatesChanged(this);
     recalculateActivities();
     adjustNestedTasks();
   }
@@ -584,6 +587,7 @@ public class TaskImpl implements Task {
   @Override
   public void setEnd(GanttCalendar end) {
     myEnd = end;
+    myManager.onTaskDatesChanged(this);
     recalculateActivities();
   }
 
@@ -604,6 +608,7 @@ public class TaskImpl implements Task {
 
     myLength = length;
     myEnd = null;
+    myManager.onTaskDatesChanged(this);
     recalculateActivities();
   }
 
@@ -649,6 +654,7 @@ public class TaskImpl implements Task {
   public void setCompletionPercentage(int percentage) {
     if (percentage != myCompletionPercentage) {
       myCompletionPercentage = percentage;
+      myManager.onTaskCompletionChanged(this);
     }
   }
 
@@ -736,6 +742,9 @@ public class TaskImpl implements Task {
   private class CostImpl implements Cost {
     private BigDecimal myValue = BigDecimal.ZERO;
     private boolean isCalculated = true;
+    // Cached calculated value and the cost modification epoch when it was calculated
+    private BigDecimal myCalculatedValue;
+    private long myCalculatedEpoch;
 
     @Override
     public BigDecimal getValue() {
@@ -749,7 +758,12 @@ public class TaskImpl implements Task {
 
     @Override
     public BigDecimal getCalculatedValue() {
-      return new CostAlgorithmImpl().getCalculatedCost(TaskImpl.this);
+      long epoch = CostAlgorithmImpl.getEpoch();
+      if (myCalculatedValue == null || myCalculatedEpoch != epoch) {
+        myCalculatedValue = new CostAlgorithmImpl().getCalculatedCost(TaskImpl.this);
+        myCalculatedEpoch = epoch;
+      }
+      return myCalculatedValue;
     }
 
 //    public void setValue(BigDecimal value) {
@@ -759,6 +773,7 @@ public class TaskImpl implements Task {
     public void setValue(Cost copy) {
       myValue = copy.getValue();
       isCalculated = copy.isCalculated();
+      CostAlgorithmImpl.invalidateCalculatedCosts();
     }
 
     @Override
@@ -107,6 +107,7 @@ internal fun createMutatorFixingDuration(myManager: TaskManagerImpl, task: TaskI
     override fun setStart(start: GanttCalendar) {
       super.setStart(start)
       task.myEnd = null
+      myManager.onTaskDatesChanged(task)
     }
 
 
@@ -182,6 +183,13 @@ internal open class MutatorImpl(
 
 
   override fun commit() {
+    // Property, progress and schedule events of this commit come to the batch listeners together
+    myManager.startEventBatch().use {
+      commitChanges()
+    }
+  }
+
+  private fun commitChanges() {
     if (isCommitted) {
       throw IllegalStateException("Mutator for task ${taskImpl.taskID} is commiting twice")
     }
@@ -334,17 +342,17 @@ internal open class MutatorImpl(
 
   override fun setCost(cost: Task.Cost) { costChange.setValue(cost) }
 
-  override fun setShape(shape: ShapePaint) { shapeChange.setValue(shape) }
+  override fun setShape(shape: ShapePaint?) { shapeChange.setValue(shape) }
 
-  override fun setColor(color: Color) { colorChange.setValue(color) }
+  override fun setColor(color: Color?) { colorChange.setValue(color) }
 
   override fun setCustomProperties(customProperties: CustomPropertyHolder) {
     customPropertiesChange.setValue(customProperties)
   }
 
-  override fun setWebLink(webLink: String) { webLinkChange.setValue(webLink) }
+  override fun setWebLink(webLink: String?) { webLinkChange.setValue(webLink) }
 
-  override fun setNotes(notes: String) { notesChange.setValue(notes) }
+  override fun setNotes(notes: String?) { notesChange.setValue(notes) }
 
   override fun getCompletionPercentage() = myCompletionPercentageChange.newValueOrElse { taskImpl.myCompletionPercentage }
 
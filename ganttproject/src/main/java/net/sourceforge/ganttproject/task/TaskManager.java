@@ -37,6 +37,7 @@ import net.sourceforge.ganttproject.task.algorithm.DependencyGraph;
 import biz.ganttproject.core.model.task.ConstraintType;
 import net.sourceforge.ganttproject.task.dependency.TaskDependencyCollection;
 import net.sourceforge.ganttproject.task.dependency.TaskDependencyConstraint;
+import net.sourceforge.ganttproject.task.event.TaskBatchListener;
 import net.sourceforge.ganttproject.task.event.TaskListener;
 
 import java.awt.*;
@@ -167,6 +168,24 @@ public interface TaskManager {
 
   public TaskBuilder newTaskBuilder();
 
+  /**
+   * Bulk update of the task model, see {@link #startBulkUpdate()}. Closing it more than once has no effect.
+   */
+  interface BulkUpdate extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * Starts a bulk update, e.g. loading or importing many tasks and dependencies at once.
+   * Until the returned object is closed, task listeners are not notified, the algorithms do not run
+   * and the dependency graph does not update its layers on every change. When it is closed,
+   * the graph layers are built once, the algorithms run once and listeners receive a single
+   * {@link net.sourceforge.ganttproject.task.event.TaskListener#taskModelReset()} event.
+   * Bulk updates may be nested, in which case closing the outermost one finishes the update.
+   */
+  BulkUpdate startBulkUpdate();
+
   Task[] getTasks();
 
   public Task getRootTask();
@@ -205,6 +224,27 @@ public interface TaskManager {
 
   void addTaskListener(TaskListener listener);
 
+  /**
+   * Adds a listener which receives task events in batches, see {@link #startEventBatch()}.
+   * Events which are fired outside any batch are delivered in batches of a single event.
+   */
+  void addTaskBatchListener(TaskBatchListener listener);
+
+  /**
+   * Batch of task events, see {@link #startEventBatch()}. Closing it more than once has no effect.
+   */
+  interface EventBatch extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * Starts collecting task events for the batch listeners. Events are still dispatched to the task listeners
+   * one by one, and batch listeners receive all events collected until the returned object is closed
+   * in a single batch. Batches may be nested, in which case the events are delivered when the outermost one is closed.
+   */
+  EventBatch startEventBatch();
+
   public class Access {
     public static TaskManager newInstance(TaskContainmentHierarchyFacade.Factory containmentFacadeFactory,
         TaskManagerConfig config) {
@@ -9,9 +9,7 @@ import biz.ganttproject.app.BarrierEntrance;
 import biz.ganttproject.core.calendar.AlwaysWorkingTimeCalendarImpl;
 import biz.ganttproject.core.calendar.GPCalendarCalc;
 import biz.ganttproject.core.calendar.GPCalendarListener;
-import biz.ganttproject.core.chart.scene.BarChartActivity;
 import biz.ganttproject.core.chart.scene.gantt.ChartBoundsAlgorithm;
-import biz.ganttproject.core.chart.scene.gantt.ChartBoundsAlgorithm.Result;
 import biz.ganttproject.core.model.task.ConstraintType;
 import biz.ganttproject.core.option.*;
 import biz.ganttproject.core.time.*;
@@ -41,7 +39,9 @@ import org.jetbrains.annotations.NotNull;
 
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -59,6 +59,12 @@ public class TaskManagerImpl implements TaskManager {
 
   private final List<TaskListener> myListeners = new ArrayList<>();
 
+  private final List<TaskBatchListener> myBatchListeners = new ArrayList<>();
+
+  // Events collected for the batch listeners until the outermost event batch is closed
+  private TaskEventBatch myEventBatch;
+  private int myEventBatchDepth;
+
   private final AtomicInteger myMaxID = new AtomicInteger(0);
 
   private final TaskImpl myRoot;
@@ -90,23 +96,31 @@ public class TaskManagerImpl implements TaskManager {
     }
   });
 
-  private final AlgorithmBase myScheduler;
+  private final SchedulerOptional myScheduler;
 
   private boolean areEventsEnabled = true;
 
+  // Number of bulk updates which are not closed yet and the state which is restored when the outermost one is closed
+  private int myBulkUpdateDepth;
+  private boolean areEventsEnabledBeforeBulkUpdate;
+  private boolean isCompletionEnabledBeforeBulkUpdate;
+
+  /**
+   * Registered tasks indexed by their IDs. The array of tasks in the document order is maintained using
+   * the order labels of the hierarchy items: tasks which were added or moved since the last call of
+   * getTasks() are merged into the previously built array, without sorting the whole array.
+   */
   private static class TaskMap {
+    private static final Comparator<Task> BY_ORDER_LABEL = Comparator.comparingLong(TaskMap::getOrderLabel);
+
     private final Map<Integer, Task> myId2task = new HashMap<>();
-    private final TaskDocumentOrderComparator myComparator;
+    private final Set<Task> myChangedTasks = new LinkedHashSet<>();
     private boolean isModified = true;
     private Task[] myArray;
 
-    TaskMap(TaskManagerImpl taskManager) {
-      myComparator = new TaskDocumentOrderComparator(taskManager);
-    }
-
     void addTask(Task task) {
       myId2task.put(task.getTaskID(), task);
-      isModified = true;
+      onTaskChanged(task);
     }
 
     Task getTask(int id) {
@@ -116,14 +130,42 @@ public class TaskManagerImpl implements TaskManager {
     public Task[] getTasks() {
       if (isModified) {
         myArray = myId2task.values().stream().filter(t -> !t.isDeleted())
-          .sorted(myComparator).toArray(Task[]::new);
+          .sorted(BY_ORDER_LABEL).toArray(Task[]::new);
+        myChangedTasks.clear();
         isModified = false;
+      } else if (!myChangedTasks.isEmpty()) {
+        myArray = mergeChangedTasks();
+        myChangedTasks.clear();
       }
       return myArray;
     }
 
+    private Task[] mergeChangedTasks() {
+      List<Task> changed = myChangedTasks.stream()
+        .filter(t -> !t.isDeleted() && myId2task.get(t.getTaskID()) == t)
+        .sorted(BY_ORDER_LABEL).collect(Collectors.toList());
+      Task[] result = new Task[myArray.length + changed.size()];
+      int size = 0;
+      int idxChanged = 0;
+      for (Task t : myArray) {
+        if (t.isDeleted() || myChangedTasks.contains(t)) {
+          continue;
+        }
+        long label = getOrderLabel(t);
+        while (idxChanged < changed.size() && getOrderLabel(changed.get(idxChanged)) < label) {
+          result[size++] = changed.get(idxChanged++);
+        }
+        result[size++] = t;
+      }
+      while (idxChanged < changed.size()) {
+        result[size++] = changed.get(idxChanged++);
+      }
+      return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
     public void clear() {
       myId2task.clear();
+      myChangedTasks.clear();
       isModified = true;
     }
 
@@ -135,17 +177,30 @@ public class TaskManagerImpl implements TaskManager {
       return myId2task.isEmpty();
     }
 
-    void setDirty() {
-      isModified = true;
+    /**
+     * Called when the task was added, removed or moved in the hierarchy, which changes its order label.
+     */
+    void onTaskChanged(Task task) {
+      if (!isModified) {
+        myChangedTasks.add(task);
+      }
     }
 
     public void removeAllTasks(Iterable<Task> tasks) {
-      tasks.forEach(t -> myId2task.remove(t.getTaskID()));
-      isModified = true;
+      tasks.forEach(t -> {
+        myId2task.remove(t.getTaskID());
+        onTaskChanged(t);
+      });
+    }
+
+    private static long getOrderLabel(Task task) {
+      return ((TaskImpl) task).myTaskHierarchyItem.getOrderLabel();
     }
   }
 
-  private final TaskMap myTaskMap = new TaskMap(this);
+  private final TaskMap myTaskMap = new TaskMap();
+
+  private final ProjectBoundsIndex myProjectBounds = new ProjectBoundsIndex();
 
   private final CustomPropertyListenerImpl myCustomPropertyListener;
 
@@ -169,11 +224,13 @@ public class TaskManagerImpl implements TaskManager {
     myConfig = config;
     myScheduler = new SchedulerOptional(
         config.getSchedulerDisabledOption(),
-        new SchedulerImpl(myDependencyGraph, myHierarchySupplier)
+        new SchedulerImpl(myDependencyGraph, myHierarchySupplier, ForkJoinPool.commonPool())
     );
     myDependencyGraph.addListener(() -> {
       if (areEventsEnabled) {
-        myScheduler.run();
+        try (var eventBatch = startEventBatch()) {
+          myScheduler.runIncremental();
+        }
       }
     });
     myHierarchyManager = new TaskHierarchyManagerImpl();
@@ -213,6 +270,11 @@ public class TaskManagerImpl implements TaskManager {
         return TaskManagerImpl.this.getTaskHierarchy();
       }
 
+      @Override
+      protected DependencyGraph getDependencyGraph() {
+        return myDependencyGraph;
+      }
+
     };
     AdjustTaskBoundsAlgorithm alg3 = new AdjustTaskBoundsAlgorithm() {
       @Override
@@ -239,7 +301,10 @@ public class TaskManagerImpl implements TaskManager {
       @Override
       public void dependencyChanged(@NotNull TaskDependencyEvent e) {
         if (areEventsEnabled) {
-          myScheduler.run();
+          myDependencyGraph.markDirty(e.getDependency().getDependant());
+          try (var eventBatch = startEventBatch()) {
+            myScheduler.runIncremental();
+          }
         }
       }
 
@@ -317,6 +382,8 @@ public class TaskManagerImpl implements TaskManager {
   private void projectClosed() {
     myDependencyGraph.clear();
     myTaskMap.clear();
+    myProjectBounds.clear();
+    myAlgorithmCollection.getRecalculateTaskCompletionPercentageAlgorithm().reset();
     myMaxID.set(0);
     myDependencyCollection.clear();
     myRoot.myTaskHierarchyItem.clearChildren();
@@ -325,6 +392,7 @@ public class TaskManagerImpl implements TaskManager {
 
   private void projectOpened() {
     processCriticalPath(getRootTask());
+    myAlgorithmCollection.getRecalculateTaskCompletionPercentageAlgorithm().reset();
     myAlgorithmCollection.getRecalculateTaskCompletionPercentageAlgorithm().run();
   }
 
@@ -337,6 +405,10 @@ public class TaskManagerImpl implements TaskManager {
     myTaskMap.removeAllTasks(Arrays.asList(nestedTasks));
     Task container = getTaskHierarchy().getContainer(tasktoRemove);
     myTaskMap.removeAllTasks(Collections.singleton(tasktoRemove));
+    for (Task t : nestedTasks) {
+      myProjectBounds.remove(t);
+    }
+    myProjectBounds.remove(tasktoRemove);
     tasktoRemove.delete();
     fireTaskRemoved(container, tasktoRemove);
   }
@@ -390,6 +462,48 @@ public class TaskManagerImpl implements TaskManager {
     };
   }
 
+  @Override
+  public BulkUpdate startBulkUpdate() {
+    if (myBulkUpdateDepth++ == 0) {
+      areEventsEnabledBeforeBulkUpdate = areEventsEnabled;
+      areEventsEnabled = false;
+      var completionAlgorithm = myAlgorithmCollection.getRecalculateTaskCompletionPercentageAlgorithm();
+      isCompletionEnabledBeforeBulkUpdate = completionAlgorithm.isEnabled();
+      completionAlgorithm.setEnabled(false);
+      myDependencyGraph.startBulkUpdate();
+    }
+    return new BulkUpdate() {
+      private boolean isClosed;
+
+      @Override
+      public void close() {
+        if (!isClosed) {
+          isClosed = true;
+          finishBulkUpdate();
+        }
+      }
+    };
+  }
+
+  private void finishBulkUpdate() {
+    if (--myBulkUpdateDepth > 0) {
+      return;
+    }
+    // Events are still disabled here, so the graph listener doesn't run the incremental scheduler
+    // and we run the full one instead.
+    myDependencyGraph.finishBulkUpdate();
+    myScheduler.run();
+    var completionAlgorithm = myAlgorithmCollection.getRecalculateTaskCompletionPercentageAlgorithm();
+    completionAlgorithm.setEnabled(isCompletionEnabledBeforeBulkUpdate);
+    completionAlgorithm.reset();
+    completionAlgorithm.run();
+    areEventsEnabled = areEventsEnabledBeforeBulkUpdate;
+    processCriticalPath(getRootTask());
+    if (areEventsEnabled) {
+      fireTaskModelReset();
+    }
+  }
+
   protected TimeUnitStack getTimeUnitStack() {
     return getConfig().getTimeUnitStack();
   }
@@ -405,6 +519,7 @@ public class TaskManagerImpl implements TaskManager {
     myTaskMap.addTask(task);
     myMaxID.set(Math.max(taskID + 1, myMaxID.get()));
     myDependencyGraph.addTask(task);
+    myProjectBounds.add(task);
   }
 
   boolean isRegistered(TaskImpl task) {
@@ -416,55 +531,43 @@ public class TaskManagerImpl implements TaskManager {
     return myTaskMap.size();
   }
 
-  private static Iterable<BarChartActivity<?>> tasksToActivities(Task[] tasks) {
-    return Arrays.stream(tasks).map(task -> new BarChartActivity<Task>() {
-      @Override
-      public Date getStart() {
-        return task.getStart().getTime();
-      }
-
-      @Override
-      public Date getEnd() {
-        return task.getEnd().getTime();
-      }
-
-      @Override
-      public TimeDuration getDuration() {
-        return task.getDuration();
-      }
-
-      @Override
-      public Task getOwner() {
-        return task;
-      }
-    }).collect(Collectors.toList());
-  }
-
   @Override
   public TimeDuration getProjectLength() {
-    if (myTaskMap.isEmpty()) {
+    Date start = myProjectBounds.getStart();
+    if (start == null) {
       return createLength(getConfig().getTimeUnitStack().getDefaultTimeUnit(), 0);
     }
-    Result result = getAlgorithmCollection().getProjectBoundsAlgorithm().getBounds(tasksToActivities(myTaskMap.getTasks()));
-    return createLength(getConfig().getTimeUnitStack().getDefaultTimeUnit(), result.lowerBound, result.upperBound);
+    return createLength(getConfig().getTimeUnitStack().getDefaultTimeUnit(), start, myProjectBounds.getEnd());
   }
 
   @Override
   public Date getProjectStart() {
-    if (myTaskMap.isEmpty()) {
-      return myRoot.getStart().getTime();
-    }
-    Result result = getAlgorithmCollection().getProjectBoundsAlgorithm().getBounds(tasksToActivities(myTaskMap.getTasks()));
-    return result.lowerBound;
+    Date start = myProjectBounds.getStart();
+    return start == null ? myRoot.getStart().getTime() : start;
   }
 
   @Override
   public Date getProjectEnd() {
-    if (myTaskMap.isEmpty()) {
-      return myRoot.getStart().getTime();
+    Date end = myProjectBounds.getEnd();
+    return end == null ? myRoot.getStart().getTime() : end;
+  }
+
+  /**
+   * Called by tasks when their dates might have changed, so that the project bounds are recalculated.
+   */
+  void onTaskDatesChanged(Task task) {
+    myProjectBounds.markDirty(task);
+    CostAlgorithmImpl.invalidateCalculatedCosts();
+    // Root task is created before the algorithms
+    if (myAlgorithmCollection != null) {
+      myAlgorithmCollection.getRecalculateTaskCompletionPercentageAlgorithm().onTaskChanged(task);
+    }
+  }
+
+  void onTaskCompletionChanged(Task task) {
+    if (myAlgorithmCollection != null) {
+      myAlgorithmCollection.getRecalculateTaskCompletionPercentageAlgorithm().onTaskChanged(task);
     }
-    Result result = getAlgorithmCollection().getProjectBoundsAlgorithm().getBounds(tasksToActivities(myTaskMap.getTasks()));
-    return result.upperBound;
   }
 
   @Override
@@ -640,6 +743,64 @@ public class TaskManagerImpl implements TaskManager {
     myListeners.add(listener);
   }
 
+  @Override
+  public void addTaskBatchListener(TaskBatchListener listener) {
+    myBatchListeners.add(listener);
+  }
+
+  @Override
+  public EventBatch startEventBatch() {
+    myEventBatchDepth++;
+    return new EventBatch() {
+      private boolean isClosed;
+
+      @Override
+      public void close() {
+        if (!isClosed) {
+          isClosed = true;
+          finishEventBatch();
+        }
+      }
+    };
+  }
+
+  private void finishEventBatch() {
+    if (--myEventBatchDepth > 0) {
+      return;
+    }
+    TaskEventBatch batch = myEventBatch;
+    myEventBatch = null;
+    if (batch != null) {
+      fireEventBatch(batch);
+    }
+  }
+
+  private void addToEventBatch(Consumer<TaskEventBatch> event) {
+    if (myBatchListeners.isEmpty()) {
+      return;
+    }
+    if (myEventBatchDepth > 0) {
+      // The batch is created with its first event, so that batches without listeners or events cost nothing
+      if (myEventBatch == null) {
+        myEventBatch = new TaskEventBatch();
+      }
+      event.accept(myEventBatch);
+      return;
+    }
+    TaskEventBatch batch = new TaskEventBatch();
+    event.accept(batch);
+    fireEventBatch(batch);
+  }
+
+  private void fireEventBatch(TaskEventBatch batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    for (TaskBatchListener next : myBatchListeners) {
+      next.taskEventsBatched(batch);
+    }
+  }
+
   @Override
   public GPCalendarCalc getCalendar() {
     return getConfig().getCalendar();
@@ -664,7 +825,9 @@ public class TaskManagerImpl implements TaskManager {
       for (Task t : getTasks()) {
         t.setEnd(null);
       }
-      myScheduler.run();
+      try (var eventBatch = startEventBatch()) {
+        myScheduler.run();
+      }
     };
   }
 
@@ -686,19 +849,28 @@ public class TaskManagerImpl implements TaskManager {
       for (TaskListener next : myListeners) {
         next.taskProgressChanged(e);
       }
+      addToEventBatch(batch -> batch.taskProgressChanged(changedTask));
     }
   }
 
   void fireTaskScheduleChanged(Task changedTask, GanttCalendar oldStartDate, GanttCalendar oldFinishDate) {
-    myScheduler.run();
-    if (areEventsEnabled) {
-      getAlgorithmCollection().getRecalculateTaskCompletionPercentageAlgorithm().run();
-      TaskScheduleEvent e = new TaskScheduleEvent(changedTask, oldStartDate, oldFinishDate, changedTask.getStart(),
-          changedTask.getEnd());
-      // List copy = new ArrayList(myListeners);
-      // myListeners.clear();
-      for (TaskListener next : myListeners) {
-        next.taskScheduleChanged(e);
+    myDependencyGraph.markDirty(changedTask);
+    myProjectBounds.markDirty(changedTask);
+    // Changes of the successors made by the scheduler come to the batch listeners together with this one
+    try (var eventBatch = startEventBatch()) {
+      if (myBulkUpdateDepth == 0) {
+        myScheduler.runIncremental();
+      }
+      if (areEventsEnabled) {
+        getAlgorithmCollection().getRecalculateTaskCompletionPercentageAlgorithm().run();
+        TaskScheduleEvent e = new TaskScheduleEvent(changedTask, oldStartDate, oldFinishDate, changedTask.getStart(),
+            changedTask.getEnd());
+        // List copy = new ArrayList(myListeners);
+        // myListeners.clear();
+        for (TaskListener next : myListeners) {
+          next.taskScheduleChanged(e);
+        }
+        addToEventBatch(batch -> batch.taskScheduleChanged(e));
       }
     }
   }
@@ -710,6 +882,7 @@ public class TaskManagerImpl implements TaskManager {
       for (TaskListener next : myListeners) {
         next.dependencyAdded(e);
       }
+      addToEventBatch(batch -> batch.dependencyAdded(newDependency));
     }
   }
 
@@ -719,6 +892,7 @@ public class TaskManagerImpl implements TaskManager {
     for (TaskListener next : myListeners) {
       next.dependencyRemoved(e);
     }
+    addToEventBatch(batch -> batch.dependencyRemoved(dep));
   }
 
   private void fireDependencyChanged(TaskDependency dep) {
@@ -726,6 +900,7 @@ public class TaskManagerImpl implements TaskManager {
     for (TaskListener next : myListeners) {
       next.dependencyChanged(e);
     }
+    addToEventBatch(batch -> batch.dependencyChanged(dep));
   }
 
   private void fireTaskAdded(Task task, EventSource source) {
@@ -736,17 +911,22 @@ public class TaskManagerImpl implements TaskManager {
       for (TaskListener next : myListeners) {
         next.taskAdded(e);
       }
+      addToEventBatch(batch -> batch.taskAdded(task));
     }
   }
 
   private void fireTaskRemoved(Task container, Task task) {
     myDependencyGraph.removeTask(task);
+    if (container != null) {
+      getAlgorithmCollection().getRecalculateTaskCompletionPercentageAlgorithm().onNestedTasksChanged(container);
+    }
     if (areEventsEnabled) {
       getAlgorithmCollection().getRecalculateTaskCompletionPercentageAlgorithm().run();
       TaskHierarchyEvent e = new TaskHierarchyEvent(EventSource.UNDEFINED, task, container, null, -1);
       for (TaskListener l : myListeners) {
         l.taskRemoved(e);
       }
+      addToEventBatch(batch -> batch.taskRemoved(task));
     }
   }
 
@@ -756,6 +936,7 @@ public class TaskManagerImpl implements TaskManager {
       for (TaskListener l : myListeners) {
         l.taskMoved(e);
       }
+      addToEventBatch(batch -> batch.taskMoved(task));
     }
   }
   void fireTaskPropertiesChanged(Task task) {
@@ -764,6 +945,7 @@ public class TaskManagerImpl implements TaskManager {
       for (TaskListener next : myListeners) {
         next.taskPropertiesChanged(e);
       }
+      addToEventBatch(batch -> batch.taskPropertiesChanged(task));
     }
   }
 
@@ -771,6 +953,7 @@ public class TaskManagerImpl implements TaskManager {
       for (TaskListener next : myListeners) {
         next.taskModelReset();
       }
+      addToEventBatch(TaskEventBatch::taskModelReset);
   }
 
   public TaskManagerConfig getConfig() {
@@ -901,25 +1084,19 @@ public class TaskManagerImpl implements TaskManager {
           e.printStackTrace(System.err);
         }
       }
-      Task[] tasks = myAlgorithmCollection.getCriticalPathAlgorithm().getCriticalTasks();
-      resetCriticalPath();
-      for (Task task : tasks) {
-        var mutator = task.createMutator();
-        mutator.setCritical(true);
-        mutator.commit();
+      Set<Task> criticalTasks = new HashSet<>(Arrays.asList(myAlgorithmCollection.getCriticalPathAlgorithm().getCriticalTasks()));
+      // Only the tasks which critical flag changes are updated
+      for (Task task : getTasks()) {
+        boolean isCritical = criticalTasks.contains(task);
+        if (task.isCritical() != isCritical) {
+          var mutator = task.createMutator();
+          mutator.setCritical(isCritical);
+          mutator.commit();
+        }
       }
     }
   }
 
-  private void resetCriticalPath() {
-    Task[] allTasks = getTasks();
-    for (Task t : allTasks) {
-      var mutator = t.createMutator();
-      mutator.setCritical(false);
-      mutator.commit();
-    }
-  }
-
   @Override
   public void importAssignments(TaskManager importedTaskManager, HumanResourceManager hrManager,
       Map<Task, Task> original2importedTask, Map<HumanResource, HumanResource> original2importedResource) {
@@ -936,12 +1113,22 @@ public class TaskManagerImpl implements TaskManager {
     }
   }
 
-  void onTaskMoved(TaskImpl task) {
+  void onTaskMoved(TaskImpl task, Task oldSupertask) {
     if (!isRegistered(task)) {
       registerTask(task);
     }
+    CostAlgorithmImpl.invalidateCalculatedCosts();
+    var completionAlgorithm = getAlgorithmCollection().getRecalculateTaskCompletionPercentageAlgorithm();
+    if (oldSupertask != null) {
+      completionAlgorithm.onNestedTasksChanged(oldSupertask);
+    }
+    completionAlgorithm.onNestedTasksChanged(getTaskHierarchy().getContainer(task));
     myDependencyGraph.move(task, getTaskHierarchy().getContainer(task));
-    myTaskMap.setDirty();
+    // Moving a task assigns new order labels to all its nested tasks.
+    myTaskMap.onTaskChanged(task);
+    for (Task nested : getTaskHierarchy().getDeepNestedTasks(task)) {
+      myTaskMap.onTaskChanged(nested);
+    }
   }
 
   public void setEventsEnabled(boolean enabled) {
@@ -1006,6 +1193,9 @@ public class TaskManagerImpl implements TaskManager {
   @Override
   public void setZeroMilestones(Boolean b) {
     isZeroMilestones = b;
+    myProjectBounds.markAllDirty();
+    // Milestone durations depend on this option
+    getAlgorithmCollection().getRecalculateTaskCompletionPercentageAlgorithm().reset();
     if (Boolean.TRUE == isZeroMilestones) {
       List<Task> milestones = Lists.newArrayList();
       for (Task t : getTasks()) {
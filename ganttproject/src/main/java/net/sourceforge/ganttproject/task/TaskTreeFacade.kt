@@ -3,6 +3,7 @@ package net.sourceforge.ganttproject.task
 import com.google.common.base.Predicate
 import com.google.common.collect.Lists
 import com.google.common.collect.Queues
+import net.sourceforge.ganttproject.task.hierarchy.TaskHierarchyItem
 import net.sourceforge.ganttproject.util.collect.Pair
 import java.util.*
 
@@ -21,15 +22,26 @@ class FacadeImpl(private val taskManager: TaskManagerImpl, private val root: Tas
   }
 
   private fun addDeepNestedTasks(container: Task, result: ArrayList<Task>) {
-    val nested = container.nestedTasks
-    result.addAll(Arrays.asList(*nested))
-    for (i in nested.indices) {
-      addDeepNestedTasks(nested[i], result)
+    val start = result.size
+    val count = getNestedTaskCount(container)
+    for (i in 0 until count) {
+      result.add(getNestedTask(container, i))
+    }
+    for (i in start until start + count) {
+      addDeepNestedTasks(result[i], result)
     }
   }
 
   override fun hasNestedTasks(container: Task): Boolean {
-    return container.nestedTasks.size > 0
+    return container.hierarchyItem?.hasNested() ?: (container.nestedTasks.size > 0)
+  }
+
+  override fun getNestedTaskCount(container: Task): Int {
+    return container.hierarchyItem?.nestedItemCount ?: container.nestedTasks.size
+  }
+
+  override fun getNestedTask(container: Task, index: Int): Task {
+    return container.hierarchyItem?.getNestedItem(index)?.task ?: container.nestedTasks[index]
   }
 
   override fun getRootTask(): Task {
@@ -45,11 +57,13 @@ class FacadeImpl(private val taskManager: TaskManagerImpl, private val root: Tas
   }
 
   override fun getPreviousSibling(nestedTask: Task): Task? {
+    nestedTask.hierarchyItem?.let { return if (nestedTask.supertask == null) null else it.previousSiblingItem?.task }
     val pos = getTaskIndex(nestedTask)
     return if (pos <= 0) null else nestedTask.supertask.nestedTasks[pos - 1]
   }
 
   override fun getNextSibling(nestedTask: Task): Task? {
+    nestedTask.hierarchyItem?.let { return if (nestedTask.supertask == null) null else it.nextSiblingItem?.task }
     val pos = getTaskIndex(nestedTask)
     val allSiblings = nestedTask.supertask.nestedTasks
     return if (pos < allSiblings.size - 1) allSiblings[pos + 1] else null
@@ -57,6 +71,7 @@ class FacadeImpl(private val taskManager: TaskManagerImpl, private val root: Tas
 
   override fun getTaskIndex(nestedTask: Task): Int {
     val container = nestedTask.supertask ?: return 0
+    nestedTask.hierarchyItem?.let { return it.position }
     return Arrays.asList(*container.nestedTasks).indexOf(nestedTask)
   }
 
@@ -93,6 +108,9 @@ class FacadeImpl(private val taskManager: TaskManagerImpl, private val root: Tas
     if (task1 === task2) {
       return 0
     }
+    if (task1 is TaskImpl && task2 is TaskImpl && isInTree(task1) && isInTree(task2)) {
+      return task1.myTaskHierarchyItem.orderLabel.compareTo(task2.myTaskHierarchyItem.orderLabel)
+    }
     val buffer1 = task1.ancestors().asReversed()
     val buffer2 = task2.ancestors().asReversed()
     if (buffer1[0] !== rootTask && buffer2[0] === rootTask) {
@@ -134,6 +152,10 @@ Path2=$buffer2"""
     }
   }
 
+  // Order labels are comparable only for the tasks in the same tree. Deleted tasks are detached from the tree,
+  // and new tasks are attached to the hierarchy root before they are moved to their supertask.
+  private fun isInTree(task: Task) = !task.isDeleted && (task === root || task.supertask != null)
+
   override fun contains(task: Task): Boolean {
     return task.supertask != null
   }
@@ -145,7 +167,9 @@ Path2=$buffer2"""
     while (!deque.isEmpty()) {
       val head = deque.poll()
       result.add(head)
-      deque.addAll(0, Arrays.asList(*head.nestedTasks))
+      for (i in getNestedTaskCount(head) - 1 downTo 0) {
+        deque.addFirst(getNestedTask(head, i))
+      }
     }
     result.removeAt(0)
     return result
@@ -158,7 +182,8 @@ Path2=$buffer2"""
     }
     while (!queue.isEmpty()) {
       val head = queue.poll()
-      for (child in head.nestedTasks) {
+      for (i in 0 until getNestedTaskCount(head)) {
+        val child = getNestedTask(head, i)
         if (predicate.apply(Pair.create(head, child))) {
           queue.add(child)
         }
@@ -181,13 +206,15 @@ Path2=$buffer2"""
   }
 
   override fun getOutlinePath(task: Task): List<Int> {
-    return task.ancestors().asReversed().zipWithNext().map { (parent, child) ->
-      parent.nestedTasks.indexOf(child) + 1
+    return task.ancestors().asReversed().zipWithNext().map { (_, child) ->
+      getTaskIndex(child) + 1
     }.toList()
   }
 
 }
 
+private val Task.hierarchyItem: TaskHierarchyItem? get() = (this as? TaskImpl)?.myTaskHierarchyItem
+
 private fun Task.ancestors(includeSelf: Boolean = true) : List<Task> {
   val path = mutableListOf<Task>()
   if (includeSelf) {
@@ -37,7 +37,7 @@ public class AlgorithmCollection {
 
   private final CriticalPathAlgorithm myCriticalPathAlgorithm;
 
-  private final AlgorithmBase myScheduler;
+  private final SchedulerOptional myScheduler;
 
   public AlgorithmCollection(
       TaskManagerImpl taskManager,
@@ -46,7 +46,7 @@ public class AlgorithmCollection {
       AdjustTaskBoundsAlgorithm adjustTaskBoundsAlgorithm,
       RecalculateTaskCompletionPercentageAlgorithm completionPercentageAlgorithm,
       ChartBoundsAlgorithm projectBoundsAlgorithm, CriticalPathAlgorithm criticalPathAlgorithm,
-      AlgorithmBase scheduler) {
+      SchedulerOptional scheduler) {
     myScheduler = scheduler;
     this.myFindPossibleDependeesAlgorithm = myFindPossibleDependeesAlgorithm;
     myRecalculateTaskScheduleAlgorithm = recalculateTaskScheduleAlgorithm;
@@ -80,7 +80,7 @@ public class AlgorithmCollection {
     return myCriticalPathAlgorithm;
   }
 
-  public AlgorithmBase getScheduler() {
+  public SchedulerOptional getScheduler() {
     return myScheduler;
   }
 }
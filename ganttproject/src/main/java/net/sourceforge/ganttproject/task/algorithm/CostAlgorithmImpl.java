@@ -19,6 +19,7 @@ along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
 package net.sourceforge.ganttproject.task.algorithm;
 
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.sourceforge.ganttproject.resource.HumanResource;
 import net.sourceforge.ganttproject.task.ResourceAssignment;
@@ -28,24 +29,62 @@ import net.sourceforge.ganttproject.task.TaskContainmentHierarchyFacade;
 /**
  * Algorithm for calculating task cost
  *
+ * Tasks cache their calculated costs. The cached values are valid while the modification epoch
+ * stays the same, and the epoch is advanced when anything the costs depend on changes: task duration,
+ * hierarchy or manual cost, resource assignments and loads, pay rates.
+ *
  * @author dbarashev (Dmitry Barashev)
  */
 public class CostAlgorithmImpl {
+  private static final AtomicLong ourEpoch = new AtomicLong();
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+  public static long getEpoch() {
+    return ourEpoch.get();
+  }
+
+  public static void invalidateCalculatedCosts() {
+    ourEpoch.incrementAndGet();
+  }
+
   public BigDecimal getCalculatedCost(Task t) {
     BigDecimal total = BigDecimal.ZERO;
     TaskContainmentHierarchyFacade taskHierarchy = t.getManager().getTaskHierarchy();
-    if (taskHierarchy.hasNestedTasks(t)) {
-      for (Task child : taskHierarchy.getNestedTasks(t)) {
-        total = total.add(child.getCost().getValue());
-      }
+    for (int i = 0, count = taskHierarchy.getNestedTaskCount(t); i < count; i++) {
+      total = total.add(taskHierarchy.getNestedTask(t, i).getCost().getValue());
     }
     for (ResourceAssignment assignment : t.getAssignments()) {
       HumanResource resource = assignment.getResource();
-      total = total.add(resource.getStandardPayRate()
-          .multiply(BigDecimal.valueOf(assignment.getLoad()))
-          .divide(BigDecimal.valueOf(100))
-          .multiply(BigDecimal.valueOf(t.getDuration().getLength())));
+      total = total.add(getAssignmentCost(resource.getStandardPayRate(), assignment.getLoad(), t.getDuration().getLength()));
     }
     return total;
   }
+
+  /**
+   * @return payRate * load / 100 * duration. The result is exactly the same, including the scale, as the result
+   * of the same BigDecimal operations, but when the values are small enough it is calculated with long arithmetic.
+   */
+  static BigDecimal getAssignmentCost(BigDecimal payRate, float load, long duration) {
+    BigDecimal loadDecimal = BigDecimal.valueOf(load);
+    if (payRate.scale() >= 0 && loadDecimal.scale() >= 0 && payRate.precision() <= 18 && loadDecimal.precision() <= 18) {
+      try {
+        long product = Math.multiplyExact(payRate.unscaledValue().longValue(), loadDecimal.unscaledValue().longValue());
+        int scale = payRate.scale() + loadDecimal.scale();
+        // BigDecimal.divide returns the exact quotient with the smallest scale which is not less than
+        // the preferred scale, that is, the scale of the dividend.
+        if (product % 100 == 0) {
+          product /= 100;
+        } else if (product % 10 == 0) {
+          product /= 10;
+          scale += 1;
+        } else {
+          scale += 2;
+        }
+        return BigDecimal.valueOf(Math.multiplyExact(product, duration), scale);
+      } catch (ArithmeticException e) {
+        // Overflow, fall back to BigDecimal
+      }
+    }
+    return payRate.multiply(loadDecimal).divide(HUNDRED).multiply(BigDecimal.valueOf(duration));
+  }
 }
@@ -18,6 +18,7 @@ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
 package net.sourceforge.ganttproject.task.algorithm;
 
+import biz.ganttproject.core.time.TimeDuration;
 import net.sourceforge.ganttproject.task.Task;
 
 public interface CriticalPathAlgorithm {
@@ -26,6 +27,33 @@ public interface CriticalPathAlgorithm {
    *         many of them).
    */
   Task[] getCriticalTasks();
+
+  /**
+   * Runs the backward pass of the critical path method over the scheduled tasks.
+   *
+   * @return critical tasks and float values of all tasks
+   */
+  Result calculate();
+
   boolean isEnabled();
   void setEnabled(boolean value);
+
+  interface Result {
+    /**
+     * @return All tasks which are included in any critical path
+     */
+    Task[] getCriticalTasks();
+
+    /**
+     * @return total float of the task, that is, how much it can be delayed without delaying the project end,
+     *         or null if the task was not included into the calculation
+     */
+    TimeDuration getTotalFloat(Task task);
+
+    /**
+     * @return free float of the task, that is, how much it can be delayed without delaying any of its dependants,
+     *         or null if the task was not included into the calculation
+     */
+    TimeDuration getFreeFloat(Task task);
+  }
 }
@@ -19,8 +19,11 @@ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
 package net.sourceforge.ganttproject.task.algorithm;
 
 import biz.ganttproject.core.calendar.GPCalendarCalc;
+import biz.ganttproject.core.time.TimeDuration;
+import biz.ganttproject.core.time.TimeUnit;
 import net.sourceforge.ganttproject.GPLogger;
 import net.sourceforge.ganttproject.task.Task;
+import net.sourceforge.ganttproject.task.TaskContainmentHierarchyFacade;
 import net.sourceforge.ganttproject.task.TaskManager;
 import net.sourceforge.ganttproject.task.dependency.TaskDependency;
 import net.sourceforge.ganttproject.task.dependency.TaskDependencyConstraint.Collision;
@@ -28,9 +31,21 @@ import net.sourceforge.ganttproject.task.dependency.TaskDependencyConstraint.Col
 import java.util.*;
 import java.util.logging.Logger;
 
+/**
+ * Critical path method over the scheduled tasks. The forward pass is done by the scheduler, so
+ * the earliest dates are the scheduled task dates. The backward pass calculates the latest dates,
+ * going from the project end to the beginning.
+ *
+ * Tasks are mapped to dense indices, and all per-task values are kept in primitive arrays.
+ * Backward pass visits tasks in the reverse topological order which comes from the levels
+ * of the dependency graph: dependants and supertasks have higher levels than their dependees
+ * and subtasks.
+ */
 public class CriticalPathAlgorithmImpl extends AlgorithmBase implements CriticalPathAlgorithm {
   private static final Logger ourLogger = GPLogger.getLogger(CriticalPathAlgorithm.class);
 
+  private static final long NO_DATE = Long.MIN_VALUE;
+
   private final TaskManager myTaskManager;
   private final GPCalendarCalc myCalendar;
 
@@ -40,197 +55,171 @@ public class CriticalPathAlgorithmImpl extends AlgorithmBase implements Critical
     setEnabled(false);
   }
 
-  static class Node {
-    private final Task task;
-    private final List<Task> dependees = new ArrayList<Task>();
-    private int numDependants;
-    private final Date est;
-    private final Date eft;
-    private Date lst;
-    private Date lft;
-    private boolean lftFromSupertask = false;
-
-    public Node(Task t, Set<Task> taskScope) {
-      assert t != null;
-      task = t;
-      est = t.getStart().getTime();
-      eft = t.getEnd().getTime();
-      lst = null;
-      lft = null;
-      numDependants = 0;
-      TaskDependency[] deps = t.getDependenciesAsDependee().toArray();
-      for (int i = 0; i < deps.length; i++) {
-        if (taskScope.contains(deps[i].getDependant())) {
-          numDependants++;
-        }
-      }
-      collectDependees(t, taskScope);
-    }
-
-    public Node(Task t, Date est, Date eft, Date lst, Date lft, int numDependants, Set<Task> taskScope) {
-      task = t;
-      this.est = est;
-      this.eft = eft;
-      this.lst = lst;
-      this.lft = lft;
-      this.numDependants = numDependants;
-      if (task != null) {
-        collectDependees(task, taskScope);
-      }
-    }
-
-    void collectDependees(Task task, Set<Task> taskScope) {
-      TaskDependency[] deps = task.getDependenciesAsDependant().toArray();
-      for (TaskDependency dep : deps) {
-        if (taskScope.contains(dep.getDependee())) {
-          dependees.add(dep.getDependee());
-        }
-      }
-    }
-
-    boolean isCritical() {
-      return est.equals(lst);
-    }
-
-    @Override
-    public String toString() {
-      return task == null ? "[Deadline node " + eft + "]" : task.toString();
-    }
-  }
-
   @Override
   public Task[] getCriticalTasks() {
-    Date projectEnd = myTaskManager.getProjectEnd();
-    Node fakeFinalNode = new Node(null, projectEnd, projectEnd, projectEnd, projectEnd, 0, null);
-    Task[] tasks = myTaskManager.getTasks();
-    if (tasks.length == 0) {
-      return tasks;
-    }
-    Map<Task, Node> task_node = createTaskNodeMap(tasks, fakeFinalNode);
-    for (Node curNode : task_node.values()) {
-      curNode.numDependants += myTaskManager.getTaskHierarchy().getDepth(curNode.task) - 1;
-    }
-    assert fakeFinalNode.dependees.size() > 0;
-
-    LinkedHashSet<Task> result = new LinkedHashSet<Task>();
-    Processor p = new Processor(task_node, fakeFinalNode);
-    result.addAll(p.run());
-    return result.toArray(new Task[result.size()]);
+    return calculate().getCriticalTasks();
   }
 
-  private Map<Task, Node> createTaskNodeMap(Task[] tasks, Node deadlineNode) {
-    Set<Task> taskScope = new HashSet<Task>(Arrays.asList(tasks));
-    Map<Task, Node> task_node = new HashMap<Task, Node>();
-    for (Task task : tasks) {
-      Node newNode = new Node(task, taskScope);
-      deadlineNode.dependees.add(task);
-      newNode.numDependants++;
-      task_node.put(task, newNode);
-    }
-    return task_node;
+  @Override
+  public Result calculate() {
+    Engine engine = new Engine(myTaskManager.getTasks(), myTaskManager.getProjectEnd().getTime());
+    engine.runBackwardPass();
+    return engine;
   }
 
-  class Processor {
-    private final Map<Task, Node> myTask_Node;
-    private LinkedList<Node> myQueue = new LinkedList<Node>();
-    private final ArrayList<Task> myResult = new ArrayList<Task>();
-    private final Node myDeadlineNode;
-
-    Processor(Map<Task, Node> task_node, Node deadlineNode) {
-      myDeadlineNode = deadlineNode;
-      myTask_Node = task_node;
-      myQueue.add(myDeadlineNode);
-    }
-
-    boolean hasMoreInput() {
-      return !myQueue.isEmpty();
+  private class Engine implements Result {
+    private final Task[] myTasks;
+    private final Map<Task, Integer> myTaskIndex;
+    private final int[] mySupertask;
+    private final long[] myEst;
+    private final long[] myEft;
+    private final long[] myLst;
+    private final long[] myLft;
+    private final boolean[] myCritical;
+    private final long myDeadline;
+    private Task[] myCriticalTasks;
+
+    Engine(Task[] tasks, long deadline) {
+      int count = tasks.length;
+      myTasks = tasks;
+      myDeadline = deadline;
+      myTaskIndex = new HashMap<>(count * 4 / 3 + 1);
+      for (int i = 0; i < count; i++) {
+        myTaskIndex.put(tasks[i], i);
+      }
+      mySupertask = new int[count];
+      myEst = new long[count];
+      myEft = new long[count];
+      myLst = new long[count];
+      myLft = new long[count];
+      myCritical = new boolean[count];
+      TaskContainmentHierarchyFacade hierarchy = myTaskManager.getTaskHierarchy();
+      for (int i = 0; i < count; i++) {
+        Task task = tasks[i];
+        Integer supertask = myTaskIndex.get(hierarchy.getContainer(task));
+        mySupertask[i] = supertask == null ? -1 : supertask;
+        myEst[i] = task.getStart().getTime().getTime();
+        myEft[i] = task.getEnd().getTime().getTime();
+        myLst[i] = NO_DATE;
+        myLft[i] = NO_DATE;
+      }
     }
 
-    List<Task> run() {
-      while (hasMoreInput()) {
-        myQueue = processQueue();
+    /**
+     * @return task indices sorted by the dependency graph level, in descending order
+     */
+    private int[] getBackwardOrder() {
+      DependencyGraph graph = myTaskManager.getDependencyGraph();
+      int count = myTasks.length;
+      int[] levels = new int[count];
+      int maxLevel = 0;
+      for (int i = 0; i < count; i++) {
+        DependencyGraph.Node node = graph.getNode(myTasks[i]);
+        levels[i] = node == null ? 0 : node.getLevel();
+        maxLevel = Math.max(maxLevel, levels[i]);
+      }
+      // Counting sort: levelStart[maxLevel - level] is the position of the first task of the level
+      int[] levelStart = new int[maxLevel + 2];
+      for (int i = 0; i < count; i++) {
+        levelStart[maxLevel - levels[i] + 1]++;
+      }
+      for (int l = 1; l < levelStart.length; l++) {
+        levelStart[l] += levelStart[l - 1];
       }
-      return myResult;
+      int[] result = new int[count];
+      for (int i = 0; i < count; i++) {
+        result[levelStart[maxLevel - levels[i]]++] = i;
+      }
+      return result;
     }
 
-    private LinkedList<Node> processQueue() {
-      LinkedList<Node> newQueue = new LinkedList<Node>();
-      for (Iterator<Node> nodes = myQueue.iterator(); nodes.hasNext();) {
-        Node curNode = nodes.next();
-        if (curNode.lft == null || curNode.lftFromSupertask) {
-          calculateLatestDates(curNode);
-          Task[] nestedTasks = myTaskManager.getTaskHierarchy().getNestedTasks(curNode.task);
-          for (Task nestedTask : nestedTasks) {
-            Node nested = myTask_Node.get(nestedTask);
-            nested.numDependants -= (myTaskManager.getTaskHierarchy().getDepth(nested.task) - 1);
-            assert nested.numDependants >= 0;
-            if (nested.numDependants == 0) {
-              newQueue.add(nested);
-            }
-            if (curNode.isCritical()) {
-              nested.lft = curNode.lft;
-              nested.lftFromSupertask = true;
-            }
+    void runBackwardPass() {
+      List<Task> criticalTasks = new ArrayList<>();
+      for (int i : getBackwardOrder()) {
+        Task task = myTasks[i];
+        // Subtasks of a critical supertask must finish not later than the supertask
+        int supertask = mySupertask[i];
+        long lft = (supertask >= 0 && myCritical[supertask]) ? myLft[supertask] : NO_DATE;
+        for (TaskDependency dep : task.getDependenciesAsDependee().toArray()) {
+          Integer dependant = myTaskIndex.get(dep.getDependant());
+          if (dependant == null) {
+            continue;
           }
-
-          if (curNode.isCritical()) {
-            ourLogger.fine("\n\nNode=" + curNode + " is critical\n\n");
-            myResult.add(curNode.task);
+          assert myLst[dependant] != NO_DATE : "Dependant=" + dep.getDependant() + " of task=" + task + " has not been processed yet";
+          if (myLst[dependant] == NO_DATE) {
+            continue;
           }
-        } else {
-          assert curNode.task == null || curNode.lftFromSupertask;
+          long depLft = getLatestFinish(dep, myLst[dependant]);
+          if (lft == NO_DATE || lft > depLft) {
+            lft = depLft;
+          }
+        }
+        if (lft == NO_DATE || lft > myDeadline) {
+          lft = myDeadline;
+        }
+        myLft[i] = lft;
+        myLst[i] = myCalendar.shiftDate(new Date(lft), myTaskManager.createLength(-task.getDuration().getLength())).getTime();
+        myCritical[i] = myEst[i] == myLst[i];
+        if (myCritical[i]) {
+          ourLogger.fine("Task=" + task + " is critical");
+          criticalTasks.add(task);
         }
-        enqueueDependees(newQueue, curNode);
       }
-      return newQueue;
+      myCriticalTasks = criticalTasks.toArray(new Task[0]);
     }
 
-    private void calculateLatestDates(Node curNode) {
-      ourLogger.fine("Calculating latest dates for:" + curNode);
-      curNode.lft = findLatestFinishTime(myTask_Node, curNode);
-      curNode.lst = myCalendar.shiftDate(curNode.lft,
-          myTaskManager.createLength(-curNode.task.getDuration().getLength()));
-      ourLogger.fine("latest start date=" + curNode.lst);
+    /**
+     * @return the latest finish date of the dependee which does not push the dependant start beyond the given date
+     */
+    private long getLatestFinish(TaskDependency dep, long dependantStart) {
+      Collision backwardCollision = dep.getConstraint().getBackwardCollision(new Date(dependantStart));
+      if (backwardCollision == null) {
+        return dependantStart;
+      }
+      return backwardCollision.getAcceptableStart().getTime().getTime();
     }
 
-    private void enqueueDependees(LinkedList<Node> newQueue, Node curNode) {
-      for (int i = 0; i < curNode.dependees.size(); i++) {
-        Task dependeeTask = curNode.dependees.get(i);
-        Node dependeeNode = myTask_Node.get(dependeeTask);
-        assert dependeeNode.numDependants > 0;
-        if (--dependeeNode.numDependants == 0) {
-          newQueue.add(dependeeNode);
-        }
+    @Override
+    public Task[] getCriticalTasks() {
+      return myCriticalTasks;
+    }
+
+    @Override
+    public TimeDuration getTotalFloat(Task task) {
+      Integer i = myTaskIndex.get(task);
+      if (i == null) {
+        return null;
       }
+      return createFloat(task, myEst[i], myLst[i]);
     }
 
-    private Date findLatestFinishTime(Map<Task, Node> task_node, Node curNode) {
-      Date result = curNode.lft;
-      Node resultNode = null;
-      TaskDependency[] deps = curNode.task.getDependenciesAsDependee().toArray();
-      for (TaskDependency dep : deps) {
-        Node depNode = task_node.get(dep.getDependant());
-        if (depNode != null) {
-          Date lft = findLatestFinishTime(curNode, depNode, dep);
-          if (result == null || result.after(lft)) {
-            result = lft;
-            resultNode = depNode;
-          }
+    @Override
+    public TimeDuration getFreeFloat(Task task) {
+      Integer i = myTaskIndex.get(task);
+      if (i == null) {
+        return null;
+      }
+      long freeFinish = myDeadline;
+      for (TaskDependency dep : task.getDependenciesAsDependee().toArray()) {
+        Integer dependant = myTaskIndex.get(dep.getDependant());
+        if (dependant != null) {
+          freeFinish = Math.min(freeFinish, getLatestFinish(dep, myEst[dependant]));
         }
       }
-      if (result == null || result.after(myDeadlineNode.lft)) {
-        result = myDeadlineNode.lft;
+      // Free float never exceeds the total float
+      if (freeFinish - myEft[i] > myLft[i] - myEft[i]) {
+        freeFinish = myLft[i];
       }
-      ourLogger.fine("latest finish time=" + result + " (defined by:" + resultNode + ")");
-      return result;
+      return createFloat(task, myEft[i], freeFinish);
     }
 
-    Date findLatestFinishTime(Node curNode, Node depNode, TaskDependency dep) {
-      Collision backwardCollision = dep.getConstraint().getBackwardCollision(depNode.lst);
-      if (backwardCollision == null) {
-        return depNode.lst;
+    private TimeDuration createFloat(Task task, long from, long to) {
+      TimeUnit timeUnit = task.getDuration().getTimeUnit();
+      if (from <= to) {
+        return myCalendar.countWorkingUnits(new Date(from), new Date(to), timeUnit);
       }
-      return backwardCollision.getAcceptableStart().getTime();
+      TimeDuration negative = myCalendar.countWorkingUnits(new Date(to), new Date(from), timeUnit);
+      return myTaskManager.createLength(timeUnit, -negative.getLength());
     }
   }
 }
@@ -112,17 +112,19 @@ public class DependencyGraph {
     }
 
     @Override
-    public Range<Date> getStartRange() {
+    public synchronized Range<Date> getStartRange() {
       return myStartRange;
     }
 
     @Override
-    public Range<Date> getEndRange() {
+    public synchronized Range<Date> getEndRange() {
       return myEndRange;
     }
 
+    // Synchronized because the subtasks of the dependant inherit this dependency and may
+    // be scheduled concurrently.
     @Override
-    public boolean refresh() {
+    public synchronized boolean refresh() {
       GPCalendarCalc calendar = myDstNode.myTask.getManager().getCalendar();
       TaskDependencyConstraint.Collision nextCollision = myDep.getConstraint().getCollision();
       Date acceptableStart = nextCollision.getAcceptableStart().getTime();
@@ -151,7 +153,7 @@ public class DependencyGraph {
     }
 
     @Override
-    public boolean isWeak() {
+    public synchronized boolean isWeak() {
       return isWeak;
     }
 
@@ -474,6 +476,10 @@ public class DependencyGraph {
       return myData.getLevel();
     }
 
+    void setLevel(int level) {
+      myData = myData.setLevel(level);
+    }
+
     public List<DependencyEdge> getOutgoing() {
       return myData.getOutgoing();
     }
@@ -503,6 +509,25 @@ public class DependencyGraph {
       return myTask;
     }
 
+    /**
+     * Evaluates and caches lazily calculated dates of the tasks which are read when this node
+     * is scheduled, so that nodes of the same layer could be scheduled concurrently.
+     */
+    void prepareConcurrentScheduling() {
+      touchDates(myTask);
+      for (DependencyEdge edge : getIncoming()) {
+        touchDates(edge.getSrc().myTask);
+        if (edge instanceof ImplicitInheritedDependency) {
+          touchDates(((ImplicitInheritedDependency) edge).myExplicitDep.getDst().myTask);
+        }
+      }
+    }
+
+    private static void touchDates(Task task) {
+      task.getStart().getTime();
+      task.getEnd().getTime();
+    }
+
     @Override
     public String toString() {
       return myTask.toString();
@@ -617,8 +642,14 @@ public class DependencyGraph {
 
   private final Transaction myTxn = new Transaction();
 
+  // In bulk update edges are added and removed without updating node levels,
+  // and layers are rebuilt once when bulk update finishes.
+  private boolean isBulkUpdate;
+
   private GraphData myData = new GraphData(myTxn);
 
+  private final Set<Node> myDirtyNodes = Sets.newLinkedHashSet();
+
   public DependencyGraph(Supplier<TaskContainmentHierarchyFacade> taskHierarchy) {
     this(taskHierarchy::get, new Logger() {
       @Override
@@ -645,6 +676,7 @@ public class DependencyGraph {
     Node node = new Node(t, myTxn);
     myData.withTransaction().addToLevel(0, node);
     myNodeMap.put(t, node);
+    markDirty(node);
     fireGraphChanged();
   }
 
@@ -663,6 +695,7 @@ public class DependencyGraph {
     for (DependencyEdge edge : Lists.newArrayList(node.getIncoming())) {
       removeEdge(edge);
     }
+    myDirtyNodes.remove(node);
     fireGraphChanged();
   }
 
@@ -694,6 +727,101 @@ public class DependencyGraph {
     fireGraphChanged();
   }
 
+  /**
+   * Answers whether adding the given dependency would create a loop. Dependency is inherited
+   * by all subtasks of its dependant, so we search for a path to the dependee from the
+   * dependant and from all of its subtasks. Since nodes are topologically ordered, the search
+   * does not go to the nodes which level is not less than the dependee level, and
+   * visits each node at most once. The graph is not modified.
+   *
+   * @param dep dependency which is about to be added
+   * @return true if the dependee is reachable from the dependant or its subtasks
+   */
+  public boolean isLooping(TaskDependency dep) {
+    Node srcNode = myNodeMap.get(dep.getDependee());
+    Node dstNode = myNodeMap.get(dep.getDependant());
+    if (srcNode == null || dstNode == null) {
+      return false;
+    }
+    int srcLevel = srcNode.getLevel();
+    Set<Node> visited = Sets.newHashSet();
+    Deque<Node> queue = new ArrayDeque<>();
+    // Subtasks are sources of the implicit sub-super task edges coming into their supertask
+    Deque<Node> subtree = new ArrayDeque<>();
+    subtree.add(dstNode);
+    visited.add(dstNode);
+    while (!subtree.isEmpty()) {
+      Node node = subtree.pollFirst();
+      if (node == srcNode) {
+        return true;
+      }
+      queue.add(node);
+      for (DependencyEdge incoming : node.getIncoming()) {
+        if (incoming instanceof ImplicitSubSuperTaskDependency && visited.add(incoming.getSrc())) {
+          subtree.add(incoming.getSrc());
+        }
+      }
+    }
+    while (!queue.isEmpty()) {
+      Node node = queue.pollFirst();
+      for (DependencyEdge outgoing : node.getOutgoing()) {
+        Node next = outgoing.getDst();
+        if (next == srcNode) {
+          return true;
+        }
+        // Node levels are not maintained in bulk update, so we can't prune the search then
+        if ((isBulkUpdate || next.getLevel() < srcLevel) && visited.add(next)) {
+          queue.add(next);
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the tasks which can't be predecessors of the given task, because a dependency on any of them
+   * would create a loop. These are the tasks reachable from the given task or from its subtasks, including
+   * the supertasks of the given task, which are reachable through the implicit subtask-supertask edges.
+   * The graph is not modified.
+   *
+   * @param dependant task which is about to get a new predecessor
+   * @return the tasks reachable from the dependant and its subtasks, including them
+   */
+  public Set<Task> findLoopingDependees(Task dependant) {
+    Node dstNode = myNodeMap.get(dependant);
+    if (dstNode == null) {
+      return Collections.emptySet();
+    }
+    Set<Node> visited = Sets.newHashSet();
+    Deque<Node> queue = new ArrayDeque<>();
+    // Subtasks are sources of the implicit sub-super task edges coming into their supertask
+    Deque<Node> subtree = new ArrayDeque<>();
+    subtree.add(dstNode);
+    visited.add(dstNode);
+    while (!subtree.isEmpty()) {
+      Node node = subtree.pollFirst();
+      queue.add(node);
+      for (DependencyEdge incoming : node.getIncoming()) {
+        if (incoming instanceof ImplicitSubSuperTaskDependency && visited.add(incoming.getSrc())) {
+          subtree.add(incoming.getSrc());
+        }
+      }
+    }
+    while (!queue.isEmpty()) {
+      Node node = queue.pollFirst();
+      for (DependencyEdge outgoing : node.getOutgoing()) {
+        if (visited.add(outgoing.getDst())) {
+          queue.add(outgoing.getDst());
+        }
+      }
+    }
+    Set<Task> result = Sets.newHashSetWithExpectedSize(visited.size());
+    for (Node node : visited) {
+      result.add(node.getTask());
+    }
+    return result;
+  }
+
   private void addInheritedDependencies(DependencyEdge edge, Node root) {
     Deque<Node> subtree = Lists.newLinkedList();
     subtree.add(root);
@@ -713,6 +841,13 @@ public class DependencyGraph {
   private void addEdge(DependencyEdge edge) {
     edge.getSrc().addOutgoing(edge);
     edge.getDst().addIncoming(edge);
+    markDirty(edge.getDst());
+    if (!isBulkUpdate) {
+      promoteLayers(edge);
+    }
+  }
+
+  private void promoteLayers(DependencyEdge edge) {
     PriorityQueue<Node> queue = new PriorityQueue<Node>(11, new Comparator<Node>() {
       @Override
       public int compare(Node o1, Node o2) {
@@ -802,6 +937,10 @@ public class DependencyGraph {
   private void removeEdge(DependencyEdge edge) {
     edge.getSrc().removeOutgoing(edge);
     edge.getDst().removeIncoming(edge);
+    markDirty(edge.getDst());
+    if (isBulkUpdate) {
+      return;
+    }
 
     Deque<DependencyEdge> queue = new LinkedList<DependencyEdge>();
     queue.add(edge);
@@ -889,7 +1028,7 @@ public class DependencyGraph {
   }
 
   private void fireGraphChanged() {
-    if (myTxn.isRunning()) {
+    if (myTxn.isRunning() || isBulkUpdate) {
       return;
     }
     for (Listener l : myListeners) {
@@ -901,6 +1040,41 @@ public class DependencyGraph {
     myData = myData.rollback();
     myData.myLayers.clear();
     myNodeMap.clear();
+    myDirtyNodes.clear();
+  }
+
+  /**
+   * Marks the node of the given task as dirty, that is, as a node which dates or incoming
+   * constraints have changed since the last scheduler run. Incremental scheduling starts
+   * from the dirty nodes and propagates changes forward through their outgoing edges.
+   *
+   * @param task task which has changed
+   */
+  public void markDirty(Task task) {
+    Node node = myNodeMap.get(task);
+    if (node != null) {
+      markDirty(node);
+    }
+  }
+
+  private void markDirty(Node node) {
+    // Changes made in a transaction are always rolled back, so nodes touched
+    // in a transaction do not need rescheduling.
+    if (!myTxn.isRunning()) {
+      myDirtyNodes.add(node);
+    }
+  }
+
+  /**
+   * @return nodes marked as dirty since the last call. The dirty set is cleared.
+   */
+  List<Node> pollDirtyNodes() {
+    if (myDirtyNodes.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Node> result = Lists.newArrayList(myDirtyNodes);
+    myDirtyNodes.clear();
+    return result;
   }
 
   public void startTransaction() {
@@ -918,6 +1092,76 @@ public class DependencyGraph {
     myTxn.rollback();
   }
 
+  /**
+   * Starts a bulk update, e.g. loading many tasks and dependencies at once. Until it finishes,
+   * node levels are not updated on every edge change, and listeners are not notified.
+   */
+  public void startBulkUpdate() {
+    Preconditions.checkState(!myTxn.isRunning(), "Bulk update can't be started in a transaction");
+    isBulkUpdate = true;
+  }
+
+  /**
+   * Finishes a bulk update: rebuilds the layers in a single topological sort and notifies listeners.
+   */
+  public void finishBulkUpdate() {
+    if (!isBulkUpdate) {
+      return;
+    }
+    isBulkUpdate = false;
+    rebuildLayers();
+    fireGraphChanged();
+  }
+
+  public boolean isBulkUpdate() {
+    return isBulkUpdate;
+  }
+
+  private void rebuildLayers() {
+    Map<Node, Integer> pendingIncoming = Maps.newHashMapWithExpectedSize(myNodeMap.size());
+    Deque<Node> ready = new ArrayDeque<>();
+    for (Node node : myNodeMap.values()) {
+      int count = node.getIncoming().size();
+      pendingIncoming.put(node, count);
+      if (count == 0) {
+        ready.add(node);
+      }
+    }
+    List<Node> sortedNodes = Lists.newArrayListWithCapacity(myNodeMap.size());
+    while (!ready.isEmpty()) {
+      Node node = ready.pollFirst();
+      sortedNodes.add(node);
+      for (DependencyEdge outgoing : node.getOutgoing()) {
+        if (pendingIncoming.merge(outgoing.getDst(), -1, Integer::sum) == 0) {
+          ready.add(outgoing.getDst());
+        }
+      }
+    }
+    myData.myLayers.clear();
+    if (sortedNodes.size() == myNodeMap.size()) {
+      for (Node node : sortedNodes) {
+        int level = 0;
+        for (DependencyEdge incoming : node.getIncoming()) {
+          level = Math.max(level, incoming.getSrc().getLevel() + 1);
+        }
+        node.setLevel(level);
+        myData.addToLevel(level, node);
+      }
+      return;
+    }
+    // There is a dependency loop. We fall back to promoting the nodes edge by edge, which reports
+    // the loop and ignores the edge closing it, the same way as when dependencies are added one by one.
+    for (Node node : myNodeMap.values()) {
+      node.setLevel(0);
+      myData.addToLevel(0, node);
+    }
+    for (Node node : Lists.newArrayList(myNodeMap.values())) {
+      for (DependencyEdge incoming : node.getIncoming()) {
+        promoteLayers(incoming);
+      }
+    }
+  }
+
   public void setLogger(Logger logger) {
     myLogger = logger;
   }
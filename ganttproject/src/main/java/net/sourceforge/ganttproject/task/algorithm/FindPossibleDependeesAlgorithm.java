@@ -20,9 +20,40 @@ package net.sourceforge.ganttproject.task.algorithm;
 
 import net.sourceforge.ganttproject.task.Task;
 
+import java.util.List;
+
 /**
  * Created by IntelliJ IDEA. User: bard
  */
 public interface FindPossibleDependeesAlgorithm {
+  /**
+   * @return all tasks which may become predecessors of the given task, in the document order
+   */
   Task[] run(Task dependant);
+
+  /**
+   * @return lazily evaluated view of the tasks which may become predecessors of the given task
+   */
+  Candidates getCandidates(Task dependant);
+
+  /**
+   * Tasks which may become predecessors of some task, in the document order. The task itself, its supertasks
+   * and subtasks and the tasks which would create a dependency loop are excluded. Candidates are found
+   * when they are requested, so reading the first page doesn't walk the whole project.
+   */
+  interface Candidates {
+    /**
+     * @return up to {@code limit} candidates which follow the first {@code offset} candidates
+     */
+    List<Task> getPage(int offset, int limit);
+
+    /**
+     * @return candidates which ID is equal to the query or which name contains it, ignoring case
+     */
+    Candidates search(String query);
+
+    boolean isEmpty();
+
+    int size();
+  }
 }
@@ -18,44 +18,148 @@ along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
  */
 package net.sourceforge.ganttproject.task.algorithm;
 
-import java.util.ArrayList;
-
+import com.google.common.base.Preconditions;
+import com.google.common.base.Suppliers;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskContainmentHierarchyFacade;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
 /**
  * Created by IntelliJ IDEA. User: bard
  */
 public abstract class FindPossibleDependeesAlgorithmImpl implements FindPossibleDependeesAlgorithm {
-  private TaskContainmentHierarchyFacade myContainmentFacade;
-
   public FindPossibleDependeesAlgorithmImpl() {
   }
 
   @Override
   public Task[] run(Task dependant) {
-    myContainmentFacade = createContainmentFacade();
-    ArrayList<Task> result = new ArrayList<Task>();
-    Task root = myContainmentFacade.getRootTask();
-    Task[] nestedTasks = myContainmentFacade.getNestedTasks(root);
-    processTask(nestedTasks, dependant, result);
-    return result.toArray(new Task[0]);
+    return getCandidates(dependant).getPage(0, Integer.MAX_VALUE).toArray(new Task[0]);
+  }
+
+  @Override
+  public Candidates getCandidates(Task dependant) {
+    TaskContainmentHierarchyFacade containmentFacade = createContainmentFacade();
+    DependencyGraph graph = getDependencyGraph();
+    // Excluded tasks are searched in the dependency graph once, when the first candidate is requested
+    Supplier<Set<Task>> excludedTasks = Suppliers.memoize(() -> {
+      Set<Task> result = new HashSet<>(graph.findLoopingDependees(dependant));
+      for (Task container = containmentFacade.getContainer(dependant); container != null;
+           container = containmentFacade.getContainer(container)) {
+        result.add(container);
+      }
+      return result;
+    })::get;
+    return new CandidatesImpl(containmentFacade, dependant, excludedTasks, task -> true);
   }
 
   protected abstract TaskContainmentHierarchyFacade createContainmentFacade();
 
-  private void processTask(Task[] taskList, Task dependant, ArrayList<Task> result) {
-    for (int i = 0; i < taskList.length; i++) {
-      Task next = taskList[i];
-      if (!next.equals(dependant)) {
-        Task[] nested = myContainmentFacade.getNestedTasks(next);
-        // if (nested.length==0) {
-        result.add(next);
-        // }
-        // else {
-        processTask(nested, dependant, result);
-        // }
+  protected abstract DependencyGraph getDependencyGraph();
+
+  private static class CandidatesImpl implements Candidates {
+    private final TaskContainmentHierarchyFacade myContainmentFacade;
+    private final Task myDependant;
+    private final Supplier<Set<Task>> myExcludedTasks;
+    private final Predicate<Task> myFilter;
+    private final List<Task> myFoundTasks = new ArrayList<>();
+    // Depth-first traversal state: containers on the path to the current task
+    // and positions of the next nested tasks to visit in them
+    private final Deque<Task> myContainers = new ArrayDeque<>();
+    private final Deque<Integer> myPositions = new ArrayDeque<>();
+
+    CandidatesImpl(TaskContainmentHierarchyFacade containmentFacade, Task dependant,
+                   Supplier<Set<Task>> excludedTasks, Predicate<Task> filter) {
+      myContainmentFacade = containmentFacade;
+      myDependant = dependant;
+      myExcludedTasks = excludedTasks;
+      myFilter = filter;
+      myContainers.addLast(containmentFacade.getRootTask());
+      myPositions.addLast(0);
+    }
+
+    @Override
+    public List<Task> getPage(int offset, int limit) {
+      Preconditions.checkArgument(offset >= 0 && limit >= 0, "Negative offset=%s or limit=%s", offset, limit);
+      int end = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+      findUpTo(end);
+      if (offset >= myFoundTasks.size()) {
+        return Collections.emptyList();
+      }
+      return Collections.unmodifiableList(new ArrayList<>(myFoundTasks.subList(offset, Math.min(end, myFoundTasks.size()))));
+    }
+
+    @Override
+    public Candidates search(String query) {
+      String normalizedQuery = query.trim().toLowerCase(Locale.ROOT);
+      if (normalizedQuery.isEmpty()) {
+        return new CandidatesImpl(myContainmentFacade, myDependant, myExcludedTasks, myFilter);
+      }
+      return new CandidatesImpl(myContainmentFacade, myDependant, myExcludedTasks,
+          myFilter.and(task -> matches(task, normalizedQuery)));
+    }
+
+    @Override
+    public boolean isEmpty() {
+      findUpTo(1);
+      return myFoundTasks.isEmpty();
+    }
+
+    // Swing list models ask for the size very often, so we don't copy the found tasks here
+    @Override
+    public int size() {
+      findUpTo(Integer.MAX_VALUE);
+      return myFoundTasks.size();
+    }
+
+    // Continues the traversal until the given number of candidates is found or all tasks are visited
+    private void findUpTo(int count) {
+      while (myFoundTasks.size() < count) {
+        Task next = findNext();
+        if (next == null) {
+          return;
+        }
+        myFoundTasks.add(next);
+      }
+    }
+
+    private Task findNext() {
+      while (!myContainers.isEmpty()) {
+        Task container = myContainers.peekLast();
+        int position = myPositions.pollLast();
+        if (position >= myContainmentFacade.getNestedTaskCount(container)) {
+          myContainers.pollLast();
+          continue;
+        }
+        myPositions.addLast(position + 1);
+        Task task = myContainmentFacade.getNestedTask(container, position);
+        if (task.equals(myDependant)) {
+          // Subtasks can't be predecessors of their supertask, so we skip the whole subtree
+          continue;
+        }
+        myContainers.addLast(task);
+        myPositions.addLast(0);
+        if (!myExcludedTasks.get().contains(task) && myFilter.test(task)) {
+          return task;
+        }
+      }
+      return null;
+    }
+
+    private static boolean matches(Task task, String normalizedQuery) {
+      if (String.valueOf(task.getTaskID()).equals(normalizedQuery)) {
+        return true;
       }
+      return task.getName() != null && task.getName().toLowerCase(Locale.ROOT).contains(normalizedQuery);
     }
   }
 }
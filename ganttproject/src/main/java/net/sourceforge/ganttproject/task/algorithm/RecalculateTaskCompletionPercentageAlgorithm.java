@@ -21,14 +21,92 @@ package net.sourceforge.ganttproject.task.algorithm;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskContainmentHierarchyFacade;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calculates completion percentage of the supertasks from the durations and completion percentages
+ * of their nested tasks.
+ *
+ * Completion of every subtree is cached. The task manager reports the tasks whose own values have changed
+ * and the supertasks whose nested tasks have changed, and run() updates the cached values of these tasks
+ * and applies the differences to their ancestors, without walking the whole tree. The whole tree is
+ * walked on the first run and after reset().
+ */
 public abstract class RecalculateTaskCompletionPercentageAlgorithm extends AlgorithmBase {
+  private static final SubtreeCompletion ZERO = new SubtreeCompletion(0, 0);
+
+  private final Map<Task, SubtreeCompletion> mySubtreeCompletions = new HashMap<>();
+  // Tasks whose duration or completion percentage might have changed
+  private final Set<Task> myChangedTasks = new LinkedHashSet<>();
+  // Tasks whose nested tasks might have changed
+  private final Set<Task> myChangedContainers = new LinkedHashSet<>();
+  private boolean isRunning;
+
   @Override
   public void run() {
-    if (!isEnabled()) {
+    // Committing the new completion of a supertask fires events which may run this algorithm again.
+    if (!isEnabled() || isRunning) {
       return;
     }
-    TaskContainmentHierarchyFacade facade = createContainmentFacade();
-    recalculateSupertaskCompletionPercentage(facade.getRootTask(), facade);
+    isRunning = true;
+    try {
+      TaskContainmentHierarchyFacade facade = createContainmentFacade();
+      Set<Task> updatedSupertasks = new LinkedHashSet<>();
+      if (!mySubtreeCompletions.containsKey(facade.getRootTask())) {
+        mySubtreeCompletions.clear();
+        myChangedTasks.clear();
+        myChangedContainers.clear();
+        calculate(facade.getRootTask(), facade, updatedSupertasks);
+      } else {
+        for (Task container : drain(myChangedContainers)) {
+          update(container, facade, updatedSupertasks);
+        }
+        for (Task task : drain(myChangedTasks)) {
+          if (!facade.hasNestedTasks(task)) {
+            update(task, facade, updatedSupertasks);
+          }
+        }
+      }
+      for (Task supertask : updatedSupertasks) {
+        SubtreeCompletion completion = mySubtreeCompletions.get(supertask);
+        int completionPercentage = (completion.myPlannedDays == 0) ? 0 : (int) (completion.myCompletedDays / completion.myPlannedDays);
+        if (completionPercentage != supertask.getCompletionPercentage()) {
+          var mutator = supertask.createMutator();
+          mutator.setCompletionPercentage(completionPercentage);
+          mutator.commit();
+        }
+      }
+    } finally {
+      isRunning = false;
+    }
+  }
+
+  /**
+   * Notifies that duration or completion percentage of the task might have changed.
+   */
+  public void onTaskChanged(Task task) {
+    myChangedTasks.add(task);
+  }
+
+  /**
+   * Notifies that tasks were added to or removed from the container.
+   */
+  public void onNestedTasksChanged(Task container) {
+    myChangedContainers.add(container);
+  }
+
+  /**
+   * Drops all cached values, so that the next run walks the whole tree.
+   */
+  public void reset() {
+    mySubtreeCompletions.clear();
+    myChangedTasks.clear();
+    myChangedContainers.clear();
   }
 
   static private class SubtreeCompletion {
@@ -41,32 +119,65 @@ public abstract class RecalculateTaskCompletionPercentageAlgorithm extends Algor
     };
   }
 
-  private SubtreeCompletion recalculateSupertaskCompletionPercentage(Task task, TaskContainmentHierarchyFacade facade) {
-
-    Task[] nestedTasks = facade.getNestedTasks(task);
+  private static List<Task> drain(Set<Task> tasks) {
+    List<Task> result = new ArrayList<>(tasks);
+    tasks.clear();
+    return result;
+  }
 
-    if (nestedTasks.length == 0) {
-      long nextDuration = task.getDuration().getLength();
-      return new SubtreeCompletion(nextDuration * task.getCompletionPercentage(), nextDuration);
+  /**
+   * Recalculates completion of the task subtree from the cached values of the nested tasks
+   * and applies the difference to the ancestors.
+   */
+  private void update(Task task, TaskContainmentHierarchyFacade facade, Set<Task> updatedSupertasks) {
+    if (task.isDeleted()) {
+      mySubtreeCompletions.remove(task);
+      return;
     }
-
-    long completedDays = 0;
-    long plannedDays = 0;
-
-    for (int i = 0; i < nestedTasks.length; i++) {
-      Task next = nestedTasks[i];
-      SubtreeCompletion subtreeCompletion = recalculateSupertaskCompletionPercentage(next, facade);
-      completedDays += subtreeCompletion.myCompletedDays;
-      plannedDays += subtreeCompletion.myPlannedDays;
+    SubtreeCompletion oldValue = mySubtreeCompletions.getOrDefault(task, ZERO);
+    SubtreeCompletion newValue = calculate(task, facade, updatedSupertasks);
+    long completedDelta = newValue.myCompletedDays - oldValue.myCompletedDays;
+    long plannedDelta = newValue.myPlannedDays - oldValue.myPlannedDays;
+    for (Task ancestor = facade.getContainer(task);
+         ancestor != null && (completedDelta != 0 || plannedDelta != 0);
+         ancestor = facade.getContainer(ancestor)) {
+      SubtreeCompletion cached = mySubtreeCompletions.get(ancestor);
+      if (cached == null) {
+        // Ancestor was not counted by its own ancestors yet, so they need to add its whole value.
+        SubtreeCompletion value = calculate(ancestor, facade, updatedSupertasks);
+        completedDelta = value.myCompletedDays;
+        plannedDelta = value.myPlannedDays;
+      } else {
+        mySubtreeCompletions.put(ancestor, new SubtreeCompletion(
+            cached.myCompletedDays + completedDelta, cached.myPlannedDays + plannedDelta));
+        updatedSupertasks.add(ancestor);
+      }
     }
+  }
 
-    int completionPercentage = (plannedDays == 0) ? 0 : (int) (completedDays / plannedDays);
-    var mutator = task.createMutator();
-    mutator.setCompletionPercentage(completionPercentage);
-    mutator.commit();
-
-    return new SubtreeCompletion(completedDays, plannedDays);
-
+  private SubtreeCompletion calculate(Task task, TaskContainmentHierarchyFacade facade, Set<Task> updatedSupertasks) {
+    int nestedCount = facade.getNestedTaskCount(task);
+    SubtreeCompletion result;
+    if (nestedCount == 0) {
+      long nextDuration = task.getDuration().getLength();
+      result = new SubtreeCompletion(nextDuration * task.getCompletionPercentage(), nextDuration);
+    } else {
+      long completedDays = 0;
+      long plannedDays = 0;
+      for (int i = 0; i < nestedCount; i++) {
+        Task next = facade.getNestedTask(task, i);
+        SubtreeCompletion subtreeCompletion = mySubtreeCompletions.get(next);
+        if (subtreeCompletion == null) {
+          subtreeCompletion = calculate(next, facade, updatedSupertasks);
+        }
+        completedDays += subtreeCompletion.myCompletedDays;
+        plannedDays += subtreeCompletion.myPlannedDays;
+      }
+      result = new SubtreeCompletion(completedDays, plannedDays);
+      updatedSupertasks.add(task);
+    }
+    mySubtreeCompletions.put(task, result);
+    return result;
   }
 
   protected abstract TaskContainmentHierarchyFacade createContainmentFacade();
@@ -18,9 +18,10 @@ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
 package net.sourceforge.ganttproject.task.algorithm;
 
-import biz.ganttproject.core.calendar.walker.WorkingUnitCounter;
+import biz.ganttproject.core.calendar.GPCalendarCalc;
 import biz.ganttproject.core.time.GanttCalendar;
 import biz.ganttproject.core.time.TimeDuration;
+import biz.ganttproject.core.time.TimeUnit;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskContainmentHierarchyFacade;
 import net.sourceforge.ganttproject.task.TaskMutator;
@@ -214,12 +215,13 @@ public abstract class RecalculateTaskScheduleAlgorithm extends AlgorithmBase {
 
   private void modifyTaskStart(Task task, GanttCalendar newStart) {
     var mutator = task.createShiftMutator();
-    WorkingUnitCounter counter = new WorkingUnitCounter(task.getManager().getCalendar(), task.getDuration().getTimeUnit());
+    GPCalendarCalc calendar = task.getManager().getCalendar();
+    TimeUnit timeUnit = task.getDuration().getTimeUnit();
     TimeDuration shift;
     if (task.getStart().getTime().before(newStart.getTime())) {
-      shift = counter.run(task.getStart().getTime(), newStart.getTime());
+      shift = calendar.countWorkingUnits(task.getStart().getTime(), newStart.getTime(), timeUnit);
     } else {
-      shift = counter.run(newStart.getTime(), task.getStart().getTime()).reverse();
+      shift = calendar.countWorkingUnits(newStart.getTime(), task.getStart().getTime(), timeUnit).reverse();
     }
     mutator.shift(shift);
     mutator.commit();
@@ -28,6 +28,7 @@ import biz.ganttproject.core.time.TimeUnit;
 import com.google.common.collect.BoundType;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
+import com.google.common.collect.Sets;
 import net.sourceforge.ganttproject.GPLogger;
 import net.sourceforge.ganttproject.task.Task;
 import net.sourceforge.ganttproject.task.TaskContainmentHierarchyFacade;
@@ -38,25 +39,58 @@ import net.sourceforge.ganttproject.task.algorithm.DependencyGraph.ImplicitSubSu
 import net.sourceforge.ganttproject.task.algorithm.DependencyGraph.Node;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * This class walk the dependency graph and updates start and end dates of tasks
  * according to information returned by dependency edges.
  *
+ * Full run walks all graph layers and schedules every node. Incremental run
+ * starts from the nodes marked as dirty in the graph and propagates the changes forward
+ * through the outgoing edges, stopping at nodes which dates did not change.
+ *
+ * Nodes in the same layer do not depend on each other, so when a fork-join pool is provided,
+ * date ranges of the nodes in wide layers are calculated concurrently, and then tasks are
+ * updated sequentially in the layer order.
+ *
  * @author dbarashev
  */
 public class SchedulerImpl extends AlgorithmBase {
+  private static final Comparator<Node> TOPOLOGICAL_ORDER = (o1, o2) -> {
+    int result = o1.getLevel() - o2.getLevel();
+    return result != 0 ? result : o1.getTask().getTaskID() - o2.getTask().getTaskID();
+  };
+
+  // Layers narrower than this are scheduled sequentially, because the overhead
+  // of forking exceeds the gain.
+  static final int PARALLEL_LAYER_THRESHOLD = 64;
+
   private final DependencyGraph myGraph;
   private boolean isRunning;
   private final Supplier<TaskContainmentHierarchyFacade> myTaskHierarchy;
+  private final ForkJoinPool myPool;
 
   public SchedulerImpl(DependencyGraph graph, Supplier<TaskContainmentHierarchyFacade> taskHierarchy) {
+    this(graph, taskHierarchy, null);
+  }
+
+  /**
+   * @param pool pool which calculates schedules of the nodes in wide layers concurrently,
+   *             or {@code null} if all layers shall be scheduled sequentially
+   */
+  public SchedulerImpl(DependencyGraph graph, Supplier<TaskContainmentHierarchyFacade> taskHierarchy, ForkJoinPool pool) {
     myGraph = graph;
     myTaskHierarchy = taskHierarchy;
+    myPool = pool;
   }
 
   @Override
@@ -77,10 +111,31 @@ public class SchedulerImpl extends AlgorithmBase {
     }
   }
 
+  /**
+   * Reschedules only those nodes which are reachable from the nodes marked as dirty
+   * in the dependency graph since the last run.
+   */
+  public void runIncremental() {
+    if (!isEnabled() || isRunning) {
+      return;
+    }
+    isRunning = true;
+    try {
+      doRunIncremental();
+    } finally {
+      isRunning = false;
+    }
+  }
+
   private void doRun() {
+    myGraph.pollDirtyNodes();
     int layers = myGraph.checkLayerValidity();
     for (int i = 0; i < layers; i++) {
       Collection<Node> layer = myGraph.getLayer(i);
+      if (myPool != null && layer.size() >= PARALLEL_LAYER_THRESHOLD) {
+        scheduleConcurrently(layer);
+        continue;
+      }
       for (Node node : layer) {
         try {
           schedule(node);
@@ -89,9 +144,111 @@ public class SchedulerImpl extends AlgorithmBase {
         }
       }
     }
+    // Nodes modified by the scheduler itself have already been processed.
+    myGraph.pollDirtyNodes();
+  }
+
+  private void scheduleConcurrently(Collection<Node> layer) {
+    List<Node> nodes = Lists.newArrayList(layer);
+    for (Node node : nodes) {
+      node.prepareConcurrentScheduling();
+    }
+    List<ScheduleRanges> ranges;
+    try {
+      ranges = myPool.submit(
+          () -> nodes.parallelStream().map(this::computeRanges).collect(Collectors.toList())
+      ).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      ranges = nodes.stream().map(this::computeRanges).collect(Collectors.toList());
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+    // Tasks are modified on the calling thread in the layer order, so that the results
+    // and the sequence of the fired events are the same as in the sequential run.
+    for (int i = 0; i < nodes.size(); i++) {
+      ScheduleRanges nodeRanges = ranges.get(i);
+      try {
+        if (nodeRanges.error != null) {
+          throw nodeRanges.error;
+        }
+        applyRanges(nodes.get(i), nodeRanges);
+      } catch (IllegalArgumentException e) {
+        getDiagnostic().logError(e);
+      }
+    }
+  }
+
+  private void doRunIncremental() {
+    PriorityQueue<Node> queue = new PriorityQueue<>(11, TOPOLOGICAL_ORDER);
+    Set<Node> queued = Sets.newHashSet();
+    // Dirty nodes have been changed from the outside, so their successors
+    // are rescheduled even if scheduling of the dirty node itself changes nothing.
+    Set<Node> dirty = Sets.newHashSet();
+    enqueueDirtyNodes(queue, queued, dirty, null);
+    while (!queue.isEmpty()) {
+      Node node = queue.poll();
+      queued.remove(node);
+      Task task = node.getTask();
+      Date oldStart = task.getStart().getTime();
+      Date oldEnd = task.getEnd().getTime();
+      try {
+        schedule(node);
+      } catch (IllegalArgumentException e) {
+        getDiagnostic().logError(e);
+      }
+      boolean isDirty = dirty.remove(node);
+      boolean isChanged = !oldStart.equals(task.getStart().getTime()) || !oldEnd.equals(task.getEnd().getTime());
+      if (isDirty || isChanged) {
+        for (DependencyEdge edge : node.getOutgoing()) {
+          if (queued.add(edge.getDst())) {
+            queue.add(edge.getDst());
+          }
+        }
+      }
+      // Scheduling of this node might have changed other tasks, e.g. nested tasks of a supertask.
+      // Changes of the node itself have already been propagated.
+      enqueueDirtyNodes(queue, queued, dirty, node);
+    }
+  }
+
+  private void enqueueDirtyNodes(PriorityQueue<Node> queue, Set<Node> queued, Set<Node> dirty, Node processed) {
+    for (Node node : myGraph.pollDirtyNodes()) {
+      if (node == processed) {
+        continue;
+      }
+      dirty.add(node);
+      if (queued.add(node)) {
+        queue.add(node);
+      }
+    }
   }
 
   private void schedule(Node node) {
+    ScheduleRanges ranges = computeRanges(node);
+    if (ranges.error != null) {
+      throw ranges.error;
+    }
+    applyRanges(node, ranges);
+  }
+
+  /**
+   * Calculates start and end date ranges of the given node from its incoming edges.
+   * This method does not modify any tasks and may run concurrently for the nodes
+   * of the same layer.
+   */
+  private ScheduleRanges computeRanges(Node node) {
+    try {
+      return doComputeRanges(node);
+    } catch (IllegalArgumentException e) {
+      return new ScheduleRanges(e);
+    }
+  }
+
+  private ScheduleRanges doComputeRanges(Node node) {
     Logger logger = GPLogger.getLogger(this);
     GPLogger.debug(logger, "Scheduling node %s", node);
     Range<Date> startRange = Range.all();
@@ -150,6 +307,15 @@ public class SchedulerImpl extends AlgorithmBase {
       endRange = endRange.intersection(subtasksSpan);
     }
     GPLogger.debug(logger, ".. finally, start range=%s", startRange);
+    return new ScheduleRanges(startRange, endRange);
+  }
+
+  /**
+   * Updates the node task dates according to the calculated ranges.
+   */
+  private void applyRanges(Node node, ScheduleRanges ranges) {
+    Range<Date> startRange = ranges.start;
+    Range<Date> endRange = ranges.end;
     if (startRange.hasLowerBound()) {
       modifyTaskStart(node.getTask(), startRange.lowerEndpoint());
     }
@@ -213,4 +379,22 @@ public class SchedulerImpl extends AlgorithmBase {
       mutator.commit();
     }
   }
+
+  private static class ScheduleRanges {
+    private final Range<Date> start;
+    private final Range<Date> end;
+    private final IllegalArgumentException error;
+
+    ScheduleRanges(Range<Date> start, Range<Date> end) {
+      this.start = start;
+      this.end = end;
+      this.error = null;
+    }
+
+    ScheduleRanges(IllegalArgumentException error) {
+      this.start = null;
+      this.end = null;
+      this.error = error;
+    }
+  }
 }
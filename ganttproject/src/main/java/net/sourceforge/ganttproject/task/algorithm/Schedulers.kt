@@ -42,4 +42,10 @@ class SchedulerOptional(private val isDisabled: BooleanOption, private val deleg
       delegate.run()
     }
   }
+
+  fun runIncremental() {
+    if (isEnabled) {
+      delegate.runIncremental()
+    }
+  }
 }
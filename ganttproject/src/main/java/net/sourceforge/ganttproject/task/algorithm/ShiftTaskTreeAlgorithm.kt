@@ -50,7 +50,9 @@ class ShiftTaskTreeAlgorithm(private val taskManager: TaskManager, private val t
   fun commit() {
     task2mutator.values.forEach { it.commit() }
     try {
-      taskManager.algorithmCollection.scheduler.run()
+      // Only the shifted subtrees and their successors need rescheduling
+      task2mutator.keys.forEach { taskManager.dependencyGraph.markDirty(it) }
+      taskManager.algorithmCollection.scheduler.runIncremental()
     } catch (e: TaskDependencyException) {
       throw AlgorithmException("Failed to reschedule the following tasks tasks after move:\n$tasks", e)
     }
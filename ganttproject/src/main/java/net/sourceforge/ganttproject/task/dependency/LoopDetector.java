@@ -19,7 +19,6 @@ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
 package net.sourceforge.ganttproject.task.dependency;
 
 import net.sourceforge.ganttproject.task.TaskManager;
-import net.sourceforge.ganttproject.task.algorithm.DependencyGraph;
 
 /**
  * Loop detector answers whether a dependency will create a loop in the
@@ -35,18 +34,6 @@ public class LoopDetector {
   }
 
   public boolean isLooping(TaskDependency dep) {
-    DependencyGraph graph = myTaskManager.getDependencyGraph();
-    DependencyGraph.Logger oldLogger = graph.getLogger();
-    graph.startTransaction();
-    try {
-      graph.setLogger(DependencyGraph.THROWING_LOGGER);
-      graph.addDependency(dep);
-      return false;
-    } catch (TaskDependencyException e) {
-      return true;
-    } finally {
-      graph.rollbackTransaction();
-      graph.setLogger(oldLogger);
-    }
+    return myTaskManager.getDependencyGraph().isLooping(dep);
   }
 }
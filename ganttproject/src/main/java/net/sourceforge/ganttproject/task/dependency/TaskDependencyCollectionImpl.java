@@ -21,7 +21,6 @@ package net.sourceforge.ganttproject.task.dependency;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -271,47 +270,6 @@ public class TaskDependencyCollectionImpl implements TaskDependencyCollection {
     return detector.isLooping(dep);
   }
 
-  boolean _isLooping(TaskDependency dep) {
-    Set<Task> tasksInvolved = new HashSet<Task>();
-    tasksInvolved.add(dep.getDependee());
-    return _isLooping(dep, tasksInvolved);
-  }
-
-  private boolean _isLooping(TaskDependency dep, Set<Task> tasksInvolved) {
-    Task dependant = dep.getDependant();
-    if (tasksInvolved.contains(dependant)) {
-      return true;
-    }
-    for (Iterator<Task> tasks = tasksInvolved.iterator(); tasks.hasNext();) {
-      Task nextInvolved = tasks.next();
-      if (false == getTaskHierarchy().areUnrelated(nextInvolved, dependant)) {
-        return true;
-      }
-    }
-    tasksInvolved.add(dependant);
-    {
-      TaskDependency[] nextDeps = dependant.getDependenciesAsDependee().toArray();
-      for (int i = 0; i < nextDeps.length; i++) {
-        if (_isLooping(nextDeps[i], tasksInvolved)) {
-          return true;
-        }
-      }
-    }
-    Task[] nestedTasks = getTaskHierarchy().getNestedTasks(dependant);
-    for (int i = 0; i < nestedTasks.length; i++) {
-      tasksInvolved.add(nestedTasks[i]);
-      TaskDependency[] nextDeps = nestedTasks[i].getDependenciesAsDependee().toArray();
-      for (int j = 0; j < nextDeps.length; j++) {
-        if (_isLooping(nextDeps[j], tasksInvolved)) {
-          return true;
-        }
-      }
-
-    }
-    tasksInvolved.remove(dependant);
-    return false;
-  }
-
   void delete(TaskDependency dep) {
     myDependencies.remove(dep);
     SearchKey key1 = new SearchKey(SearchKey.DEPENDANT, dep.getDependant().getTaskID(), dep.getDependee().getTaskID());
@@ -0,0 +1,155 @@
+/*
+Copyright 2024 BarD Software s.r.o
+
+This file is part of GanttProject, an opensource project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.ganttproject.task.event
+
+import net.sourceforge.ganttproject.task.Task
+import net.sourceforge.ganttproject.task.dependency.TaskDependency
+
+/**
+ * Listener which receives the task events in batches rather than one by one. A batch collects the events
+ * fired during an undoable edit or a scheduler run, so listeners which recalculate something on any change
+ * do that once per batch.
+ */
+fun interface TaskBatchListener {
+  fun taskEventsBatched(batch: TaskEventBatch)
+}
+
+/**
+ * Task events collected in a batch, deduplicated per task and per dependency. Schedule changes of the same task
+ * are coalesced into a single event with the dates before the first change and after the last one.
+ * Tasks and dependencies which were added and then removed in the same batch are not reported at all.
+ * If the task model was reset, the batch reports only that.
+ */
+class TaskEventBatch {
+  private val myAddedTasks = LinkedHashSet<Task>()
+  private val myRemovedTasks = LinkedHashSet<Task>()
+  private val myMovedTasks = LinkedHashSet<Task>()
+  private val myScheduleChanges = LinkedHashMap<Task, TaskScheduleEvent>()
+  private val myPropertiesChangedTasks = LinkedHashSet<Task>()
+  private val myProgressChangedTasks = LinkedHashSet<Task>()
+  private val myAddedDependencies = LinkedHashSet<TaskDependency>()
+  private val myRemovedDependencies = LinkedHashSet<TaskDependency>()
+  private val myChangedDependencies = LinkedHashSet<TaskDependency>()
+
+  val addedTasks: Set<Task> get() = myAddedTasks
+  val removedTasks: Set<Task> get() = myRemovedTasks
+  val movedTasks: Set<Task> get() = myMovedTasks
+  val scheduleChanges: Collection<TaskScheduleEvent> get() = myScheduleChanges.values
+  val propertiesChangedTasks: Set<Task> get() = myPropertiesChangedTasks
+  val progressChangedTasks: Set<Task> get() = myProgressChangedTasks
+  val addedDependencies: Set<TaskDependency> get() = myAddedDependencies
+  val removedDependencies: Set<TaskDependency> get() = myRemovedDependencies
+  val changedDependencies: Set<TaskDependency> get() = myChangedDependencies
+
+  var isModelReset = false
+    private set
+
+  val isEmpty: Boolean get() = !isModelReset && myAddedTasks.isEmpty() && myRemovedTasks.isEmpty()
+      && myMovedTasks.isEmpty() && myScheduleChanges.isEmpty() && myPropertiesChangedTasks.isEmpty()
+      && myProgressChangedTasks.isEmpty() && myAddedDependencies.isEmpty() && myRemovedDependencies.isEmpty()
+      && myChangedDependencies.isEmpty()
+
+  /**
+   * @return true if the structure of the task tree has changed
+   */
+  val hasHierarchyChanges: Boolean get() =
+    isModelReset || myAddedTasks.isNotEmpty() || myRemovedTasks.isNotEmpty() || myMovedTasks.isNotEmpty()
+
+  fun taskAdded(task: Task) {
+    if (!isModelReset) {
+      myAddedTasks.add(task)
+    }
+  }
+
+  fun taskRemoved(task: Task) {
+    if (isModelReset) {
+      return
+    }
+    myMovedTasks.remove(task)
+    myScheduleChanges.remove(task)
+    myPropertiesChangedTasks.remove(task)
+    myProgressChangedTasks.remove(task)
+    if (!myAddedTasks.remove(task)) {
+      myRemovedTasks.add(task)
+    }
+  }
+
+  fun taskMoved(task: Task) {
+    if (!isModelReset && !myAddedTasks.contains(task)) {
+      myMovedTasks.add(task)
+    }
+  }
+
+  fun taskScheduleChanged(e: TaskScheduleEvent) {
+    if (isModelReset) {
+      return
+    }
+    val prev = myScheduleChanges[e.task]
+    myScheduleChanges[e.task] = if (prev == null) e else TaskScheduleEvent(
+      e.task, prev.oldStartDate, prev.oldFinishDate, e.newStartDate, e.newFinishDate
+    )
+  }
+
+  fun taskPropertiesChanged(task: Task) {
+    if (!isModelReset) {
+      myPropertiesChangedTasks.add(task)
+    }
+  }
+
+  fun taskProgressChanged(task: Task) {
+    if (!isModelReset) {
+      myProgressChangedTasks.add(task)
+    }
+  }
+
+  fun dependencyAdded(dependency: TaskDependency) {
+    if (!isModelReset) {
+      myAddedDependencies.add(dependency)
+    }
+  }
+
+  fun dependencyRemoved(dependency: TaskDependency) {
+    if (isModelReset) {
+      return
+    }
+    myChangedDependencies.remove(dependency)
+    if (!myAddedDependencies.remove(dependency)) {
+      myRemovedDependencies.add(dependency)
+    }
+  }
+
+  fun dependencyChanged(dependency: TaskDependency) {
+    if (!isModelReset && !myAddedDependencies.contains(dependency)) {
+      myChangedDependencies.add(dependency)
+    }
+  }
+
+  fun taskModelReset() {
+    isModelReset = true
+    myAddedTasks.clear()
+    myRemovedTasks.clear()
+    myMovedTasks.clear()
+    myScheduleChanges.clear()
+    myPropertiesChangedTasks.clear()
+    myProgressChangedTasks.clear()
+    myAddedDependencies.clear()
+    myRemovedDependencies.clear()
+    myChangedDependencies.clear()
+  }
+}
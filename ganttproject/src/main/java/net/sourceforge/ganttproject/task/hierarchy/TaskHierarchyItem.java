@@ -18,27 +18,40 @@ along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
  */
 package net.sourceforge.ganttproject.task.hierarchy;
 
-import com.google.common.collect.Lists;
 import net.sourceforge.ganttproject.task.Task;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class TaskHierarchyItem {
+  // Distance between the labels of the adjacent items when the labels are assigned from scratch.
+  private static final long LABEL_STEP = 1L << 32;
+
   private Task myTask;
 
   private TaskHierarchyItem myContainerItem;
 
-  private TaskHierarchyItem myFirstNestedItem;
+  // Nested items in the document order. Only the first myNestedCount elements are used.
+  private TaskHierarchyItem[] myNestedItems = EMPTY_ARRAY;
+
+  private int myNestedCount;
+
+  // Index of this item in the nested items of its container, or -1 if there is no container
+  private int myPosition = -1;
 
-  private TaskHierarchyItem myNextSiblingItem;
+  // Order-maintenance label: labels grow in the document (pre-order) order of the items in the tree,
+  // so comparing the document order of two items is comparing their labels. Labels are assigned with
+  // gaps and only the inserted subtree gets new labels, unless it doesn't fit into the gap between
+  // its neighbours, in which case the whole tree is relabeled.
+  private long myOrderLabel;
 
   private static final TaskHierarchyItem[] EMPTY_ARRAY = new TaskHierarchyItem[0];
 
   public TaskHierarchyItem(Task myTask, TaskHierarchyItem containerItem) {
     this.myTask = myTask;
-    this.myContainerItem = containerItem;
-    if (myContainerItem != null) {
-      myContainerItem.addNestedItem(this, -1);
+    if (containerItem != null) {
+      containerItem.addNestedItem(this, -1);
     }
   }
 
@@ -50,68 +63,155 @@ public class TaskHierarchyItem {
     return myContainerItem;
   }
 
+  /**
+   * @return index of this item among the nested items of its container or -1 if it has no container
+   */
+  public int getPosition() {
+    return myPosition;
+  }
+
+  public TaskHierarchyItem getPreviousSiblingItem() {
+    return myPosition > 0 ? myContainerItem.myNestedItems[myPosition - 1] : null;
+  }
+
   public TaskHierarchyItem getNextSiblingItem() {
-    return myNextSiblingItem;
+    return myContainerItem != null && myPosition < myContainerItem.myNestedCount - 1
+        ? myContainerItem.myNestedItems[myPosition + 1] : null;
+  }
+
+  public int getNestedItemCount() {
+    return myNestedCount;
+  }
+
+  public TaskHierarchyItem getNestedItem(int index) {
+    if (index < 0 || index >= myNestedCount) {
+      throw new IndexOutOfBoundsException("Index=" + index + " count=" + myNestedCount);
+    }
+    return myNestedItems[index];
   }
 
   public TaskHierarchyItem[] getNestedItems() {
-    TaskHierarchyItem[] result;
-    if (myFirstNestedItem == null) {
-      result = EMPTY_ARRAY;
-    } else {
-      ArrayList<TaskHierarchyItem> tempList = new ArrayList<TaskHierarchyItem>();
-      for (TaskHierarchyItem nested = myFirstNestedItem; nested != null; nested = nested.myNextSiblingItem) {
-        tempList.add(nested);
-      }
-      result = Lists.reverse(tempList).toArray(EMPTY_ARRAY);
+    return myNestedCount == 0 ? EMPTY_ARRAY : Arrays.copyOf(myNestedItems, myNestedCount);
+  }
+
+  /**
+   * Adds nested item at the given position, or to the end of the list if position is -1.
+   */
+  public void addNestedItem(TaskHierarchyItem nested, int position) {
+    if (position < 0 || position > myNestedCount) {
+      position = myNestedCount;
+    }
+    if (myNestedCount == myNestedItems.length) {
+      myNestedItems = Arrays.copyOf(myNestedItems, Math.max(4, myNestedCount * 2));
+    }
+    System.arraycopy(myNestedItems, position, myNestedItems, position + 1, myNestedCount - position);
+    myNestedItems[position] = nested;
+    myNestedCount++;
+    for (int i = position; i < myNestedCount; i++) {
+      myNestedItems[i].myPosition = i;
+    }
+    nested.myContainerItem = this;
+    nested.assignOrderLabels();
+  }
+
+  /**
+   * @return label of this item which is greater than the labels of the items preceding it in the document order
+   * and less than the labels of the items following it, provided that both items are in the same tree
+   */
+  public long getOrderLabel() {
+    return myOrderLabel;
+  }
+
+  private void assignOrderLabels() {
+    List<TaskHierarchyItem> subtree = new ArrayList<>();
+    collectSubtree(this, subtree);
+    long lowerBound = getPreviousItem().myOrderLabel;
+    TaskHierarchyItem next = getNextItemAfterSubtree();
+    long step = next == null ? LABEL_STEP : Math.min(LABEL_STEP, (next.myOrderLabel - lowerBound) / (subtree.size() + 1));
+    if (step == 0 || lowerBound > Long.MAX_VALUE - step * (subtree.size() + 1)) {
+      getTreeRoot().relabel();
+      return;
+    }
+    long label = lowerBound;
+    for (TaskHierarchyItem item : subtree) {
+      label += step;
+      item.myOrderLabel = label;
+    }
+  }
+
+  private void relabel() {
+    List<TaskHierarchyItem> tree = new ArrayList<>();
+    collectSubtree(this, tree);
+    long label = myOrderLabel;
+    for (TaskHierarchyItem item : tree) {
+      item.myOrderLabel = label;
+      label += LABEL_STEP;
+    }
+  }
+
+  private static void collectSubtree(TaskHierarchyItem item, List<TaskHierarchyItem> result) {
+    result.add(item);
+    for (int i = 0; i < item.myNestedCount; i++) {
+      collectSubtree(item.myNestedItems[i], result);
+    }
+  }
+
+  private TaskHierarchyItem getTreeRoot() {
+    TaskHierarchyItem result = this;
+    while (result.myContainerItem != null) {
+      result = result.myContainerItem;
     }
     return result;
   }
 
-  public void addNestedItem(TaskHierarchyItem nested, int position) {
-    if (position == -1) {
-      // Just add to the end of the list
-      nested.myNextSiblingItem = myFirstNestedItem;
-      nested.myContainerItem = this;
-      myFirstNestedItem = nested;
-    } else {
-      int curCount = getNestedItems().length;
-      if (position == curCount) {
-        addNestedItem(nested, -1);
-        return;
-      }
-      TaskHierarchyItem nextItem = myFirstNestedItem;
-      for (int idx = curCount - position; nextItem != null && --idx > 0; nextItem = nextItem.getNextSiblingItem());
-      if (nextItem == null) {
-        addNestedItem(nested, -1);
-      } else {
-        nested.myNextSiblingItem = nextItem.myNextSiblingItem;
-        nested.myContainerItem = this;
-        nextItem.myNextSiblingItem = nested;
+  /**
+   * @return item which immediately precedes this one in the document order. This item must have a container.
+   */
+  private TaskHierarchyItem getPreviousItem() {
+    TaskHierarchyItem result = getPreviousSiblingItem();
+    if (result == null) {
+      return myContainerItem;
+    }
+    while (result.myNestedCount > 0) {
+      result = result.myNestedItems[result.myNestedCount - 1];
+    }
+    return result;
+  }
+
+  /**
+   * @return item which immediately follows the subtree of this item in the document order or null if
+   * this subtree is the last one in the tree
+   */
+  private TaskHierarchyItem getNextItemAfterSubtree() {
+    for (TaskHierarchyItem item = this; item.myContainerItem != null; item = item.myContainerItem) {
+      TaskHierarchyItem nextSibling = item.getNextSiblingItem();
+      if (nextSibling != null) {
+        return nextSibling;
       }
     }
+    return null;
   }
 
   public void delete() {
     if (myContainerItem != null) {
-      TaskHierarchyItem previousSibling = myContainerItem.myFirstNestedItem;
-      if (this == previousSibling) {
-        myContainerItem.myFirstNestedItem = myNextSiblingItem;
-      } else {
-        for (; previousSibling.myNextSiblingItem != this; previousSibling = previousSibling.myNextSiblingItem)
-          ;
-        previousSibling.myNextSiblingItem = myNextSiblingItem;
+      TaskHierarchyItem container = myContainerItem;
+      System.arraycopy(container.myNestedItems, myPosition + 1, container.myNestedItems, myPosition, container.myNestedCount - myPosition - 1);
+      container.myNestedCount--;
+      container.myNestedItems[container.myNestedCount] = null;
+      for (int i = myPosition; i < container.myNestedCount; i++) {
+        container.myNestedItems[i].myPosition = i;
       }
       myContainerItem = null;
     }
-    myNextSiblingItem = null;
+    myPosition = -1;
   }
 
   public boolean hasNested() {
-    return myFirstNestedItem != null;
+    return myNestedCount > 0;
   }
 
   public void clearChildren() {
-    myFirstNestedItem = null;
+    myNestedItems = EMPTY_ARRAY;
+    myNestedCount = 0;
   }
 }
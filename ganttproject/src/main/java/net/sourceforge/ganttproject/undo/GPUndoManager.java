@@ -27,6 +27,13 @@ import javax.swing.undo.CannotUndoException;
 public interface GPUndoManager {
   void undoableEdit(String localizedName, Runnable runnableEdit);
 
+  /**
+   * Runs an edit which changes only task properties through task mutators. Such edit is undone and redone
+   * by replaying the changes recorded in the project database transaction into the task model, rather than by
+   * saving and reloading the whole project.
+   */
+  void undoableTaskEdit(String localizedName, Runnable runnableEdit);
+
   boolean canUndo();
 
   boolean canRedo();
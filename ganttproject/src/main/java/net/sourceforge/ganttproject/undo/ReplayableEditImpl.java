@@ -0,0 +1,137 @@
+/*
+Copyright 2023 BarD Software s.r.o
+
+This file is part of GanttProject, an open-source project management tool.
+
+GanttProject is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+(at your option) any later version.
+
+GanttProject is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GanttProject.  If not, see <http://www.gnu.org/licenses/>.
+*/
+package net.sourceforge.ganttproject.undo;
+
+import net.sourceforge.ganttproject.GPLogger;
+import net.sourceforge.ganttproject.storage.ProjectDatabaseException;
+import net.sourceforge.ganttproject.storage.ProjectDatabaseTxn;
+
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+
+/**
+ * Undoable edit which doesn't keep project snapshots. Undo and redo replay the task changes recorded
+ * in the project database transaction, so their cost depends on the size of the edit rather than on the size
+ * of the project.
+ */
+class ReplayableEditImpl extends AbstractUndoableEdit implements ProjectDatabaseEdit {
+  private final String myPresentationName;
+
+  private final UndoManagerImpl myManager;
+
+  private ProjectDatabaseTxn myProjectDatabaseTxn = null;
+
+  ReplayableEditImpl(String localizedName, Runnable editImpl, UndoManagerImpl manager) {
+    myManager = manager;
+    myPresentationName = localizedName;
+    try {
+      myProjectDatabaseTxn = myManager.getProjectDatabase().startTransaction(localizedName);
+      editImpl.run();
+      myProjectDatabaseTxn.commit();
+      if (!myProjectDatabaseTxn.isComplete()) {
+        myManager.resyncProjectDatabase();
+      }
+    } catch (ProjectDatabaseException ex) {
+      GPLogger.log(ex);
+      myProjectDatabaseTxn = null;
+      myManager.resyncProjectDatabase();
+    }
+  }
+
+  @Override
+  public boolean canUndo() {
+    return super.canUndo() && isReplayable();
+  }
+
+  @Override
+  public boolean canRedo() {
+    return super.canRedo() && isReplayable();
+  }
+
+  boolean isReplayable() {
+    return myProjectDatabaseTxn != null && myProjectDatabaseTxn.isReplayable();
+  }
+
+  @Override
+  public void undo() throws CannotUndoException {
+    if (!canUndo()) {
+      throw new CannotUndoException();
+    }
+    try {
+      replay(true);
+    } catch (ProjectDatabaseException e) {
+      GPLogger.log(e);
+      throw new CannotUndoException();
+    }
+    super.undo();
+  }
+
+  @Override
+  public void redo() throws CannotRedoException {
+    if (!canRedo()) {
+      throw new CannotRedoException();
+    }
+    try {
+      replay(false);
+    } catch (ProjectDatabaseException e) {
+      GPLogger.log(e);
+      throw new CannotRedoException();
+    }
+    super.redo();
+  }
+
+  private void replay(boolean isUndo) throws ProjectDatabaseException {
+    var taskManager = myManager.getProject().getTaskManager();
+    // Task mutators write their changes into the database, so we collect them in a new transaction.
+    var replayTxn = myManager.getProjectDatabase().startTransaction(myPresentationName);
+    try {
+      if (isUndo) {
+        myProjectDatabaseTxn.replayUndo(taskManager);
+      } else {
+        myProjectDatabaseTxn.replayRedo(taskManager);
+      }
+    } catch (ProjectDatabaseException e) {
+      // The task changes applied before the failure have been reverted, so none of them goes to the database.
+      replayTxn.rollback();
+      if (e.getSuppressed().length > 0) {
+        // Reverting has failed too, and the database needs to catch up with whatever is in the task model.
+        myManager.resyncProjectDatabase();
+      }
+      throw e;
+    }
+    try {
+      replayTxn.commit();
+    } catch (ProjectDatabaseException e) {
+      // The task model is already replayed, so we only need to bring the database in agreement with it.
+      GPLogger.log(e);
+      myManager.resyncProjectDatabase();
+    }
+  }
+
+  @Override
+  public ProjectDatabaseTxn getProjectDatabaseTxn() {
+    return myProjectDatabaseTxn;
+  }
+
+  @Override
+  public String getPresentationName() {
+    return myPresentationName;
+  }
+}
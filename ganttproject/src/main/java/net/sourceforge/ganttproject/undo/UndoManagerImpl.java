@@ -25,6 +25,8 @@ import net.sourceforge.ganttproject.language.GanttLanguage;
 import net.sourceforge.ganttproject.language.GanttLanguage.Event;
 import net.sourceforge.ganttproject.parser.ParserFactory;
 import net.sourceforge.ganttproject.storage.ProjectDatabase;
+import net.sourceforge.ganttproject.storage.ProjectDatabaseException;
+import net.sourceforge.ganttproject.storage.ProjectDatabaseKt;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
@@ -32,6 +34,7 @@ import javax.swing.event.UndoableEditListener;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.UndoManager;
+import javax.swing.undo.UndoableEdit;
 import javax.swing.undo.UndoableEditSupport;
 import java.io.IOException;
 
@@ -76,7 +79,7 @@ public class UndoManagerImpl implements GPUndoManager {
   public void undoableEdit(String localizedName, Runnable editImpl) {
 
     try {
-      swingEditImpl = new UndoableEditImpl(localizedName, editImpl, this);
+      swingEditImpl = new UndoableEditImpl(localizedName, inEventBatch(editImpl), this);
       mySwingUndoManager.addEdit(swingEditImpl);
       fireUndoableEditHappened(swingEditImpl);
     } catch (IOException e) {
@@ -86,7 +89,31 @@ public class UndoManagerImpl implements GPUndoManager {
     }
   }
 
-  private void fireUndoableEditHappened(UndoableEditImpl swingEditImpl) {
+  @Override
+  public void undoableTaskEdit(String localizedName, Runnable editImpl) {
+    var edit = new ReplayableEditImpl(localizedName, inEventBatch(editImpl), this);
+    if (edit.isReplayable()) {
+      mySwingUndoManager.addEdit(edit);
+    } else {
+      // Task edits are expected to change task properties only. If this one has failed or made some other changes,
+      // it can't be undone, and replaying the earlier edits over it would be wrong too, so we drop the history.
+      GPLogger.logToLogger("Edit '" + localizedName + "' can't be replayed, the undo history is discarded");
+      mySwingUndoManager.discardAllEdits();
+      fireUndoReset();
+    }
+    fireUndoableEditHappened(edit);
+  }
+
+  // Task events fired during an edit are delivered to the batch listeners at once
+  private Runnable inEventBatch(Runnable editImpl) {
+    return () -> {
+      try (var eventBatch = myProject.getTaskManager().startEventBatch()) {
+        editImpl.run();
+      }
+    };
+  }
+
+  private void fireUndoableEditHappened(UndoableEdit swingEditImpl) {
     myUndoEventDispatcher.postEdit(swingEditImpl);
   }
 
@@ -104,6 +131,17 @@ public class UndoManagerImpl implements GPUndoManager {
 
 
   ProjectDatabase getProjectDatabase() { return myProjectDatabase; }
+
+  // Edits, undo and redo apply the changes recorded in the edit transactions to the project database. If a transaction
+  // fails or misses some changes of the task model, we reload the whole task model into a new database.
+  void resyncProjectDatabase() {
+    try {
+      ProjectDatabaseKt.reload(myProjectDatabase, myProject.getTaskManager());
+    } catch (ProjectDatabaseException e) {
+      GPLogger.log(e);
+    }
+  }
+
   DocumentManager getDocumentManager() {
     return myDocumentManager;
   }
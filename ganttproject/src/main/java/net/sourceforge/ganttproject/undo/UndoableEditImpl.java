@@ -22,6 +22,7 @@ import net.sourceforge.ganttproject.GPLogger;
 import net.sourceforge.ganttproject.document.Document;
 import net.sourceforge.ganttproject.document.Document.DocumentException;
 import net.sourceforge.ganttproject.storage.ProjectDatabaseException;
+import net.sourceforge.ganttproject.storage.ProjectDatabaseKt;
 import net.sourceforge.ganttproject.storage.ProjectDatabaseTxn;
 
 import javax.swing.undo.AbstractUndoableEdit;
@@ -32,7 +33,7 @@ import java.io.IOException;
 /**
  * @author bard
  */
-class UndoableEditImpl extends AbstractUndoableEdit {
+class UndoableEditImpl extends AbstractUndoableEdit implements ProjectDatabaseEdit {
   private final String myPresentationName;
 
   private final Document myDocumentBefore;
@@ -51,8 +52,13 @@ class UndoableEditImpl extends AbstractUndoableEdit {
       projectDatabaseTxn = myManager.getProjectDatabase().startTransaction(localizedName);
       editImpl.run();
       projectDatabaseTxn.commit();
+      if (!projectDatabaseTxn.isComplete()) {
+        myManager.resyncProjectDatabase();
+      }
     } catch (ProjectDatabaseException ex) {
       GPLogger.log(ex);
+      projectDatabaseTxn = null;
+      myManager.resyncProjectDatabase();
     }
     myDocumentAfter = saveFile();
   }
@@ -77,13 +83,7 @@ class UndoableEditImpl extends AbstractUndoableEdit {
   public void redo() throws CannotRedoException {
     try {
       restoreDocument(myDocumentAfter);
-      if (projectDatabaseTxn != null) {
-        try {
-          projectDatabaseTxn.redo();
-        } catch (ProjectDatabaseException e) {
-          GPLogger.log(e);
-        }
-      }
+      syncProjectDatabase(false);
     } catch (DocumentException | IOException e) {
       undoRedoExceptionHandler(e);
     }
@@ -93,13 +93,7 @@ class UndoableEditImpl extends AbstractUndoableEdit {
   public void undo() throws CannotUndoException {
     try {
       restoreDocument(myDocumentBefore);
-      if (projectDatabaseTxn != null) {
-        try {
-          projectDatabaseTxn.undo();
-        } catch (ProjectDatabaseException e) {
-          GPLogger.log(e);
-        }
-      }
+      syncProjectDatabase(true);
     } catch (DocumentException | IOException e) {
       undoRedoExceptionHandler(e);
     }
@@ -109,6 +103,20 @@ class UndoableEditImpl extends AbstractUndoableEdit {
     myManager.getProject().restore(document);
   }
 
+  private void syncProjectDatabase(boolean isUndo) {
+    try {
+      ProjectDatabaseKt.syncUndoRedo(
+        myManager.getProjectDatabase(), projectDatabaseTxn, isUndo, myManager.getProject().getTaskManager());
+    } catch (ProjectDatabaseException e) {
+      GPLogger.log(e);
+    }
+  }
+
+  @Override
+  public ProjectDatabaseTxn getProjectDatabaseTxn() {
+    return projectDatabaseTxn;
+  }
+
   @Override
   public String getPresentationName() {
     return myPresentationName;
@@ -42,7 +42,9 @@ create table if not exists TaskDependency (
 create table if not exists LogRecord (
   id                    identity    not null,
   local_txn_id          integer     not null,
-  operation_dto_json    varchar     not null,
+  -- Operation is stored either as JSON or in the compact binary encoding, depending on the database settings.
+  operation_dto_json    varchar         null,
+  operation_dto_bytes   varbinary       null,
 
   primary key (id)
 );